@@ -0,0 +1,152 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.GsonAdapter;
+import me.figo.models.Account;
+import me.figo.models.AccountBalance;
+import me.figo.models.Security;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+public class AccountsSnapshotTest {
+
+    /**
+     * Answers every request right away, or keeps it open if manual is set
+     */
+    private static class FakeSession extends FigoAsyncSession {
+
+        final List<Account> accounts = new ArrayList<Account>();
+        final List<FigoFuture<?>> requests = new ArrayList<FigoFuture<?>>();
+        boolean manual;
+
+        FakeSession() {
+            super(new FigoSession("token", (FigoTransport) null));
+        }
+
+        private <T> FigoFuture<T> answer(T response) {
+            FigoFuture<T> future = new FigoFuture<T>();
+            requests.add(future);
+            if (!manual)
+                future.onResponse(response);
+            return future;
+        }
+
+        @Override
+        public FigoFuture<List<Account>> getAccounts() {
+            return answer(accounts);
+        }
+
+        @Override
+        public FigoFuture<AccountBalance> getAccountBalance(Account account) {
+            return answer(new AccountBalance());
+        }
+
+        @Override
+        public FigoFuture<List<Transaction>> getTransactions(Account account) {
+            if ("A2".equals(account.getAccountId())) {
+                FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+                requests.add(future);
+                if (!manual)
+                    future.onErrorResponse(new FigoError("internal_server_error", "error"));
+                return future;
+            }
+            return answer(Collections.<Transaction>emptyList());
+        }
+
+        @Override
+        public FigoFuture<List<Security>> getSecurities(Account account) {
+            return answer(Collections.<Security>emptyList());
+        }
+    }
+
+    private static Account account(String id) {
+        return GsonAdapter.getInstance().fromJson("{\"account_id\": \"" + id + "\"}", Account.class);
+    }
+
+    @Test
+    public void testPartialSnapshot() throws Exception {
+        FakeSession session = new FakeSession();
+        session.accounts.add(account("A1"));
+        session.accounts.add(account("A2"));
+        AccountsSnapshot snapshot = session.getAccountsSnapshot(2).get(1, TimeUnit.SECONDS);
+
+        assertEquals(2, snapshot.getAccounts().size());
+        assertTrue(snapshot.getAccounts().get(0).isComplete());
+        assertNotNull(snapshot.getAccounts().get(0).getBalance());
+        assertNull(snapshot.getAccounts().get(1).getTransactions());
+        assertEquals(1, snapshot.getAccounts().get(1).getErrors().size());
+        assertFalse(snapshot.isComplete());
+        assertEquals(7, session.requests.size());
+    }
+
+    @Test
+    public void testSynchronousResponsesDoNotNest() throws Exception {
+        FakeSession session = new FakeSession();
+        for (int i = 0; i < 5000; i++) {
+            session.accounts.add(account("A" + (i + 3)));
+        }
+        AccountsSnapshot snapshot = session.getAccountsSnapshot(4).get(1, TimeUnit.SECONDS);
+        assertEquals(5000, snapshot.getAccounts().size());
+        assertTrue(snapshot.isComplete());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testParallelismLimitsRequestsInFlight() throws Exception {
+        FakeSession session = new FakeSession();
+        session.accounts.add(account("A1"));
+        session.manual = true;
+        FigoFuture<AccountsSnapshot> future = session.getAccountsSnapshot(2);
+        ((FigoFuture<List<Account>>) session.requests.get(0)).onResponse(session.accounts);
+        assertEquals(3, session.requests.size());
+
+        ((FigoFuture<AccountBalance>) session.requests.get(1)).onResponse(new AccountBalance());
+        assertEquals(4, session.requests.size());
+        assertFalse(future.isDone());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCancelCancelsRequestsInFlight() throws Exception {
+        FakeSession session = new FakeSession();
+        session.accounts.add(account("A1"));
+        session.manual = true;
+        FigoFuture<AccountsSnapshot> future = session.getAccountsSnapshot(2);
+        ((FigoFuture<List<Account>>) session.requests.get(0)).onResponse(session.accounts);
+
+        assertTrue(future.cancel(true));
+        assertTrue(session.requests.get(1).isCancelled());
+        assertTrue(session.requests.get(2).isCancelled());
+        assertEquals(3, session.requests.size());
+    }
+}
@@ -0,0 +1,133 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.FigoRequest;
+import me.figo.models.Bank;
+
+import org.junit.Test;
+
+import com.android.volley.Response;
+
+public class CatalogCacheTest {
+
+    private static class FakeSession extends FigoSession {
+
+        final List<Response.Listener<Bank>> listeners = new ArrayList<Response.Listener<Bank>>();
+        final List<Response.ErrorListener> errorListeners = new ArrayList<Response.ErrorListener>();
+
+        FakeSession() {
+            this("token", 10000);
+        }
+
+        FakeSession(String accessToken, int timeout) {
+            super(accessToken, timeout, "https://api.figo.me", (FigoTransport) null);
+        }
+
+        @Override
+        public FigoRequest getBank(String bankId, Response.Listener<Bank> listener, Response.ErrorListener errorListener) {
+            listeners.add(listener);
+            errorListeners.add(errorListener);
+            return null;
+        }
+    }
+
+    @Test
+    public void testConcurrentMissesAreCoalesced() throws Exception {
+        FakeSession session = new FakeSession();
+        CatalogCache cache = new CatalogCache();
+
+        FigoFuture<Bank> first = cache.getBank(session, "B1.1");
+        FigoFuture<Bank> second = cache.getBank(session, "B1.1");
+        assertEquals(1, session.listeners.size());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+
+        Bank bank = new Bank();
+        session.listeners.get(0).onResponse(bank);
+        assertSame(bank, first.get(1, TimeUnit.SECONDS));
+        assertSame(bank, second.get(1, TimeUnit.SECONDS));
+
+        assertSame(bank, cache.getBank(session, "B1.1").get(1, TimeUnit.SECONDS));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, session.listeners.size());
+    }
+
+    @Test
+    public void testExpiredAndFailedEntriesAreReloaded() throws Exception {
+        FakeSession session = new FakeSession();
+        CatalogCache cache = new CatalogCache(16, 0, 0, 0);
+
+        cache.getBank(session, "B1.1");
+        session.errorListeners.get(0).onErrorResponse(new FigoError("internal_server_error", "error"));
+        assertEquals(0, cache.size());
+
+        cache.getBank(session, "B1.1");
+        session.listeners.get(1).onResponse(new Bank());
+        Thread.sleep(2);
+        cache.getBank(session, "B1.1");
+        assertEquals(3, session.listeners.size());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testOverdueLoadIsNotJoined() throws Exception {
+        FakeSession session = new FakeSession("token", 10);
+        CatalogCache cache = new CatalogCache();
+
+        cache.getBank(session, "B1.1");
+        Thread.sleep(20);
+        FigoFuture<Bank> retry = cache.getBank(session, "B1.1");
+        assertEquals(2, session.listeners.size());
+
+        Bank bank = new Bank();
+        session.listeners.get(1).onResponse(bank);
+        assertSame(bank, retry.get(1, TimeUnit.SECONDS));
+        assertSame(bank, cache.getBank(session, "B1.1").get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testBanksSurviveTokenRefresh() throws Exception {
+        FakeSession session = new FakeSession();
+        CatalogCache cache = new CatalogCache();
+
+        cache.getBank(session, "B1.1");
+        session.listeners.get(0).onResponse(new Bank());
+        session.setAccessToken("refreshed");
+        cache.getBank(session, "B1.1");
+        assertEquals(1, session.listeners.size());
+
+        // another user does not see the entry
+        FakeSession other = new FakeSession("other", 10000);
+        cache.getBank(other, "B1.1");
+        assertEquals(1, other.listeners.size());
+        assertEquals(1, cache.getHitCount());
+    }
+}
@@ -0,0 +1,262 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.figo.models.Account;
+
+import org.junit.Test;
+
+import com.android.volley.NetworkError;
+import com.android.volley.Request;
+import com.android.volley.TimeoutError;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void testOpensAndRecoversThroughProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, 20);
+        for (int i = 0; i < 2; i++) {
+            breaker.onSuccess(breaker.tryAcquire());
+        }
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        assertEquals(1, breaker.getRejectedCount());
+
+        Thread.sleep(30);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNull(breaker.tryAcquire());
+        breaker.onFailure(probe);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(30);
+        breaker.onSuccess(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void testStaleOutcomesAreIgnored() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 2, 0.5, 20);
+        CircuitBreaker.Permit slow = breaker.tryAcquire();
+        breaker.onFailure(breaker.tryAcquire());
+        breaker.onFailure(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(30);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // a call admitted before the breaker opened neither closes nor reopens it
+        breaker.onSuccess(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onFailure(slow);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onFailure(slow);
+        assertEquals(0.0, breaker.getFailureRate(), 0.0);
+    }
+
+    @Test
+    public void testLostProbeIsReplaced() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 0.5, 20);
+        breaker.onFailure(breaker.tryAcquire());
+        Thread.sleep(30);
+        CircuitBreaker.Permit lost = breaker.tryAcquire();
+        assertNotNull(lost);
+        assertNull(breaker.tryAcquire());
+
+        Thread.sleep(30);
+        CircuitBreaker.Permit probe = breaker.tryAcquire();
+        assertNotNull(probe);
+        breaker.onFailure(lost);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(probe);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testCancelledProbeIsReplaced() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 1, 0.5, 20);
+        breaker.onFailure(breaker.tryAcquire());
+        Thread.sleep(30);
+        breaker.onCancel(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testBulkheadRejectionDoesNotCloseBreaker() throws Exception {
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, (FigoTransport) null) {
+            @Override
+            protected CircuitBreaker createCircuitBreaker(String group) {
+                return new CircuitBreaker(1, 1, 0.5, 20);
+            }
+
+            @Override
+            protected Bulkhead createBulkhead(String group) {
+                return new Bulkhead(0, 0);
+            }
+        };
+        CircuitBreaker breaker = api.getCircuitBreaker(FigoApi.GROUP_DEFAULT);
+        breaker.onFailure(breaker.tryAcquire());
+        Thread.sleep(30);
+
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        try {
+            future.get(0, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("service_unavailable", ((FigoError) e.getCause()).getErrorCode());
+        }
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertNotNull(breaker.tryAcquire());
+    }
+
+    @Test
+    public void testBulkheadQueuesAndRejects() throws Exception {
+        final AtomicInteger started = new AtomicInteger();
+        Bulkhead.Task task = new Bulkhead.Task() {
+            @Override
+            public boolean tryRun() {
+                started.incrementAndGet();
+                return true;
+            }
+        };
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.submit(task));
+        assertTrue(bulkhead.submit(task));
+        assertFalse(bulkhead.submit(task));
+        assertEquals(1, started.get());
+        assertEquals(1, bulkhead.getWaitingCount());
+
+        bulkhead.release();
+        assertEquals(2, started.get());
+        assertEquals(1, bulkhead.getActiveCount());
+        assertFalse(bulkhead.acquire(10));
+
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActiveCount());
+        assertTrue(bulkhead.acquire(10));
+        assertEquals(2, bulkhead.getRejectedCount());
+    }
+
+    @Test
+    public void testBlockedAcquireIsWokenByRelease() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.acquire(10));
+        new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                bulkhead.release();
+            }
+        }.start();
+        assertTrue(bulkhead.acquire(5000));
+        assertEquals(1, bulkhead.getActiveCount());
+    }
+
+    @Test
+    public void testReleaseSkipsDeclinedTasks() throws Exception {
+        final AtomicInteger declined = new AtomicInteger();
+        Bulkhead.Task cancelled = new Bulkhead.Task() {
+            @Override
+            public boolean tryRun() {
+                declined.incrementAndGet();
+                return false;
+            }
+        };
+        Bulkhead bulkhead = new Bulkhead(1, 100000);
+        assertTrue(bulkhead.acquire(10));
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(bulkhead.submit(cancelled));
+        }
+        bulkhead.release();
+        assertEquals(100000, declined.get());
+        assertEquals(0, bulkhead.getActiveCount());
+        assertEquals(0, bulkhead.getWaitingCount());
+    }
+
+    @Test
+    public void testRemovedTaskFreesQueueSlot() throws Exception {
+        Bulkhead.Task task = new Bulkhead.Task() {
+            @Override
+            public boolean tryRun() {
+                return true;
+            }
+        };
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.acquire(10));
+        assertTrue(bulkhead.submit(task));
+        assertTrue(bulkhead.remove(task));
+        assertFalse(bulkhead.remove(task));
+        assertTrue(bulkhead.submit(task));
+    }
+
+    @Test
+    public void testInterruptedAcquireDoesNotLeakPermit() throws Exception {
+        final Bulkhead bulkhead = new Bulkhead(1, 1);
+        assertTrue(bulkhead.acquire(10));
+        Thread.currentThread().interrupt();
+        try {
+            bulkhead.acquire(5000);
+            fail();
+        } catch (InterruptedException e) {
+            // expected
+        }
+        assertEquals(0, bulkhead.getWaitingCount());
+
+        bulkhead.release();
+        assertEquals(0, bulkhead.getActiveCount());
+        assertTrue(bulkhead.acquire(10));
+    }
+
+    @Test
+    public void testOnlyServerAndNetworkErrorsAreFailures() throws Exception {
+        assertTrue(FigoApi.isFailure(new FigoError("internal_server_error", "error", 503)));
+        assertTrue(FigoApi.isFailure(new TimeoutError()));
+        assertTrue(FigoApi.isFailure(new NetworkError()));
+        assertFalse(FigoApi.isFailure(new FigoError("internal_server_error", "error", 404)));
+        assertFalse(FigoApi.isFailure(new FigoError("internal_server_error", "error", 409)));
+        assertFalse(FigoApi.isFailure(new FigoError("access_denied", "Access Denied", 401)));
+        assertFalse(FigoApi.isFailure(new FigoRateLimitError(-1)));
+    }
+}
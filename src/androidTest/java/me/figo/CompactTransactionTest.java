@@ -0,0 +1,135 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.TimeZone;
+
+import me.figo.internal.GsonAdapter;
+import me.figo.internal.IsoDateFormat;
+import me.figo.models.CompactTransaction;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+public class CompactTransactionTest {
+
+    private static final String TRANSACTIONS = "{\"transactions\": [{\"transaction_id\": \"T1.1\", \"account_id\": \"A1.1\", "
+            + "\"name\": \"Dr. House\", \"amount\": -12.3, \"currency\": \"EUR\", \"booking_date\": \"2013-04-11T23:30:00.000-02:00\", "
+            + "\"value_date\": null, \"purpose\": \"Miete\", \"type\": \"Transfer\", \"booked\": true, \"visited\": \"false\"}, "
+            + "{\"transaction_id\": \"T1.2\", \"currency\": \"JPY\", \"amount\": 1500, \"account_id\": \"A1.1\", \"type\": \"Transfer\", "
+            + "\"value_date\": \"2013-04-12T00:00:00.000Z\"}, "
+            + "{\"transaction_id\": \"T1.3\", \"amount\": \"0.125\", \"currency\": \"KWD\", \"categories\": [{\"id\": 1}]}], "
+            + "\"status\": {\"code\": 1}}";
+
+    private static CompactTransaction parse(String amount, String currency) {
+        return GsonAdapter.getInstance().fromJson("{\"amount\": " + amount + ", \"currency\": \"" + currency + "\"}", CompactTransaction.class);
+    }
+
+    @Test
+    public void testDecoding() {
+        List<CompactTransaction> transactions = GsonAdapter.getInstance().fromJson(TRANSACTIONS, CompactTransaction.TransactionsResponse.class).getTransactions();
+        assertEquals(3, transactions.size());
+
+        CompactTransaction first = transactions.get(0);
+        assertEquals("T1.1", first.getTransactionId());
+        assertEquals("Dr. House", first.getName());
+        assertEquals(-1230, first.getAmount());
+        assertEquals(new BigDecimal("-12.30"), first.getAmountAsBigDecimal());
+        assertEquals(IsoDateFormat.parseEpochDay("2013-04-11"), first.getBookingDate());
+        assertEquals("2013-04-11", IsoDateFormat.formatEpochDay(first.getBookingDate()));
+        assertEquals(CompactTransaction.NO_DATE, first.getValueDate());
+        assertTrue(first.isBooked());
+        assertFalse(first.isVisited());
+
+        CompactTransaction second = transactions.get(1);
+        assertEquals(1500, second.getAmount());
+        assertEquals(0, second.getAmountScale());
+        assertEquals(first.getBookingDate() + 1, second.getValueDate());
+        assertSame(first.getAccountId(), second.getAccountId());
+        assertSame(first.getType(), second.getType());
+
+        assertEquals(125, transactions.get(2).getAmount());
+        assertEquals(3, transactions.get(2).getAmountScale());
+    }
+
+    @Test
+    public void testAmounts() {
+        assertEquals(100, parse("1", "EUR").getAmount());
+        assertEquals(-5, parse("-0.05", "EUR").getAmount());
+        assertEquals(1200, parse("12.000", "EUR").getAmount());
+        assertEquals(150000, parse("1.5e3", "EUR").getAmount());
+        assertEquals(123456789012345678L, parse("1234567890123456.78", "EUR").getAmount());
+        assertEquals(1234, parse("12.34", "XXX").getAmount());
+        try {
+            parse("12.345", "EUR");
+            fail();
+        } catch (JsonSyntaxException e) {
+            // expected
+        }
+        try {
+            parse("123456789012345678901", "EUR");
+            fail();
+        } catch (JsonSyntaxException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testConversion() {
+        String json = "{\"transaction_id\": \"T1.1\", \"account_id\": \"A1.1\", \"amount\": -12.34, \"currency\": \"EUR\", "
+                + "\"booking_date\": \"2013-04-11T00:00:00.000Z\", \"booking_text\": \"Lastschrift\", \"booked\": true}";
+        Transaction transaction = GsonAdapter.getInstance().fromJson(json, Transaction.class);
+        CompactTransaction compact;
+        // west of UTC the booking date must not move to the previous day
+        TimeZone zone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        try {
+            compact = CompactTransaction.of(transaction);
+        } finally {
+            TimeZone.setDefault(zone);
+        }
+        assertEquals(GsonAdapter.getInstance().fromJson(json, CompactTransaction.class).getBookingDate(), compact.getBookingDate());
+        assertEquals("T1.1", compact.getTransactionId());
+        assertEquals(-1234, compact.getAmount());
+        assertEquals(IsoDateFormat.parseEpochDay("2013-04-11"), compact.getBookingDate());
+        assertEquals(CompactTransaction.NO_DATE, compact.getValueDate());
+        assertEquals("Lastschrift", compact.getBookingText());
+        assertTrue(compact.isBooked());
+    }
+
+    @Test
+    public void testEpochDay() {
+        assertEquals(0, IsoDateFormat.parseEpochDay("1970-01-01"));
+        assertEquals(-1, IsoDateFormat.parseEpochDay("1969-12-31T23:59:59Z"));
+        assertEquals(Integer.MIN_VALUE, IsoDateFormat.parseEpochDay("2013-13-01"));
+        assertEquals(Integer.MIN_VALUE, IsoDateFormat.parseEpochDay("2013-04-11x"));
+        assertEquals("2000-02-29", IsoDateFormat.formatEpochDay(IsoDateFormat.parseEpochDay("2000-02-29")));
+    }
+}
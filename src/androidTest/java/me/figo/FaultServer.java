@@ -0,0 +1,123 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+/**
+ * Minimal HTTP server answering each connection with the next scripted fault: a status code, or "reset" to abort the
+ * connection. Once the script is exhausted it answers with 200 and an account. HTTP 429 responses ask to retry after one
+ * second, a status suffixed with "-empty" is answered without a body. Successful responses carry an ETag, which a 304
+ * response confirms.
+ */
+class FaultServer extends Thread {
+
+    static final String ACCOUNT = "{\"account_id\": \"A1.1\"}";
+    static final String ETAG = "\"v1\"";
+
+    private final ServerSocket socket;
+    private final LinkedList<String> script;
+    volatile int requests;
+    volatile String ifNoneMatch;
+
+    FaultServer(String... script) throws IOException {
+        this.socket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        this.script = new LinkedList<String>(Arrays.asList(script));
+        setDaemon(true);
+        start();
+    }
+
+    String getEndpoint() {
+        return "http://127.0.0.1:" + socket.getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                Socket client = socket.accept();
+                try {
+                    handle(client);
+                } catch (IOException e) {
+                    // the client gave up, continue with the next connection
+                }
+            }
+        } catch (IOException e) {
+            // server closed
+        }
+    }
+
+    private void handle(Socket client) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(), "UTF-8"));
+        int contentLength = 0;
+        String validator = null;
+        String line;
+        while ((line = in.readLine()) != null && line.length() > 0) {
+            if (line.toLowerCase().startsWith("content-length:"))
+                contentLength = Integer.parseInt(line.substring(15).trim());
+            if (line.toLowerCase().startsWith("if-none-match:"))
+                validator = line.substring(14).trim();
+        }
+        ifNoneMatch = validator;
+        for (int i = 0; i < contentLength; i++) {
+            in.read();
+        }
+        requests++;
+
+        String fault;
+        synchronized (script) {
+            fault = script.isEmpty() ? "200" : script.removeFirst();
+        }
+        if ("reset".equals(fault)) {
+            client.setSoLinger(true, 0);
+            client.close();
+            return;
+        }
+
+        boolean empty = fault.endsWith("-empty");
+        if (empty)
+            fault = fault.substring(0, fault.length() - 6);
+        byte[] body = (empty || "304".equals(fault) ? "" : "200".equals(fault) ? ACCOUNT : "{}").getBytes("UTF-8");
+        OutputStream out = client.getOutputStream();
+        String retryAfter = "429".equals(fault) ? "Retry-After: 1\r\n" : "";
+        String etag = "200".equals(fault) || "304".equals(fault) ? "ETag: " + ETAG + "\r\n" : "";
+        out.write(("HTTP/1.1 " + fault + " Status\r\nContent-Type: application/json\r\nContent-Length: " + body.length + "\r\n" + retryAfter
+                + etag + "Connection: close\r\n\r\n").getBytes("UTF-8"));
+        out.write(body);
+        out.flush();
+        client.close();
+    }
+
+    void shutdown() throws IOException {
+        socket.close();
+    }
+}
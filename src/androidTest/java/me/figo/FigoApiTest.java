@@ -0,0 +1,166 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.FigoRequest;
+import me.figo.models.Account;
+
+import org.junit.Test;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+
+public class FigoApiTest {
+
+    /**
+     * Transport keeping the requests instead of sending them
+     */
+    private static class RecordingTransport implements FigoTransport {
+
+        final List<FigoRequest<?>> requests = new ArrayList<FigoRequest<?>>();
+
+        @Override
+        public synchronized <T> void enqueue(FigoApi api, FigoRequest<T> request) {
+            requests.add(request);
+        }
+    }
+
+    private static void deliverAccount(FigoRequest<?> request) throws Exception {
+        request.deliverNetworkResponse(new NetworkResponse(200, FaultServer.ACCOUNT.getBytes("UTF-8"), Collections.<String, String>emptyMap(), false));
+    }
+
+    @Test
+    public void testIdenticalGetsShareOneRequest() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, transport);
+        FigoFuture<Account> first = new FigoFuture<Account>();
+        FigoFuture<Account> second = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, second, second);
+        assertEquals(1, transport.requests.size());
+
+        deliverAccount(transport.requests.get(0));
+        assertEquals("A1.1", first.get(0, TimeUnit.SECONDS).getAccountId());
+        assertSame(first.get(), second.get());
+
+        // the result is not cached, the next call goes to the server again
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        assertEquals(2, transport.requests.size());
+    }
+
+    @Test
+    public void testDifferentGetsAreNotJoined() {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, transport);
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        api.queryApi("/rest/accounts/A1.2", null, Request.Method.GET, Account.class, future, future);
+        new FigoApi("https://api.figo.me", "Bearer other", 5000, transport).queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class,
+                future, future);
+        assertEquals(3, transport.requests.size());
+    }
+
+    @Test
+    public void testErrorIsDeliveredToAllCallers() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, transport);
+        FigoFuture<Account> first = new FigoFuture<Account>();
+        FigoFuture<Account> second = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, second, second);
+
+        transport.requests.get(0).deliverError(new FigoError("access_denied", "Access Denied"));
+        for (FigoFuture<Account> future : new FigoFuture[] { first, second }) {
+            try {
+                future.get(0, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertEquals("access_denied", ((FigoError) e.getCause()).getErrorCode());
+            }
+        }
+
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        assertEquals(2, transport.requests.size());
+    }
+
+    @Test
+    public void testCancellingOneCallerKeepsTheOthers() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, transport);
+        FigoFuture<Account> first = new FigoFuture<Account>();
+        FigoFuture<Account> second = new FigoFuture<Account>();
+        FigoRequest<Account> cancelled = api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, second, second);
+
+        cancelled.cancel();
+        assertFalse(transport.requests.get(0).isCanceled());
+        deliverAccount(transport.requests.get(0));
+        assertEquals("A1.1", second.get(0, TimeUnit.SECONDS).getAccountId());
+        assertFalse(first.isDone());
+    }
+
+    @Test
+    public void testCancellingAllCallersCancelsTheRequest() {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, transport);
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        FigoRequest<Account> first = api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        FigoRequest<Account> second = api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+
+        first.cancel();
+        second.cancel();
+        assertTrue(transport.requests.get(0).isCanceled());
+
+        // a new caller does not join the abandoned request
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        assertEquals(2, transport.requests.size());
+    }
+
+    @Test
+    public void testOverdueRequestIsNotJoined() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 20, transport);
+        FigoFuture<Account> first = new FigoFuture<Account>();
+        FigoFuture<Account> second = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, first, first);
+        Thread.sleep(50);
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, second, second);
+        assertEquals(2, transport.requests.size());
+
+        // the late result of the first request still reaches its caller only
+        deliverAccount(transport.requests.get(0));
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        deliverAccount(transport.requests.get(1));
+        assertTrue(second.isDone());
+    }
+}
@@ -0,0 +1,80 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class FigoBlockingSessionTest {
+
+    private FaultServer server;
+
+    private FigoBlockingSession createSession(String... script) throws IOException {
+        server = new FaultServer(script);
+        return new FigoBlockingSession(new FigoSession("token", 5000, server.getEndpoint(), (FigoTransport) null));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null)
+            server.shutdown();
+    }
+
+    @Test
+    public void testResourceIsDecoded() throws Exception {
+        FigoBlockingSession session = createSession();
+        assertEquals("A1.1", session.getAccount("A1.1").getAccountId());
+        assertEquals(1, server.requests);
+    }
+
+    @Test
+    public void testMissingListsAreEmpty() throws Exception {
+        FigoBlockingSession session = createSession("200-empty", "200-empty", "200-empty", "200-empty");
+        assertTrue(session.getAccounts().isEmpty());
+        assertTrue(session.getSupportedServices("de").isEmpty());
+        assertTrue(session.getTransactions("A1.1").isEmpty());
+        assertTrue(session.getStandingOrders(null).isEmpty());
+    }
+
+    @Test
+    public void testMissingResourceIsNull() throws Exception {
+        FigoBlockingSession session = createSession("200-empty");
+        assertNull(session.getAccount("A1.1"));
+    }
+
+    @Test
+    public void testErrorIsThrown() throws Exception {
+        FigoBlockingSession session = createSession("401");
+        try {
+            session.getAccounts();
+            fail();
+        } catch (FigoError e) {
+            assertEquals("access_denied", e.getErrorCode());
+        }
+    }
+}
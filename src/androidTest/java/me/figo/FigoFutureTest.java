@@ -0,0 +1,103 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+public class FigoFutureTest {
+
+    @Test
+    public void testAllAsListKeepsOrder() throws Exception {
+        FigoFuture<String> first = new FigoFuture<String>();
+        FigoFuture<String> second = new FigoFuture<String>();
+        FigoFuture<List<String>> all = FigoFuture.allAsList(Arrays.asList(first, second));
+
+        second.onResponse("b");
+        assertFalse(all.isDone());
+        first.onResponse("a");
+        assertEquals(Arrays.asList("a", "b"), all.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testErrorIsReportedAsCause() throws Exception {
+        FigoFuture<String> first = new FigoFuture<String>();
+        FigoFuture<List<String>> all = FigoFuture.allAsList(Arrays.asList(first, new FigoFuture<String>()));
+
+        first.onErrorResponse(new FigoError("access_denied", "Access Denied"));
+        try {
+            all.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("access_denied", ((FigoError) e.getCause()).getErrorCode());
+        }
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancel() throws Exception {
+        FigoFuture<String> future = new FigoFuture<String>();
+        assertTrue(future.cancel(true));
+        future.onResponse("ignored");
+        future.get();
+    }
+
+    @Test
+    public void testCancelledInputCancelsAllAsList() throws Exception {
+        FigoFuture<String> first = new FigoFuture<String>();
+        FigoFuture<String> second = new FigoFuture<String>();
+        FigoFuture<List<String>> all = FigoFuture.allAsList(Arrays.asList(first, second));
+
+        second.onResponse("b");
+        first.cancel(false);
+        assertTrue(all.isCancelled());
+
+        // an input cancelled before combining cancels the result right away
+        assertTrue(FigoFuture.allAsList(Arrays.asList(new FigoFuture<String>(), first)).isCancelled());
+    }
+
+    @Test
+    public void testCancellingAllAsListCancelsInputs() throws Exception {
+        FigoFuture<String> first = new FigoFuture<String>();
+        FigoFuture<String> second = new FigoFuture<String>();
+        FigoFuture<List<String>> all = FigoFuture.allAsList(Arrays.asList(first, second));
+
+        first.onResponse("a");
+        assertTrue(all.cancel(false));
+        assertFalse(first.isCancelled());
+        assertTrue(second.isCancelled());
+    }
+
+    @Test(expected = TimeoutException.class)
+    public void testTimeout() throws Exception {
+        new FigoFuture<String>().get(10, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,119 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.FigoRetryPolicy.RetryBudget;
+import me.figo.models.Account;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.android.volley.Request;
+
+public class FigoRetryPolicyTest {
+
+    private FaultServer server;
+
+    private FigoApi createApi(RetryBudget budget, String... script) throws IOException {
+        server = new FaultServer(script);
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, new UrlConnectionTransport(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        }));
+        api.setRetryPolicy(new FigoRetryPolicy(3, 1, 5, budget));
+        return api;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null)
+            server.shutdown();
+    }
+
+    @Test
+    public void testGetIsRetriedAfterServerErrors() throws Exception {
+        FigoApi api = createApi(new RetryBudget(10, 0.1), "503", "502");
+        Account account = api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        assertEquals("A1.1", account.getAccountId());
+        assertEquals(3, server.requests);
+    }
+
+    @Test
+    public void testConnectionResetIsRetried() throws Exception {
+        FigoApi api = createApi(new RetryBudget(10, 0.1), "reset");
+        assertEquals("A1.1", api.<Account>queryApi("/rest/accounts/A1.1", null, "GET", Account.class).getAccountId());
+        assertEquals(2, server.requests);
+    }
+
+    @Test
+    public void testPostAndClientErrorsAreNotRetried() throws Exception {
+        FigoApi api = createApi(new RetryBudget(10, 0.1), "503", "404");
+        try {
+            api.queryApi("/rest/accounts", FaultServer.ACCOUNT, "POST", Account.class);
+            fail();
+        } catch (FigoError e) {
+            assertEquals(1, server.requests);
+        }
+        try {
+            api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+            fail();
+        } catch (FigoError e) {
+            assertEquals(2, server.requests);
+        }
+    }
+
+    @Test
+    public void testBudgetLimitsRetries() throws Exception {
+        FigoApi api = createApi(new RetryBudget(1, 0), "503", "503", "503");
+        try {
+            api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+            fail();
+        } catch (FigoError e) {
+            assertEquals(2, server.requests);
+        }
+        try {
+            api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+            fail();
+        } catch (FigoError e) {
+            assertEquals(3, server.requests);
+        }
+    }
+
+    @Test
+    public void testTransportRetries() throws Exception {
+        FigoApi api = createApi(new RetryBudget(10, 0.1), "500", "reset");
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        assertEquals("A1.1", future.get(5, TimeUnit.SECONDS).getAccountId());
+        assertEquals(3, server.requests);
+    }
+}
@@ -0,0 +1,90 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.figo.internal.FigoRequest;
+import me.figo.models.User;
+
+import org.junit.Test;
+
+public class FigoSessionFactoryTest {
+
+    /**
+     * Transport keeping the requests instead of sending them
+     */
+    private static class RecordingTransport implements FigoTransport {
+
+        final List<FigoRequest<?>> requests = new ArrayList<FigoRequest<?>>();
+
+        @Override
+        public synchronized <T> void enqueue(FigoApi api, FigoRequest<T> request) {
+            requests.add(request);
+        }
+    }
+
+    @Test
+    public void testSessionsShareState() {
+        FigoSessionFactory factory = new FigoSessionFactory(new RecordingTransport());
+        RateLimiter limiter = new RateLimiter();
+        factory.setRateLimiter(limiter);
+        FigoSession first = factory.createSession("token1");
+        FigoSession second = factory.createSession("token2");
+
+        assertEquals("Bearer token1", first.getAuthorization());
+        assertEquals("Bearer token2", second.getAuthorization());
+        assertSame(factory.getTransport(), first.getTransport());
+        assertSame(limiter, second.getRateLimiter());
+        assertSame(first.getGson(), second.getGson());
+        assertSame(first.getRetryPolicy(), second.getRetryPolicy());
+        assertSame(first.getCircuitBreaker(FigoApi.GROUP_SYNC), second.getCircuitBreaker(FigoApi.GROUP_SYNC));
+        assertSame(first.getBulkhead(FigoApi.GROUP_DEFAULT), second.getBulkhead(FigoApi.GROUP_DEFAULT));
+
+        FigoSession single = new FigoSession("token3", new RecordingTransport());
+        assertNotSame(first.getCircuitBreaker(FigoApi.GROUP_SYNC), single.getCircuitBreaker(FigoApi.GROUP_SYNC));
+    }
+
+    @Test
+    public void testRequestsShareHeaders() throws Exception {
+        RecordingTransport transport = new RecordingTransport();
+        FigoSession session = new FigoSessionFactory(transport).createSession("token");
+        session.getUser(null, null);
+        session.updateUser(new User(), null, null);
+        session.removeUser(null, null);
+
+        assertEquals(3, transport.requests.size());
+        assertSame(transport.requests.get(0).getHeaders(), transport.requests.get(2).getHeaders());
+        assertEquals("Bearer token", transport.requests.get(0).getHeaders().get("Authorization"));
+        assertEquals("https://api.figo.me/rest/user", transport.requests.get(0).getUrl());
+
+        session.setAccessToken("refreshed");
+        session.removeUser(null, null);
+        assertEquals("Bearer refreshed", transport.requests.get(3).getHeaders().get("Authorization"));
+        assertEquals("application/json", transport.requests.get(3).getHeaders().get("Accept"));
+    }
+}
@@ -29,6 +29,9 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import me.figo.internal.IsoDateFormat;
 
 import org.junit.Test;
 
@@ -44,4 +47,21 @@ public class GeneralTest {
         cal.setTime(parsed);
         assertEquals(2013, cal.get(Calendar.YEAR));
     }
+
+    @Test
+    public void testIsoDateParsing() throws ParseException {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+        assertEquals(df.parse("2013-06-02T00:00:00.000+0000"), IsoDateFormat.parse("2013-06-02T00:00:00.000Z"));
+        assertEquals(df.parse("2013-06-02T13:14:15.160+0200"), IsoDateFormat.parse("2013-06-02T13:14:15.160+02:00"));
+        assertEquals(df.parse("2013-06-02T13:14:15.000-0130"), IsoDateFormat.parse("2013-06-02T13:14:15-01:30"));
+        assertNull(IsoDateFormat.parse("02.06.2013"));
+    }
+
+    @Test
+    public void testIsoDateFormatting() {
+        Date date = IsoDateFormat.parse("2013-06-02T13:14:15.160Z");
+        assertEquals("2013-06-02T13:14:15.160+00:00", IsoDateFormat.format(date.getTime(), TimeZone.getTimeZone("UTC")));
+        assertEquals("2013-06-02T15:14:15.160+02:00", IsoDateFormat.format(date.getTime(), TimeZone.getTimeZone("Europe/Berlin")));
+        assertEquals(date, IsoDateFormat.parse(IsoDateFormat.format(date)));
+    }
 }
@@ -0,0 +1,88 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import me.figo.internal.GsonAdapter;
+import me.figo.internal.IsoDateFormat;
+import me.figo.models.Account;
+import me.figo.models.Security;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class GsonAdapterTest {
+
+    private static final String TRANSACTIONS = "{\"transactions\": [{\"transaction_id\": \"T1.1\", \"account_id\": \"A1.1\", "
+            + "\"name\": \"Dr. House\", \"amount\": -12.34, \"currency\": \"EUR\", \"booking_date\": \"2013-04-11T12:00:00.000Z\", "
+            + "\"value_date\": null, \"purpose\": \"Miete\", \"booked\": true, \"visited\": \"false\", \"categories\": [{\"id\": 1}]}], "
+            + "\"status\": {\"code\": 1, \"sync_timestamp\": \"2013-04-11T12:00:01.000+02:00\"}}";
+
+    @Test
+    public void testTransactionsResponse() {
+        Transaction.TransactionsResponse response = GsonAdapter.getInstance().fromJson(TRANSACTIONS, Transaction.TransactionsResponse.class);
+        assertEquals(1, response.getTransactions().size());
+
+        Transaction t = response.getTransactions().get(0);
+        assertEquals("T1.1", t.getTransactionId());
+        assertEquals("Dr. House", t.getName());
+        assertEquals(new BigDecimal("-12.34"), t.getAmount());
+        assertEquals(IsoDateFormat.parse("2013-04-11T12:00:00.000Z"), t.getBookingDate());
+        assertNull(t.getValueDate());
+        assertTrue(t.isBooked());
+        assertFalse(t.isVisited());
+        assertEquals(Integer.valueOf(1), response.getStatus().getCode());
+        assertEquals(IsoDateFormat.parse("2013-04-11T10:00:01.000Z"), response.getStatus().getSyncTimestamp());
+    }
+
+    @Test
+    public void testAccountsResponse() {
+        String json = "{\"accounts\": [{\"account_id\": \"A1.1\", \"name\": \"Girokonto\", \"auto_sync\": true, "
+                + "\"balance\": {\"balance\": 3250.31, \"balance_date\": \"2013-04-10T08:00:00.000Z\"}, "
+                + "\"additional_icons\": {\"48x48\": \"https://api.figo.me/assets/images/accounts/default-small@2x.png\"}, "
+                + "\"supported_tan_schemes\": [{\"tan_scheme_id\": \"M1.1\", \"name\": \"chipTAN\"}]}]}";
+
+        Account account = GsonAdapter.getInstance().fromJson(json, Account.AccountsResponse.class).getAccounts().get(0);
+        assertEquals("A1.1", account.getAccountId());
+        assertTrue(account.isAutoSync());
+        assertEquals(new BigDecimal("3250.31"), account.getBalance().getBalance());
+        assertEquals(1, account.getAddtionalIcons().size());
+        assertEquals(1, account.getSupportedTanSchemes().size());
+    }
+
+    @Test
+    public void testSerializationMatchesExposeRules() {
+        Gson reflective = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+        String json = "{\"security_id\": \"S1.1\", \"name\": \"Siemens AG\", \"isin\": \"DE0007236101\", \"quantity\": 3, \"price\": 92.5}";
+
+        Security security = GsonAdapter.getInstance().fromJson(json, Security.class);
+        assertEquals(reflective.toJson(reflective.fromJson(json, Security.class)), GsonAdapter.getInstance().toJson(security));
+        assertEquals("{}", GsonAdapter.getInstance().toJson(new Transaction()));
+    }
+}
@@ -0,0 +1,106 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import me.figo.models.Account;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+    private FaultServer server;
+
+    @After
+    public void tearDown() throws Exception {
+        if (server != null)
+            server.shutdown();
+    }
+
+    @Test
+    public void testClientBucketDelaysBeyondBurst() {
+        RateLimiter limiter = new RateLimiter(10, 2, 1000, 1000);
+        assertEquals(0, limiter.reserve("a"));
+        assertEquals(0, limiter.reserve("b"));
+        long wait = limiter.reserve("c");
+        assertTrue(wait > 0 && wait <= 100);
+        assertEquals(1, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void testUserBucketsAreSeparate() {
+        RateLimiter limiter = new RateLimiter(1000, 1000, 1, 1);
+        assertEquals(0, limiter.reserve("a"));
+        assertTrue(limiter.reserve("a") > 0);
+        assertEquals(0, limiter.reserve("b"));
+        assertEquals(0, limiter.reserve(null));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(120000, FigoRateLimitError.parseRetryAfter("120"));
+        assertEquals(0, FigoRateLimitError.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(-1, FigoRateLimitError.parseRetryAfter("soon"));
+        assertEquals(-1, FigoRateLimitError.parseRetryAfter(null));
+    }
+
+    @Test
+    public void testTooManyRequestsPausesRequests() throws Exception {
+        server = new FaultServer("429");
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, new UrlConnectionTransport());
+        RateLimiter limiter = new RateLimiter();
+        api.setRateLimiter(limiter);
+
+        try {
+            api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+            fail();
+        } catch (FigoRateLimitError e) {
+            assertEquals(1000, e.getRetryAfter());
+        }
+        assertTrue(limiter.isPaused());
+        assertEquals(1, limiter.getRateLimitedCount());
+
+        long start = System.currentTimeMillis();
+        Account account = api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        assertEquals("A1.1", account.getAccountId());
+        assertTrue(System.currentTimeMillis() - start >= 900);
+    }
+
+    @Test
+    public void testUserBucketSurvivesTokenRefresh() throws Exception {
+        server = new FaultServer();
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, new UrlConnectionTransport());
+        RateLimiter limiter = new RateLimiter(1000, 1000, 1, 1);
+        api.setRateLimiter(limiter);
+
+        api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        api.setAuthorization("Bearer refreshed");
+        long start = System.currentTimeMillis();
+        api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        assertTrue(System.currentTimeMillis() - start >= 900);
+        assertEquals(1, limiter.getDelayedCount());
+    }
+}
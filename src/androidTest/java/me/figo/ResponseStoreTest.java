@@ -0,0 +1,180 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.models.Account;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.android.volley.Request;
+
+public class ResponseStoreTest {
+
+    private FaultServer server;
+    private File directory;
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null)
+            server.shutdown();
+        if (directory != null) {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    private static ResponseStore.Entry entry(String etag, int length) {
+        return new ResponseStore.Entry(etag, null, new byte[length]);
+    }
+
+    @Test
+    public void testMemoryStoreEvictsLeastRecentlyUsed() {
+        MemoryResponseStore store = new MemoryResponseStore(2);
+        store.put("a", entry("1", 1));
+        store.put("b", entry("2", 1));
+        assertEquals("1", store.get("a").getEtag());
+        store.put("c", entry("3", 1));
+        assertNull(store.get("b"));
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("c"));
+
+        store.remove("a");
+        assertNull(store.get("a"));
+    }
+
+    @Test
+    public void testFileStoreSurvivesRestart() throws Exception {
+        directory = Files.createTempDirectory("figo").toFile();
+        FileResponseStore store = new FileResponseStore(directory);
+        store.put("a", new ResponseStore.Entry(null, "Tue, 15 Nov 1994 12:45:26 GMT", FaultServer.ACCOUNT.getBytes("UTF-8")));
+        assertNull(store.get("b"));
+        // the file is named after the SHA-256 digest of the key
+        assertEquals("ca978112ca1bbdcafac231b39a23dc4da786eff8147c4e72b9807785afee48bb", directory.listFiles()[0].getName());
+
+        ResponseStore.Entry entry = new FileResponseStore(directory).get("a");
+        assertNull(entry.getEtag());
+        assertEquals("Tue, 15 Nov 1994 12:45:26 GMT", entry.getLastModified());
+        assertEquals(FaultServer.ACCOUNT, new String(entry.getData(), "UTF-8"));
+
+        store.remove("a");
+        assertNull(store.get("a"));
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void testFileStoreEvictsLeastRecentlyUsed() throws Exception {
+        directory = Files.createTempDirectory("figo").toFile();
+        FileResponseStore store = new FileResponseStore(directory, 250);
+        store.put("a", entry("1", 100));
+        store.put("b", entry("2", 100));
+        for (File file : directory.listFiles()) {
+            file.setLastModified(System.currentTimeMillis() - 10000);
+        }
+
+        // reading an entry marks it as used
+        assertNotNull(store.get("a"));
+        store.put("c", entry("3", 100));
+        assertNull(store.get("b"));
+        assertNotNull(store.get("a"));
+        assertNotNull(store.get("c"));
+        assertEquals(2, directory.listFiles().length);
+    }
+
+    @Test
+    public void testOnlyListedResourcesAreCacheable() {
+        FigoApi api = new FigoApi("https://api.figo.me", "Bearer token", 5000, (FigoTransport) null);
+        assertTrue(api.isCacheable("https://api.figo.me/rest/accounts"));
+        assertTrue(api.isCacheable("https://api.figo.me/rest/accounts/A1.1"));
+        assertTrue(api.isCacheable("https://api.figo.me/rest/accounts/A1.1/balance"));
+        assertTrue(api.isCacheable("https://api.figo.me/rest/accounts/A1.1/transactions?since=T1&count=10"));
+        assertTrue(api.isCacheable("https://api.figo.me/rest/transactions?include_pending=1"));
+        assertTrue(api.isCacheable("https://api.figo.me/rest/standing_orders"));
+        assertFalse(api.isCacheable("https://api.figo.me/rest/accounts/A1.1/payments"));
+        assertFalse(api.isCacheable("https://api.figo.me/rest/accounts/A1.1/payments/P1.1"));
+        assertFalse(api.isCacheable("https://api.figo.me/rest/accounts_archive"));
+        assertFalse(api.isCacheable("https://api.figo.me/rest/accounts/"));
+        assertFalse(api.isCacheable("https://api.figo.me/rest/notifications"));
+        assertFalse(api.isCacheable("https://other.example/rest/accounts"));
+    }
+
+    @Test
+    public void testNotModifiedIsServedFromStore() throws Exception {
+        server = new FaultServer("200", "304");
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, new UrlConnectionTransport());
+        api.setResponseStore(new MemoryResponseStore());
+        for (int i = 0; i < 2; i++) {
+            FigoFuture<Account> future = new FigoFuture<Account>();
+            api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+            assertEquals("A1.1", future.get(5, TimeUnit.SECONDS).getAccountId());
+        }
+        assertEquals(FaultServer.ETAG, server.ifNoneMatch);
+        assertEquals(2, server.requests);
+    }
+
+    @Test
+    public void testBlockingNotModifiedIsServedFromStore() throws Exception {
+        server = new FaultServer("200", "304");
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, (FigoTransport) null);
+        api.setResponseStore(new MemoryResponseStore());
+        for (int i = 0; i < 2; i++) {
+            assertEquals("A1.1", api.<Account>queryApi("/rest/accounts/A1.1", null, "GET", Account.class).getAccountId());
+        }
+        assertEquals(FaultServer.ETAG, server.ifNoneMatch);
+    }
+
+    @Test
+    public void testEntriesSurviveTokenRefresh() throws Exception {
+        server = new FaultServer();
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, (FigoTransport) null);
+        ResponseStore store = new MemoryResponseStore();
+        api.setResponseStore(store);
+        api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        api.setAuthorization("Bearer refreshed");
+        api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+        assertEquals(FaultServer.ETAG, server.ifNoneMatch);
+
+        // a new login finds the entries under the user ID
+        FigoApi first = new FigoApi(server.getEndpoint(), "Bearer first", 5000, (FigoTransport) null);
+        first.setResponseStore(store, "U1");
+        first.queryApi("/rest/accounts", null, "GET", Account.AccountsResponse.class);
+        FigoApi second = new FigoApi(server.getEndpoint(), "Bearer second", 5000, (FigoTransport) null);
+        second.setResponseStore(store, "U1");
+        second.queryApi("/rest/accounts", null, "GET", Account.AccountsResponse.class);
+        assertEquals(FaultServer.ETAG, server.ifNoneMatch);
+        FigoApi other = new FigoApi(server.getEndpoint(), "Bearer other", 5000, (FigoTransport) null);
+        other.setResponseStore(store, "U2");
+        other.queryApi("/rest/accounts", null, "GET", Account.AccountsResponse.class);
+        assertNull(server.ifNoneMatch);
+    }
+}
@@ -0,0 +1,91 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.internal.Route;
+
+import org.junit.Test;
+
+public class RouteTest {
+
+    @Test
+    public void testFormat() {
+        assertEquals("/rest/accounts/A1.2", Route.ACCOUNT.format("A1.2"));
+        assertEquals("/rest/accounts/A1.2/transactions/T1.5", Route.ACCOUNT_TRANSACTION.format("A1.2", "T1.5"));
+        assertEquals("/rest/catalog/banks/de/90090042", Route.CATALOG_BANK.format("de", "90090042"));
+        assertEquals("/task/progress?id=Tabc", Route.TASK_PROGRESS.format("Tabc"));
+        assertEquals("/rest/transactions", Route.TRANSACTIONS.format());
+    }
+
+    @Test
+    public void testEscaping() {
+        assertEquals("/rest/accounts/A1%2F..%3Fx%3D1%23f", Route.ACCOUNT.format("A1/..?x=1#f"));
+        assertEquals("/rest/accounts/%2E%2E/balance", Route.ACCOUNT_BALANCE.format(".."));
+        assertEquals("/rest/banks/B%201%2B2%25", Route.BANK.format("B 1+2%"));
+        assertEquals("/rest/notifications/%C3%BC%F0%9F%98%80", Route.NOTIFICATION.format("\u00fc\ud83d\ude00"));
+        assertEquals("/task/start?id=a%26b", Route.TASK_START.format("a&b"));
+        assertEquals("/auth/revoke?token=..", Route.AUTH_REVOKE.format(".."));
+    }
+
+    @Test
+    public void testQueryParameters() {
+        assertEquals("/rest/transactions", FigoSession.getTransactionsPath(null, null, null, null, null));
+        assertEquals("/rest/accounts/A1.1/transactions?since=2013-04-01&count=10&offset=20&include_pending=1",
+                FigoSession.getTransactionsPath("A1.1", "2013-04-01", 10, 20, PendingTransactions.INCLUDED));
+        assertEquals("/rest/transactions?since=T%2B1&include_pending=0",
+                FigoSession.getTransactionsPath(null, "T+1", null, null, PendingTransactions.EXCLUDED));
+        assertEquals("/task/start?id=x&a=b", Route.TASK_START.start("x").param("a", "b").toString());
+    }
+
+    @Test
+    public void testParameterCount() {
+        assertEquals(2, Route.ACCOUNT_TRANSACTION.getParameterCount());
+        try {
+            Route.ACCOUNT.format("A1.1", "T1.1");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            Route.ACCOUNT.format(null);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMatches() {
+        assertTrue(Route.ACCOUNT_TRANSACTION.matches("/rest/accounts/A1.1/transactions/T1.1", 0));
+        assertTrue(Route.ACCOUNT_TRANSACTIONS.matches("https://api.figo.me/rest/accounts/A1.1/transactions?count=10", 19));
+        assertFalse(Route.ACCOUNT_TRANSACTIONS.matches("/rest/accounts/A1.1/transactions/T1.1", 0));
+        assertFalse(Route.ACCOUNT_TRANSACTIONS.matches("/rest/accounts//transactions", 0));
+        assertFalse(Route.ACCOUNT.matches("/rest/accounts/A1.1/payments", 0));
+        assertTrue(Route.TASK_PROGRESS.matches("/task/progress?id=x", 0));
+        assertFalse(Route.TASK_PROGRESS.matches("/task/progress/x", 0));
+    }
+}
@@ -0,0 +1,173 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.FigoRequest;
+import me.figo.internal.GsonAdapter;
+import me.figo.internal.TaskStatusResponse;
+
+import org.junit.Test;
+
+import com.android.volley.Response;
+import com.android.volley.TimeoutError;
+
+public class TaskMonitorTest {
+
+    private static class FakeSession extends FigoSession {
+
+        final LinkedList<String> states = new LinkedList<String>();
+        volatile int polls;
+
+        FakeSession(String... states) {
+            super("token", (FigoTransport) null);
+            this.states.addAll(Arrays.asList(states));
+        }
+
+        @Override
+        public FigoRequest getTaskState(String tokenId, Response.Listener<TaskStatusResponse> listener, Response.ErrorListener errorListener) {
+            polls++;
+            String state = states.size() > 1 ? states.removeFirst() : states.getFirst();
+            if ("timeout".equals(state)) {
+                errorListener.onErrorResponse(new TimeoutError());
+            } else if (state.startsWith("error ")) {
+                String code = state.substring(6);
+                errorListener.onErrorResponse(new FigoError(code, "Error", "internal_server_error".equals(code) ? 500 : 400));
+            } else {
+                listener.onResponse(GsonAdapter.getInstance().fromJson(state, TaskStatusResponse.class));
+            }
+            return null;
+        }
+    }
+
+    private static class Recorder implements TaskMonitor.Listener {
+
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public synchronized void onProgress(String taskToken, TaskStatusResponse status) {
+            events.add("progress " + status.getMessage());
+        }
+
+        @Override
+        public synchronized void onWaitingForPin(String taskToken, TaskStatusResponse status) {
+            events.add("pin");
+        }
+
+        @Override
+        public synchronized void onWaitingForResponse(String taskToken, TaskStatusResponse status) {
+            events.add("response");
+        }
+    }
+
+    @Test
+    public void testEventsAndCompletion() throws Exception {
+        FakeSession session = new FakeSession(
+                "{\"message\": \"Connecting\"}",
+                "{\"message\": \"Connecting\"}",
+                "{\"message\": \"Waiting for PIN\", \"is_waiting_for_pin\": true}",
+                "{\"message\": \"Waiting for PIN\", \"is_waiting_for_pin\": true}",
+                "{\"message\": \"Done\", \"is_ended\": true}");
+        TaskMonitor monitor = new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 1, 4);
+        Recorder recorder = new Recorder();
+
+        TaskStatusResponse status = monitor.monitor(session, "T1", recorder).get(5, TimeUnit.SECONDS);
+        assertTrue(status.isEnded());
+        assertEquals(5, session.polls);
+        assertEquals(Arrays.asList("progress Connecting", "progress Waiting for PIN", "pin", "progress Done"), recorder.events);
+    }
+
+    @Test
+    public void testCancelStopsPolling() throws Exception {
+        FakeSession session = new FakeSession("{\"message\": \"Connecting\"}");
+        TaskMonitor monitor = new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 1, 4);
+
+        FigoFuture<TaskStatusResponse> future = monitor.monitor(session, "T1", null);
+        Thread.sleep(50);
+        future.cancel(true);
+        int polls = session.polls;
+        Thread.sleep(50);
+        assertTrue(session.polls <= polls + 1);
+    }
+
+    @Test
+    public void testTransientErrorsAreRetried() throws Exception {
+        FakeSession session = new FakeSession(
+                "{\"message\": \"Connecting\"}",
+                "timeout",
+                "error internal_server_error",
+                "{\"message\": \"Done\", \"is_ended\": true}");
+        TaskMonitor monitor = new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 1, 4);
+
+        assertTrue(monitor.monitor(session, "T1", null).get(5, TimeUnit.SECONDS).isEnded());
+        assertEquals(4, session.polls);
+    }
+
+    @Test
+    public void testPersistentAndClientErrorsEndMonitoring() throws Exception {
+        TaskMonitor monitor = new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 1, 4);
+        FakeSession failing = new FakeSession("timeout");
+        try {
+            monitor.monitor(failing, "T1", null).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutError);
+            assertEquals(TaskMonitor.MAX_POLL_ERRORS, failing.polls);
+        }
+
+        FakeSession denied = new FakeSession("error access_denied");
+        try {
+            monitor.monitor(denied, "T1", null).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("access_denied", ((FigoError) e.getCause()).getErrorCode());
+            assertEquals(1, denied.polls);
+        }
+    }
+
+    @Test
+    public void testShortDelaysGrow() throws Exception {
+        FakeSession session = new FakeSession("{\"message\": \"Connecting\"}");
+        TaskMonitor monitor = new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 1, 1000);
+
+        FigoFuture<TaskStatusResponse> future = monitor.monitor(session, "T1", null);
+        Thread.sleep(200);
+        future.cancel(true);
+        assertTrue(session.polls < 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroDelayIsRejected() {
+        new TaskMonitor(Executors.newSingleThreadScheduledExecutor(), 0, 1000);
+    }
+}
@@ -0,0 +1,160 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.figo.internal.FigoRequest;
+import me.figo.internal.TokenResponse;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TokenManagerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Connection answering refresh requests only when told to
+     */
+    private static class FakeConnection extends FigoConnection {
+
+        final AtomicInteger refreshes = new AtomicInteger();
+        final List<Response.Listener<TokenResponse>> listeners = new ArrayList<Response.Listener<TokenResponse>>();
+        final List<Response.ErrorListener> errorListeners = new ArrayList<Response.ErrorListener>();
+
+        FakeConnection() {
+            super("client", "secret", "https://example.com/callback", 1000, "https://api.figo.me", new UrlConnectionTransport());
+        }
+
+        @Override
+        public synchronized FigoRequest convertRefreshToken(String refreshToken, Response.Listener<TokenResponse> listener, Response.ErrorListener errorListener) {
+            refreshes.incrementAndGet();
+            listeners.add(listener);
+            errorListeners.add(errorListener);
+            return null;
+        }
+
+        synchronized void respond(TokenResponse token) {
+            listeners.remove(0).onResponse(token);
+            errorListeners.remove(0);
+        }
+
+        synchronized void fail(VolleyError error) {
+            listeners.remove(0);
+            errorListeners.remove(0).onErrorResponse(error);
+        }
+    }
+
+    private static TokenResponse token(String accessToken, String refreshToken, Integer expiresIn) {
+        TokenResponse token = new TokenResponse();
+        token.access_token = accessToken;
+        token.refresh_token = refreshToken;
+        token.expires_in = expiresIn;
+        return token;
+    }
+
+    @Test
+    public void testConcurrentRefreshesShareOneRequest() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        TokenManager manager = new TokenManager(connection, token("A1", "R1", 3600), scheduler, 60000, 1000);
+        FigoSession session = manager.attach(new FigoSession("other", new UrlConnectionTransport()));
+        assertEquals("Bearer A1", session.getAuthorization());
+
+        FigoFuture<TokenResponse> first = manager.refresh();
+        FigoFuture<TokenResponse> second = manager.refresh();
+        assertEquals(1, connection.refreshes.get());
+
+        connection.respond(token("A2", null, 3600));
+        assertEquals("A2", first.get().getAccessToken());
+        assertEquals("A2", second.get().getAccessToken());
+        assertEquals("Bearer A2", session.getAuthorization());
+        assertEquals("R1", manager.getRefreshToken());
+        assertFalse(manager.isExpired());
+
+        manager.refresh();
+        assertEquals(2, connection.refreshes.get());
+        manager.close();
+    }
+
+    @Test
+    public void testRefreshesBeforeExpiry() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        TokenManager manager = new TokenManager(connection, token("A1", "R1", 1), scheduler, 900, 1000);
+        long start = System.currentTimeMillis();
+        while (connection.refreshes.get() == 0 && System.currentTimeMillis() - start < 2000) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, connection.refreshes.get());
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        connection.respond(token("A2", "R2", 3600));
+        assertEquals("A2", manager.getAccessToken());
+        assertEquals("R2", manager.getRefreshToken());
+        manager.close();
+    }
+
+    @Test
+    public void testRejectedRefreshIsNotRetried() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        TokenManager manager = new TokenManager(connection, token("A1", "R1", null), scheduler, 60000, 10);
+        FigoFuture<TokenResponse> future = manager.refresh();
+        connection.fail(new FigoError("access_denied", "Access Denied"));
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("access_denied", ((FigoError) e.getCause()).getErrorCode());
+        }
+
+        Thread.sleep(100);
+        assertEquals(1, connection.refreshes.get());
+        assertEquals("A1", manager.getAccessToken());
+
+        manager.refresh();
+        connection.fail(new VolleyError("timeout"));
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 100, TimeUnit.MILLISECONDS).get();
+        assertEquals(3, connection.refreshes.get());
+        manager.close();
+    }
+}
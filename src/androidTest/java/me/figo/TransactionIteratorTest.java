@@ -0,0 +1,154 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.internal.GsonAdapter;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+public class TransactionIteratorTest {
+
+    /**
+     * Serves pages of at most maxCount booked transactions, with the complete pending set on every page that asks for
+     * it. Pages are answered right away unless manual is set.
+     */
+    private static class FakeSession extends FigoAsyncSession {
+
+        final List<Transaction> booked = new ArrayList<Transaction>();
+        final List<Transaction> pending = new ArrayList<Transaction>();
+        final List<String> requests = new ArrayList<String>();
+        final List<FigoFuture<List<Transaction>>> futures = new ArrayList<FigoFuture<List<Transaction>>>();
+        int maxCount = Integer.MAX_VALUE;
+        boolean manual;
+
+        FakeSession() {
+            super(new FigoSession("token", (FigoTransport) null));
+        }
+
+        @Override
+        public FigoFuture<List<Transaction>> getTransactions(String accountId, String since, Integer count, Integer offset,
+                PendingTransactions include_pending) {
+            requests.add(offset + (include_pending == PendingTransactions.INCLUDED ? "+pending" : ""));
+            FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+            futures.add(future);
+            if (!manual)
+                future.onResponse(page(offset, count, include_pending));
+            return future;
+        }
+
+        List<Transaction> page(int offset, int count, PendingTransactions include_pending) {
+            int to = Math.min(offset + Math.min(count, maxCount), booked.size());
+            List<Transaction> page = new ArrayList<Transaction>(booked.subList(Math.min(offset, to), to));
+            if (include_pending == PendingTransactions.INCLUDED)
+                page.addAll(pending);
+            return page;
+        }
+    }
+
+    private static Transaction transaction(String id, boolean booked) {
+        return GsonAdapter.getInstance().fromJson("{\"transaction_id\": \"" + id + "\", \"booked\": " + booked + "}", Transaction.class);
+    }
+
+    private static List<String> collect(TransactionIterator iterator) {
+        List<String> ids = new ArrayList<String>();
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().getTransactionId());
+        }
+        return ids;
+    }
+
+    @Test
+    public void testWalksAllPages() {
+        FakeSession session = new FakeSession();
+        for (int i = 0; i < 4; i++) {
+            session.booked.add(transaction("T" + i, true));
+        }
+        assertEquals(Arrays.asList("T0", "T1", "T2", "T3"), collect(new TransactionIterator(session, "A1.1", null, 2, null)));
+        assertEquals(Arrays.asList("0", "2", "4"), session.requests);
+    }
+
+    @Test
+    public void testShortPagesDoNotEndIteration() {
+        FakeSession session = new FakeSession();
+        session.maxCount = 3;
+        for (int i = 0; i < 7; i++) {
+            session.booked.add(transaction("T" + i, true));
+        }
+        assertEquals(7, collect(new TransactionIterator(session, "A1.1", null, 5, null)).size());
+        assertEquals(Arrays.asList("0", "3", "6", "7"), session.requests);
+    }
+
+    @Test
+    public void testPendingTransactionsAreRequestedOnce() {
+        FakeSession session = new FakeSession();
+        session.booked.add(transaction("T0", true));
+        session.booked.add(transaction("T1", true));
+        session.booked.add(transaction("T2", true));
+        session.pending.add(transaction("P0", false));
+        session.pending.add(transaction("P1", false));
+        assertEquals(Arrays.asList("T0", "T1", "P0", "P1", "T2"), collect(new TransactionIterator(session, "A1.1", null, 2, PendingTransactions.INCLUDED)));
+        assertEquals(Arrays.asList("0+pending", "2", "3"), session.requests);
+    }
+
+    @Test
+    public void testNextPageIsPrefetched() {
+        FakeSession session = new FakeSession();
+        session.manual = true;
+        for (int i = 0; i < 4; i++) {
+            session.booked.add(transaction("T" + i, true));
+        }
+        TransactionIterator iterator = new TransactionIterator(session, "A1.1", null, 2, null);
+        assertEquals(1, session.requests.size());
+
+        session.futures.get(0).onResponse(session.page(0, 2, null));
+        assertEquals("T0", iterator.next().getTransactionId());
+        assertEquals(2, session.requests.size());
+
+        iterator.close();
+        assertTrue(session.futures.get(1).isCancelled());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testErrorIsPropagated() {
+        FakeSession session = new FakeSession();
+        session.manual = true;
+        TransactionIterator iterator = new TransactionIterator(session, "A1.1", null, 2, null);
+        session.futures.get(0).onErrorResponse(new FigoError("access_denied", "Access Denied"));
+        try {
+            iterator.hasNext();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("access_denied", ((FigoError) e.getCause()).getErrorCode());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.internal.GsonAdapter;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+public class TransactionSyncTest {
+
+    private static class FakeSession extends FigoBlockingSession {
+
+        List<Transaction> transactions = new ArrayList<Transaction>();
+        String lastSince;
+        int requests;
+        int pendingRequests;
+
+        FakeSession() {
+            super(new FigoSession("token", (FigoTransport) null));
+        }
+
+        /**
+         * Lists the booked transactions after <code>since</code> newest first like the server. The complete pending set
+         * comes first and takes up part of the count.
+         */
+        @Override
+        public List<Transaction> getTransactions(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending)
+                throws IOException, FigoError {
+            lastSince = since;
+            requests++;
+            List<Transaction> booked = new ArrayList<Transaction>();
+            List<Transaction> pending = new ArrayList<Transaction>();
+            for (Transaction transaction : transactions) {
+                if (!transaction.isBooked()) {
+                    pending.add(transaction);
+                } else if (transaction.getTransactionId().equals(since)) {
+                    booked.clear();
+                } else {
+                    booked.add(0, transaction);
+                }
+            }
+            List<Transaction> page = new ArrayList<Transaction>();
+            if (include_pending == PendingTransactions.INCLUDED) {
+                page.addAll(pending);
+                pendingRequests++;
+            }
+            int to = Math.min(offset + Math.max(count - page.size(), 0), booked.size());
+            page.addAll(booked.subList(Math.min(offset, to), to));
+            return page;
+        }
+    }
+
+    private static class Recorder implements TransactionSync.Listener {
+
+        final List<String> events = new ArrayList<String>();
+
+        @Override
+        public void onInsert(Transaction transaction) {
+            events.add("insert " + transaction.getTransactionId());
+        }
+
+        @Override
+        public void onUpdate(Transaction transaction) {
+            events.add("update " + transaction.getTransactionId());
+        }
+
+        @Override
+        public void onDelete(String accountId, String transactionId) {
+            events.add("delete " + transactionId);
+        }
+    }
+
+    private static Transaction transaction(String id, String amount, String date, boolean booked) {
+        return GsonAdapter.getInstance().fromJson("{\"transaction_id\": \"" + id + "\", \"amount\": " + amount + ", \"booking_date\": \"" + date
+                + "\", \"booked\": " + booked + "}", Transaction.class);
+    }
+
+    @Test
+    public void testIncrementalSync() throws Exception {
+        FakeSession session = new FakeSession();
+        TransactionSync sync = new TransactionSync(session, new TransactionSync.MemoryStore(), 2);
+
+        session.transactions.add(transaction("T1", "-1.00", "2013-04-10T00:00:00.000Z", true));
+        session.transactions.add(transaction("T2", "-2.00", "2013-04-11T00:00:00.000Z", true));
+        session.transactions.add(transaction("T3", "-3.00", "2013-04-12T00:00:00.000Z", false));
+        session.transactions.add(transaction("T4", "-4.00", "2013-04-12T00:00:00.000Z", false));
+        Recorder first = new Recorder();
+        assertEquals(4, sync.sync("A1.1", first));
+        assertNull(session.lastSince);
+        assertEquals(Arrays.asList("insert T1", "insert T2", "insert T3", "insert T4"), first.events);
+
+        // T3 got booked, T4 vanished, T5 is new and pending
+        session.transactions.clear();
+        session.transactions.add(transaction("T3", "-3.00", "2013-04-13T00:00:00.000Z", true));
+        session.transactions.add(transaction("T5", "-5.00", "2013-04-13T00:00:00.000Z", false));
+        Recorder second = new Recorder();
+        assertEquals(3, sync.sync("A1.1", second));
+        assertEquals("T2", session.lastSince);
+        assertEquals(Arrays.asList("update T3", "insert T5", "delete T4"), second.events);
+
+        // nothing changed, only the unchanged pending set comes back
+        session.transactions.clear();
+        session.transactions.add(transaction("T5", "-5.0", "2013-04-13T00:00:00.000Z", false));
+        Recorder third = new Recorder();
+        assertEquals(0, sync.sync("A1.1", third));
+        assertEquals("T3", session.lastSince);
+
+        // the amount of the pending transaction changed
+        session.transactions.clear();
+        session.transactions.add(transaction("T5", "-6.00", "2013-04-13T00:00:00.000Z", false));
+        Recorder fourth = new Recorder();
+        assertEquals(1, sync.sync("A1.1", fourth));
+        assertEquals(Arrays.asList("update T5"), fourth.events);
+
+        sync.reset("A1.1");
+        sync.sync("A1.1", new Recorder());
+        assertNull(session.lastSince);
+    }
+
+    @Test
+    public void testPendingTransactionsDoNotExtendPaging() throws Exception {
+        FakeSession session = new FakeSession();
+        TransactionSync sync = new TransactionSync(session, new TransactionSync.MemoryStore(), 2);
+
+        session.transactions.add(transaction("T1", "-1.00", "2013-04-10T00:00:00.000Z", true));
+        session.transactions.add(transaction("T2", "-2.00", "2013-04-11T00:00:00.000Z", true));
+        session.transactions.add(transaction("T3", "-3.00", "2013-04-11T00:00:00.000Z", true));
+        for (int i = 0; i < 5; i++) {
+            session.transactions.add(transaction("P" + i, "-1.00", "2013-04-12T00:00:00.000Z", false));
+        }
+        assertEquals(8, sync.sync("A1.1", new Recorder()));
+        assertEquals(3, session.requests);
+        assertEquals(1, session.pendingRequests);
+    }
+
+    @Test
+    public void testPendingTransactionsDoNotTruncatePaging() throws Exception {
+        FakeSession session = new FakeSession();
+        TransactionSync sync = new TransactionSync(session, new TransactionSync.MemoryStore(), 2);
+
+        session.transactions.add(transaction("T1", "-1.00", "2013-04-10T00:00:00.000Z", true));
+        session.transactions.add(transaction("T2", "-2.00", "2013-04-11T00:00:00.000Z", true));
+        session.transactions.add(transaction("T3", "-3.00", "2013-04-11T00:00:00.000Z", true));
+        session.transactions.add(transaction("P1", "-1.00", "2013-04-12T00:00:00.000Z", false));
+        Recorder recorder = new Recorder();
+        assertEquals(4, sync.sync("A1.1", recorder));
+        assertEquals(Arrays.asList("insert T1", "insert T2", "insert T3", "insert P1"), recorder.events);
+    }
+
+    @Test
+    public void testCursorIsTheNewestTransaction() throws Exception {
+        FakeSession session = new FakeSession();
+        TransactionSync sync = new TransactionSync(session, new TransactionSync.MemoryStore(), 10);
+
+        session.transactions.add(transaction("T1", "-1.00", "2013-04-10T00:00:00.000Z", true));
+        session.transactions.add(transaction("T2", "-2.00", "2013-04-11T00:00:00.000Z", true));
+        sync.sync("A1.1", new Recorder());
+
+        // T4 was back-dated, the server still lists it as the newest one
+        session.transactions.add(transaction("T3", "-3.00", "2013-04-12T00:00:00.000Z", true));
+        session.transactions.add(transaction("T4", "-4.00", "2013-04-09T00:00:00.000Z", true));
+        Recorder second = new Recorder();
+        assertEquals(2, sync.sync("A1.1", second));
+        assertEquals("T2", session.lastSince);
+        assertEquals(Arrays.asList("insert T3", "insert T4"), second.events);
+
+        Recorder third = new Recorder();
+        assertEquals(0, sync.sync("A1.1", third));
+        assertEquals("T4", session.lastSince);
+    }
+}
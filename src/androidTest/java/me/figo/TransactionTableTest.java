@@ -0,0 +1,142 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.figo.TransactionTable.Column;
+import me.figo.TransactionTable.Selection;
+import me.figo.internal.GsonAdapter;
+import me.figo.internal.IsoDateFormat;
+import me.figo.models.CompactTransaction;
+import me.figo.models.Transaction;
+
+import org.junit.Test;
+
+public class TransactionTableTest {
+
+    private static final String TRANSACTIONS = "{\"transactions\": ["
+            + "{\"account_id\": \"A1.1\", \"name\": \"Vermieter\", \"amount\": -800, \"currency\": \"EUR\", \"type\": \"Standing order\", \"booking_date\": \"2013-03-01T00:00:00.000Z\", \"booked\": true},"
+            + "{\"account_id\": \"A1.1\", \"name\": \"Arbeitgeber\", \"amount\": 2500, \"currency\": \"EUR\", \"type\": \"Salary or rent\", \"booking_date\": \"2013-03-28T00:00:00.000Z\", \"booked\": true},"
+            + "{\"account_id\": \"A1.1\", \"name\": \"Vermieter\", \"amount\": -800, \"currency\": \"EUR\", \"type\": \"Standing order\", \"booking_date\": \"2013-04-01T00:00:00.000Z\", \"booked\": true},"
+            + "{\"account_id\": \"A1.2\", \"name\": \"Supermarkt\", \"amount\": -12.34, \"currency\": \"EUR\", \"type\": \"Direct debit\", \"booking_date\": \"2013-04-01T00:00:00.000Z\", \"booked\": false},"
+            + "{\"account_id\": \"A1.2\", \"amount\": 5.5, \"currency\": \"EUR\"}"
+            + "]}";
+
+    private static TransactionTable table() {
+        return TransactionTable.of(GsonAdapter.getInstance().fromJson(TRANSACTIONS, Transaction.TransactionsResponse.class));
+    }
+
+    private static int day(String date) {
+        return IsoDateFormat.parseEpochDay(date);
+    }
+
+    @Test
+    public void testColumns() {
+        TransactionTable table = table();
+        assertEquals(5, table.size());
+        assertEquals(-80000, table.getAmount(0));
+        assertEquals(day("2013-03-28"), table.getBookingDay(1));
+        assertEquals(CompactTransaction.NO_DATE, table.getBookingDay(4));
+        assertEquals("Supermarkt", table.get(Column.NAME, 3));
+        assertNull(table.get(Column.NAME, 4));
+        assertEquals(Arrays.asList("A1.1", "A1.2"), table.getValues(Column.ACCOUNT));
+        assertFalse(table.isBooked(3));
+    }
+
+    @Test
+    public void testAggregations() {
+        TransactionTable table = table();
+        assertEquals(89316, table.sum(null));
+        assertEquals(-161234, table.sum(table.whereDebits()));
+        assertEquals(90000, table.sum(table.whereAccount("A1.1")));
+        assertEquals(0, table.sum(table.whereAccount("A9.9")));
+        assertEquals(-684, table.sum(table.whereBooked().not().and(table.whereCurrency("EUR"))));
+        assertEquals(2, table.where(Column.NAME, null).or(table.whereCredits()).size());
+
+        Map<String, Long> byName = table.sumBy(Column.NAME, table.whereDebits());
+        assertEquals(2, byName.size());
+        assertEquals(Long.valueOf(-160000), byName.get("Vermieter"));
+        assertEquals(Long.valueOf(-1234), byName.get("Supermarkt"));
+
+        SortedMap<String, Long> byMonth = table.sumByMonth(table.where(Column.TYPE, "Standing order"));
+        assertEquals(2, byMonth.size());
+        assertEquals("2013-03", byMonth.firstKey());
+        assertEquals(Long.valueOf(-80000), byMonth.get("2013-04"));
+
+        SortedMap<Integer, Long> balance = table.balanceByDay(table.whereAccount("A1.1"), 10000);
+        assertEquals(Long.valueOf(-70000), balance.get(day("2013-03-01")));
+        assertEquals(Long.valueOf(180000), balance.get(day("2013-03-28")));
+        assertEquals(Long.valueOf(100000), balance.get(day("2013-04-01")));
+
+        assertEquals(1, table.whereBookingDays(day("2013-03-02"), day("2013-04-01")).size());
+        assertEquals(3, table.whereAmount(-80000, 0).size());
+    }
+
+    @Test
+    public void testBuilderChangesDoNotAffectBuiltTable() {
+        TransactionTable.Builder builder = new TransactionTable.Builder(1);
+        builder.add(GsonAdapter.getInstance().fromJson("{\"amount\": -1, \"currency\": \"EUR\", \"name\": \"A\"}", CompactTransaction.class));
+        TransactionTable table = builder.build();
+        builder.add(GsonAdapter.getInstance().fromJson("{\"amount\": -2, \"currency\": \"USD\", \"name\": \"B\"}", CompactTransaction.class));
+
+        assertEquals(1, table.size());
+        assertEquals(Arrays.asList("A"), table.getValues(Column.NAME));
+        assertEquals(0, table.whereCurrency("USD").size());
+        assertEquals(1, table.sumBy(Column.CURRENCY, null).size());
+        assertEquals(2, builder.build().size());
+    }
+
+    @Test
+    public void testParallelAggregations() throws Exception {
+        TransactionTable.Builder builder = new TransactionTable.Builder(0);
+        String[] types = { "Transfer", "Direct debit", "ATM" };
+        for (int i = 0; i < 100000; i++) {
+            String json = "{\"amount\": " + (i % 1000 - 500) + ", \"currency\": \"EUR\", \"type\": \"" + types[i % 3] + "\", "
+                    + "\"booking_date\": \"" + IsoDateFormat.formatEpochDay(15000 + i % 400) + "\"}";
+            builder.add(GsonAdapter.getInstance().fromJson(json, CompactTransaction.class));
+        }
+        TransactionTable table = builder.build();
+        Selection debits = table.whereDebits();
+        long sum = table.sum(debits);
+        Map<String, Long> byType = table.sumBy(Column.TYPE, debits);
+        SortedMap<String, Long> byMonth = table.sumByMonth(null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            table.setExecutor(executor, 4);
+            assertEquals(sum, table.sum(debits));
+            assertEquals(byType, table.sumBy(Column.TYPE, debits));
+            assertEquals(byMonth, table.sumByMonth(null));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.models.Account;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.Request;
+import com.android.volley.VolleyError;
+
+public class UrlConnectionTransportTest {
+
+    private FaultServer server;
+
+    private FigoApi createApi(UrlConnectionTransport transport, String... script) throws IOException {
+        server = new FaultServer(script);
+        FigoApi api = new FigoApi(server.getEndpoint(), "Bearer token", 5000, transport);
+        api.setRetryPolicy(null);
+        return api;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null)
+            server.shutdown();
+    }
+
+    @Test
+    public void testResponseIsDelivered() throws Exception {
+        FigoApi api = createApi(new UrlConnectionTransport());
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        assertEquals("A1.1", future.get(5, TimeUnit.SECONDS).getAccountId());
+    }
+
+    @Test
+    public void testBadRequestWithoutBodyIsDelivered() throws Exception {
+        FigoApi api = createApi(new UrlConnectionTransport(), "400-empty");
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertEquals("bad_request", ((FigoError) e.getCause()).getErrorCode());
+        }
+
+        // the failed call must not leave anything behind that later calls would wait for
+        FigoFuture<Account> retry = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, retry, retry);
+        assertEquals("A1.1", retry.get(5, TimeUnit.SECONDS).getAccountId());
+    }
+
+    @Test
+    public void testBlockingBadRequestWithoutBody() throws Exception {
+        FigoApi api = createApi(new UrlConnectionTransport(), "400-empty");
+        try {
+            api.queryApi("/rest/accounts/A1.1", null, "GET", Account.class);
+            fail();
+        } catch (FigoError e) {
+            assertEquals("bad_request", e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testRuntimeExceptionIsDelivered() throws Exception {
+        final IllegalStateException failure = new IllegalStateException("broken");
+        FigoApi api = createApi(new UrlConnectionTransport() {
+            @Override
+            protected NetworkResponse performRequest(FigoApi api, Request<?> request) {
+                throw failure;
+            }
+        });
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        api.queryApi("/rest/accounts/A1.1", null, Request.Method.GET, Account.class, future, future);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(failure, ((VolleyError) e.getCause()).getCause());
+        }
+    }
+
+    @Test
+    public void testUnsupportedMethodIsRejected() {
+        assertEquals("GET", UrlConnectionTransport.getMethodName(Request.Method.GET));
+        assertEquals("DELETE", UrlConnectionTransport.getMethodName(Request.Method.DELETE));
+        try {
+            UrlConnectionTransport.getMethodName(Request.Method.PATCH);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        try {
+            UrlConnectionTransport.getMethodName(Request.Method.HEAD);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
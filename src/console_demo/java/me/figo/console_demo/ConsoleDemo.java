@@ -1,27 +1,37 @@
 package me.figo.console_demo;
 
-import com.android.volley.Response;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 
-import java.io.IOException;
-
-import me.figo.FigoError;
+import me.figo.FigoAsyncSession;
+import me.figo.FigoFuture;
 import me.figo.FigoSession;
+import me.figo.UrlConnectionTransport;
 import me.figo.models.Account;
+import me.figo.models.AccountBalance;
 import me.figo.models.Transaction;
 
 public class ConsoleDemo {
 
-    public static void main(String[] args, Response.Listener<T> listener, Response.ErrorListener errorListener) throws FigoError, IOException {
-        FigoSession session = new FigoSession("ASHWLIkouP2O6_bgA2wWReRhletgWKHYjLqDaqb0LFfamim9RjexTo22ujRIP_cjLiRiSyQXyt2kM1eXU2XLFZQ0Hro15HikJQT_eNeT_9XQ");
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        FigoAsyncSession session = new FigoAsyncSession(new FigoSession("ASHWLIkouP2O6_bgA2wWReRhletgWKHYjLqDaqb0LFfamim9RjexTo22ujRIP_cjLiRiSyQXyt2kM1eXU2XLFZQ0Hro15HikJQT_eNeT_9XQ",
+                new UrlConnectionTransport()));
 
-        // print out a list of accounts including its balance
-        for (Account account : session.getAccounts(listener, errorListener)) {
-            System.out.println(account.getName());
-            System.out.println(session.getAccountBalance(account, listener, errorListener).getBalance());
+        // print out a list of accounts including its balance, fetching all balances at once
+        List<Account> accounts = session.getAccounts().get();
+        List<FigoFuture<AccountBalance>> balances = new ArrayList<FigoFuture<AccountBalance>>();
+        for (Account account : accounts) {
+            balances.add(session.getAccountBalance(account));
+        }
+        List<AccountBalance> results = FigoFuture.allAsList(balances).get();
+        for (int i = 0; i < accounts.size(); i++) {
+            System.out.println(accounts.get(i).getName());
+            System.out.println(results.get(i).getBalance());
         }
 
         // print out the list of all transactions on a specific account
-        for (Transaction transaction : session.getTransactions(session.getAccount("A1.2", listener, errorListener), listener, errorListener)) {
+        for (Transaction transaction : session.getTransactions(session.getAccount("A1.2").get()).get()) {
             System.out.println(transaction.getPurposeText());
         }
     }
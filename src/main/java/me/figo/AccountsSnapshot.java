@@ -0,0 +1,284 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+import me.figo.models.Account;
+import me.figo.models.AccountBalance;
+import me.figo.models.Security;
+import me.figo.models.Transaction;
+
+/**
+ * Balances, transactions and securities of all accounts of a user, fetched in parallel, see
+ * {@link FigoAsyncSession#getAccountsSnapshot(int)}. Requests which failed leave their part empty and record the error on
+ * the affected account, so a snapshot can be partial. Cancelling the future of the snapshot cancels the requests in
+ * flight.
+ */
+public class AccountsSnapshot {
+
+    /**
+     * Data fetched for a single account
+     */
+    public static class AccountData {
+
+        private final Account account;
+        private volatile AccountBalance balance;
+        private volatile List<Transaction> transactions;
+        private volatile List<Security> securities;
+        private final List<VolleyError> errors = Collections.synchronizedList(new ArrayList<VolleyError>());
+
+        AccountData(Account account) {
+            this.account = account;
+        }
+
+        public Account getAccount() {
+            return account;
+        }
+
+        /**
+         * @return the balance, or null if it could not be fetched
+         */
+        public AccountBalance getBalance() {
+            return balance;
+        }
+
+        /**
+         * @return the transactions, or null if they could not be fetched
+         */
+        public List<Transaction> getTransactions() {
+            return transactions;
+        }
+
+        /**
+         * @return the securities, or null if they could not be fetched
+         */
+        public List<Security> getSecurities() {
+            return securities;
+        }
+
+        /**
+         * @return the errors of the failed requests for this account
+         */
+        public List<VolleyError> getErrors() {
+            return errors;
+        }
+
+        /**
+         * @return whether all requests for this account succeeded
+         */
+        public boolean isComplete() {
+            return errors.isEmpty();
+        }
+    }
+
+    private final List<AccountData> accounts;
+
+    AccountsSnapshot(List<AccountData> accounts) {
+        this.accounts = accounts;
+    }
+
+    /**
+     * @return the data of every account, in the order returned by the server
+     */
+    public List<AccountData> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * @return whether all requests succeeded
+     */
+    public boolean isComplete() {
+        for (AccountData data : accounts) {
+            if (!data.isComplete())
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fetch the accounts and then their details with at most the given number of requests in flight
+     */
+    static FigoFuture<AccountsSnapshot> load(final FigoAsyncSession session, final int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive");
+
+        final FigoFuture<AccountsSnapshot> result = new FigoFuture<AccountsSnapshot>();
+        FigoFuture<List<Account>> accounts = session.getAccounts();
+        result.propagateCancel(accounts);
+        accounts.addListener(new Response.Listener<List<Account>>() {
+            @Override
+            public void onResponse(List<Account> response) {
+                new Loader(session, result, response == null ? Collections.<Account>emptyList() : response).start(parallelism);
+            }
+        }, result);
+        return result;
+    }
+
+    /**
+     * Issues the per-account requests, starting the next queued one whenever a request completes. Requests are started
+     * in a loop rather than from the completion of the previous one, so responses delivered synchronously do not nest.
+     */
+    private static class Loader {
+
+        private final FigoAsyncSession session;
+        private final FigoFuture<AccountsSnapshot> result;
+        private final List<AccountData> accounts = new ArrayList<AccountData>();
+        private final Queue<Runnable> queue = new LinkedList<Runnable>();
+        private int pending;
+        private int slots;
+        private boolean draining;
+
+        Loader(FigoAsyncSession session, FigoFuture<AccountsSnapshot> result, List<Account> accounts) {
+            this.session = session;
+            this.result = result;
+            for (Account account : accounts) {
+                final AccountData data = new AccountData(account);
+                this.accounts.add(data);
+                queue.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        fetchBalance(data);
+                    }
+                });
+                queue.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        fetchTransactions(data);
+                    }
+                });
+                queue.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        fetchSecurities(data);
+                    }
+                });
+            }
+            pending = queue.size();
+        }
+
+        void start(int parallelism) {
+            if (pending == 0) {
+                result.onResponse(new AccountsSnapshot(accounts));
+                return;
+            }
+            synchronized (this) {
+                slots = parallelism;
+            }
+            drain();
+        }
+
+        /**
+         * Start queued requests while slots are free. A call while another one is looping returns right away, the
+         * running loop picks up the freed slot.
+         */
+        private void drain() {
+            synchronized (this) {
+                if (draining)
+                    return;
+                draining = true;
+            }
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    task = slots == 0 || result.isCancelled() ? null : queue.poll();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                    slots--;
+                }
+                task.run();
+            }
+        }
+
+        private void done() {
+            boolean finished;
+            synchronized (this) {
+                finished = --pending == 0;
+                slots++;
+            }
+            if (finished) {
+                result.onResponse(new AccountsSnapshot(accounts));
+            } else {
+                drain();
+            }
+        }
+
+        /**
+         * @return the future, which is cancelled together with the snapshot
+         */
+        private <T> FigoFuture<T> track(FigoFuture<T> future) {
+            result.propagateCancel(future);
+            return future;
+        }
+
+        private Response.ErrorListener errorListener(final AccountData data) {
+            return new Response.ErrorListener() {
+                @Override
+                public void onErrorResponse(VolleyError error) {
+                    data.errors.add(error);
+                    done();
+                }
+            };
+        }
+
+        private void fetchBalance(final AccountData data) {
+            track(session.getAccountBalance(data.account)).addListener(new Response.Listener<AccountBalance>() {
+                @Override
+                public void onResponse(AccountBalance response) {
+                    data.balance = response;
+                    done();
+                }
+            }, errorListener(data));
+        }
+
+        private void fetchTransactions(final AccountData data) {
+            track(session.getTransactions(data.account)).addListener(new Response.Listener<List<Transaction>>() {
+                @Override
+                public void onResponse(List<Transaction> response) {
+                    data.transactions = response;
+                    done();
+                }
+            }, errorListener(data));
+        }
+
+        private void fetchSecurities(final AccountData data) {
+            track(session.getSecurities(data.account)).addListener(new Response.Listener<List<Security>>() {
+                @Override
+                public void onResponse(List<Security> response) {
+                    data.securities = response;
+                    done();
+                }
+            }, errorListener(data));
+        }
+    }
+}
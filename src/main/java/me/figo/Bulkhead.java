@@ -0,0 +1,189 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit for one group of API endpoints, so that slow calls of one group cannot occupy all connections and
+ * threads needed by the others. Calls beyond the limit wait in the bulkhead's own queue; once that is full as well they
+ * are rejected.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final Queue<Task> waiting = new LinkedList<Task>();
+    private int active;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * A call waiting for a permit
+     */
+    public interface Task {
+
+        /**
+         * Start the call with the permit just acquired
+         *
+         * @return false if the call is no longer needed, its permit is passed on to the next waiting task in that case
+         */
+        boolean tryRun();
+    }
+
+    /**
+     * @param maxConcurrent maximum number of calls in flight
+     * @param maxWaiting    maximum number of calls waiting for a permit
+     */
+    public Bulkhead(int maxConcurrent, int maxWaiting) {
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+    }
+
+    /**
+     * Run a task as soon as a permit is available, which is passed on to the task. The task has to call
+     * {@link #release()} once its call is complete, unless it declines the permit.
+     *
+     * @param task the task to run, either immediately on the calling thread or later on the thread releasing a permit
+     * @return false if the task was rejected because the queue is full
+     */
+    public boolean submit(Task task) {
+        synchronized (this) {
+            if (active >= maxConcurrent) {
+                if (waiting.size() >= maxWaiting) {
+                    rejected.incrementAndGet();
+                    return false;
+                }
+                waiting.add(task);
+                return true;
+            }
+            active++;
+        }
+        if (!task.tryRun())
+            release();
+        return true;
+    }
+
+    /**
+     * Remove a task which is no longer needed from the queue, e.g. because its call was cancelled
+     *
+     * @return false if the task was not waiting, either because it already got its permit or was never queued
+     */
+    public synchronized boolean remove(Task task) {
+        return waiting.remove(task);
+    }
+
+    /**
+     * Wait for a permit on the calling thread
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @return false if no permit became available in time or the queue is full
+     */
+    public boolean acquire(long timeout) throws InterruptedException {
+        Waiter waiter = new Waiter();
+        if (!submit(waiter))
+            return false;
+        try {
+            if (waiter.await(timeout))
+                return true;
+        } catch (InterruptedException e) {
+            // return a permit granted in the meantime, nobody else would
+            if (!remove(waiter))
+                release();
+            throw e;
+        }
+
+        if (remove(waiter)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        // the permit was granted while timing out
+        return true;
+    }
+
+    /**
+     * Return a permit, handing it to the next waiting task which still needs it if there is one
+     */
+    public void release() {
+        while (true) {
+            Task next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    active--;
+                    return;
+                }
+            }
+            if (next.tryRun())
+                return;
+        }
+    }
+
+    /**
+     * Blocking waiter, parking on a semaphore rather than a monitor so that waiting virtual threads do not pin their
+     * carrier thread
+     */
+    private static class Waiter implements Task {
+
+        private final Semaphore granted = new Semaphore(0);
+
+        @Override
+        public boolean tryRun() {
+            granted.release();
+            return true;
+        }
+
+        boolean await(long timeout) throws InterruptedException {
+            return granted.tryAcquire(timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return number of calls currently holding a permit
+     */
+    public synchronized int getActiveCount() {
+        return active;
+    }
+
+    /**
+     * @return number of calls waiting for a permit
+     */
+    public synchronized int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * @return number of calls rejected so far
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
@@ -0,0 +1,248 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import me.figo.models.Bank;
+import me.figo.models.LoginSettings;
+import me.figo.models.Service;
+
+/**
+ * Read-through cache for the near-static catalog data returned by {@link FigoSession#getSupportedServices},
+ * {@link FigoSession#getLoginSettings} and {@link FigoSession#getBank}. One instance can be shared by all sessions of an
+ * application; bank entries contain user settings and are therefore kept per user, identified the same way as for the
+ * response store so that they survive token refreshes.
+ *
+ * Entries expire after a per-endpoint time to live and the least recently used entry is evicted once the cache is full.
+ * Concurrent requests for a missing entry are coalesced into a single HTTP request, failed requests are not cached. A
+ * request still in flight after the session's timeout is no longer joined, in case its result never arrives.
+ * Every caller gets its own {@link FigoFuture}, so cancelling it does not affect other callers.
+ */
+public class CatalogCache {
+
+    public static final long DEFAULT_SERVICES_TTL = TimeUnit.HOURS.toMillis(24);
+    public static final long DEFAULT_LOGIN_SETTINGS_TTL = TimeUnit.HOURS.toMillis(24);
+    public static final long DEFAULT_BANK_TTL = TimeUnit.HOURS.toMillis(1);
+    private static final int DEFAULT_MAX_ENTRIES = 512;
+
+    /**
+     * Issues the request filling a cache entry
+     */
+    private interface Loader<T> {
+        Request<?> load(FigoFuture<T> future);
+    }
+
+    private static class Entry {
+        final FigoFuture<?> future;
+        // deadline of the request while in flight, end of the time to live once completed
+        volatile long expiresAt;
+
+        Entry(FigoFuture<?> future, long expiresAt) {
+            this.future = future;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final Map<String, Entry> entries;
+    private final long servicesTtl;
+    private final long loginSettingsTtl;
+    private final long bankTtl;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * Creates a cache with the default size and times to live
+     */
+    public CatalogCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_SERVICES_TTL, DEFAULT_LOGIN_SETTINGS_TTL, DEFAULT_BANK_TTL);
+    }
+
+    /**
+     * Creates a cache
+     *
+     * @param maxEntries
+     *            the number of entries after which the least recently used one is evicted
+     * @param servicesTtl
+     *            time to live of supported services in milliseconds
+     * @param loginSettingsTtl
+     *            time to live of login settings in milliseconds
+     * @param bankTtl
+     *            time to live of banks in milliseconds
+     */
+    public CatalogCache(final int maxEntries, long servicesTtl, long loginSettingsTtl, long bankTtl) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CatalogCache.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.servicesTtl = servicesTtl;
+        this.loginSettingsTtl = loginSettingsTtl;
+        this.bankTtl = bankTtl;
+    }
+
+    /**
+     * Returns a list of all supported credit cards and payment services for a country
+     *
+     * @see FigoSession#getSupportedServices
+     */
+    public FigoFuture<List<Service>> getSupportedServices(final FigoSession session, final String countryCode) {
+        return get("services/" + countryCode, servicesTtl, session.getTimeout(), new Loader<List<Service>>() {
+            @Override
+            public Request<?> load(FigoFuture<List<Service>> future) {
+                return session.getSupportedServices(countryCode, future, future);
+            }
+        });
+    }
+
+    /**
+     * Returns the login settings for a specified banking or payment service
+     *
+     * @see FigoSession#getLoginSettings
+     */
+    public FigoFuture<LoginSettings> getLoginSettings(final FigoSession session, final String countryCode, final String bankCode) {
+        return get("login_settings/" + countryCode + "/" + bankCode, loginSettingsTtl, session.getTimeout(), new Loader<LoginSettings>() {
+            @Override
+            public Request<?> load(FigoFuture<LoginSettings> future) {
+                return session.getLoginSettings(countryCode, bankCode, future, future);
+            }
+        });
+    }
+
+    /**
+     * Get bank
+     *
+     * @see FigoSession#getBank
+     */
+    public FigoFuture<Bank> getBank(final FigoSession session, final String bankId) {
+        return get("banks/" + bankId + " " + session.getUserScope(), bankTtl, session.getTimeout(), new Loader<Bank>() {
+            @Override
+            public Request<?> load(FigoFuture<Bank> future) {
+                return session.getBank(bankId, future, future);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> FigoFuture<T> get(final String key, final long ttl, long timeout, Loader<T> loader) {
+        final Entry entry;
+        boolean load = false;
+        synchronized (entries) {
+            Entry existing = entries.get(key);
+            long now = System.currentTimeMillis();
+            if (existing != null && existing.expiresAt > now) {
+                entry = existing;
+                (existing.future.isDone() ? hits : coalesced).incrementAndGet();
+            } else {
+                entry = new Entry(new FigoFuture<T>(), now + timeout);
+                entries.put(key, entry);
+                misses.incrementAndGet();
+                load = true;
+            }
+        }
+
+        final FigoFuture<T> shared = (FigoFuture<T>) entry.future;
+        if (load) {
+            shared.addListener(new Response.Listener<T>() {
+                @Override
+                public void onResponse(T response) {
+                    entry.expiresAt = System.currentTimeMillis() + ttl;
+                }
+            }, new Response.ErrorListener() {
+                @Override
+                public void onErrorResponse(VolleyError error) {
+                    remove(key, entry);
+                }
+            });
+            try {
+                shared.setRequest(loader.load(shared));
+            } catch (RuntimeException e) {
+                // fail the callers which already joined this entry instead of leaving them waiting
+                shared.onErrorResponse(new VolleyError(e));
+                throw e;
+            }
+        }
+
+        FigoFuture<T> future = new FigoFuture<T>();
+        shared.addListener(future, future);
+        return future;
+    }
+
+    private void remove(String key, Entry entry) {
+        synchronized (entries) {
+            if (entries.get(key) == entry) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the number of entries, including expired ones which were not evicted yet
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of calls answered from a completed entry
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of calls which issued a request
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of calls which joined a request already in flight
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+}
@@ -0,0 +1,194 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker for one group of API endpoints. It records the outcome of the most recent calls and opens once their
+ * failure rate reaches a threshold; calls are then rejected immediately instead of adding load to a degraded backend.
+ * After a pause a single probe call is let through (half-open): its success closes the breaker again, its failure opens
+ * it for another pause. A probe which does not report its outcome within the pause is given up and replaced by a new one.
+ *
+ * Outcomes are reported with the {@link Permit} of the call, so that late outcomes of calls admitted before the breaker
+ * changed its state are ignored.
+ */
+public class CircuitBreaker {
+
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    public static final int DEFAULT_MINIMUM_CALLS = 10;
+    public static final double DEFAULT_FAILURE_THRESHOLD = 0.5;
+    public static final long DEFAULT_OPEN_DURATION = 30000;
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureThreshold;
+    private final long openDuration;
+
+    // ring buffer of the outcomes of the last calls, true meaning failure
+    private final boolean[] window;
+    private int position;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    // permit shared by all calls admitted while closed, replaced whenever the breaker closes again
+    private Permit closed = new Permit();
+    private Permit probe;
+    private long probeStartedAt;
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Permission for a call, identifying the call when its outcome is reported
+     */
+    public static final class Permit {
+
+        private Permit() {
+        }
+    }
+
+    /**
+     * Creates a circuit breaker with the default thresholds
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * Creates a circuit breaker
+     *
+     * @param windowSize       number of recent calls whose outcome is considered
+     * @param minimumCalls     number of calls needed before the breaker may open
+     * @param failureThreshold failure rate between 0 and 1 at which the breaker opens
+     * @param openDuration     time in milliseconds calls are rejected before a probe is let through
+     */
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureThreshold, long openDuration) {
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Ask for permission to make a call. Every permitted call has to be followed by {@link #onSuccess(Permit)},
+     * {@link #onFailure(Permit)} or {@link #onCancel(Permit)}.
+     *
+     * @return the permit of the call, or null if the call has to be rejected
+     */
+    public synchronized Permit tryAcquire() {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN && now - openedAt >= openDuration) {
+            state = State.HALF_OPEN;
+            probe = null;
+        }
+        if (state == State.CLOSED)
+            return closed;
+        if (state == State.HALF_OPEN && (probe == null || now - probeStartedAt >= openDuration)) {
+            // the previous probe, if any, was lost
+            probe = new Permit();
+            probeStartedAt = now;
+            return probe;
+        }
+        rejected.incrementAndGet();
+        return null;
+    }
+
+    public synchronized void onSuccess(Permit permit) {
+        if (state == State.HALF_OPEN && permit == probe) {
+            close();
+        } else if (state == State.CLOSED && permit == closed) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure(Permit permit) {
+        if (state == State.HALF_OPEN && permit == probe) {
+            open();
+        } else if (state == State.CLOSED && permit == closed) {
+            record(true);
+            if (calls >= minimumCalls && failures >= failureThreshold * calls)
+                open();
+        }
+    }
+
+    /**
+     * The permitted call was cancelled or rejected locally before its outcome was known
+     */
+    public synchronized void onCancel(Permit permit) {
+        if (state == State.HALF_OPEN && permit == probe)
+            probe = null;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[position])
+                failures--;
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure)
+            failures++;
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        probe = null;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        closed = new Permit();
+        probe = null;
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return failure rate of the recorded calls between 0 and 1
+     */
+    public synchronized double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    /**
+     * @return number of calls rejected so far
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+}
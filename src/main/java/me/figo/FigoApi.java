@@ -25,46 +25,108 @@ package me.figo;
 
 import com.android.volley.Request;
 import com.android.volley.RequestQueue;
+import com.android.volley.NetworkError;
 import com.android.volley.Response;
+import com.android.volley.ServerError;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
-import java.util.Scanner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
 import me.figo.internal.FigoRequest;
 import me.figo.internal.FigoTrustManager;
 import me.figo.internal.GsonAdapter;
+import me.figo.internal.Route;
 
 /**
  * @author halber
  */
 public class FigoApi {
-    private final RequestQueue requestQueue;
+    public static final String GROUP_DEFAULT = "default";
+    public static final String GROUP_SYNC = "sync";
+    public static final String GROUP_TASK = "task";
+
+    private static final int SSL_SESSION_CACHE_SIZE = 32;
+    private static final int SSL_SESSION_TIMEOUT = 24 * 60 * 60;
+    private static final Route[] CACHEABLE_ROUTES = { new Route("/rest/accounts"), Route.ACCOUNT, Route.ACCOUNT_BALANCE, Route.TRANSACTIONS,
+            Route.ACCOUNT_TRANSACTIONS, Route.ACCOUNT_TRANSACTION, new Route("/rest/securities"), Route.ACCOUNT_SECURITIES, Route.ACCOUNT_SECURITY,
+            new Route("/rest/standing_orders"), Route.ACCOUNT_STANDING_ORDERS, Route.ACCOUNT_STANDING_ORDER };
+
+    private final FigoTransport transport;
     private final String apiEndpoint;
-    private final String authorization;
+    private volatile String authorization;
+    private volatile Map<String, String> headers;
     private int timeout;
+    private volatile ResponseStore responseStore;
+    private volatile String userScope;
+    private volatile FigoRetryPolicy retryPolicy;
+    private volatile RateLimiter rateLimiter;
+    private final Shared shared;
 
     public FigoApi(String apiEndpoint, String authorization, int timeout, RequestQueue requestQueue) {
+        this(apiEndpoint, authorization, timeout, new VolleyTransport(requestQueue));
+    }
+
+    public FigoApi(String apiEndpoint, String authorization, int timeout, FigoTransport transport) {
+        this(apiEndpoint, authorization, timeout, transport, new Shared());
+    }
+
+    FigoApi(String apiEndpoint, String authorization, int timeout, FigoTransport transport, Shared shared) {
         this.apiEndpoint = apiEndpoint;
         this.authorization = authorization;
+        this.headers = FigoRequest.createHeaders(authorization);
+        this.userScope = authorization;
         this.timeout = timeout;
-        this.requestQueue = requestQueue;
+        this.transport = transport;
+        this.shared = shared;
+        this.retryPolicy = shared.retryPolicy;
+    }
+
+    /**
+     * State which does not depend on the user, shared by all sessions created by one {@link FigoSessionFactory}
+     */
+    static final class Shared {
+        final ConcurrentMap<String, InFlight<?>> inFlight = new ConcurrentHashMap<String, InFlight<?>>();
+        final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<String, CircuitBreaker>();
+        final ConcurrentMap<String, Bulkhead> bulkheads = new ConcurrentHashMap<String, Bulkhead>();
+        final FigoRetryPolicy retryPolicy = new FigoRetryPolicy();
+        volatile Gson gson;
+        volatile SSLSocketFactory sslSocketFactory;
     }
 
     /**
-     * Helper method for making a OAuth2-compliant API call
-     *  @param <T>           Type of expected response
+     * Helper method for making a OAuth2-compliant API call. Concurrent GET requests for the same path share a single
+     * network request, whose result is delivered to all of their listeners. All of them receive the very same response
+     * object, so it has to be treated as read-only.
+     *
+     * @param <T>           Type of expected response
      * @param clazz
      * @param path          path on the server to call
      * @param data          Payload of the request
@@ -73,12 +135,482 @@ public class FigoApi {
      * @param listener
      * @param errorListener @return the parsed result of the request
      */
+    @SuppressWarnings("unchecked")
     public <T> FigoRequest<T> queryApi(String path, Object data, int method, Class<T> clazz, Response.Listener<T> listener, Response.ErrorListener errorListener) {
-        FigoRequest<T> request = new FigoRequest<T>(method, apiEndpoint, path, authorization, data, clazz, listener, errorListener);
-        requestQueue.add(request);
+        if (method != Request.Method.GET || data != null)
+            return send(path, data, method, clazz, listener, errorListener);
+
+        FigoRequest<T> request = new FigoRequest<T>(method, apiEndpoint + path, headers, data, clazz, listener, errorListener);
+
+        // identical GETs share one network request; every caller gets its own request object which it can cancel
+        // without affecting the others
+        String key = authorization + " " + path + " " + (clazz == null ? "" : clazz.getName());
+        while (true) {
+            InFlight<T> current = (InFlight<T>) shared.inFlight.get(key);
+            if (current != null && current.join(request, listener, errorListener))
+                return request;
+
+            InFlight<T> created = new InFlight<T>(key, timeout);
+            created.join(request, listener, errorListener);
+            if (current == null ? shared.inFlight.putIfAbsent(key, created) == null : shared.inFlight.replace(key, current, created)) {
+                created.setRequest(send(path, null, method, clazz, created, created));
+                return request;
+            }
+        }
+    }
+
+    /**
+     * Hand a request to the transport once the circuit breaker and the bulkhead of its endpoint group admit it
+     */
+    private <T> FigoRequest<T> send(String path, Object data, int method, Class<T> clazz, Response.Listener<T> listener, Response.ErrorListener errorListener) {
+        String group = getEndpointGroup(UrlConnectionTransport.getMethodName(method), path);
+        final CircuitBreaker breaker = getCircuitBreaker(group);
+        final Bulkhead bulkhead = getBulkhead(group);
+        RateLimiter limiter = rateLimiter;
+        CircuitBreaker.Permit call = breaker.tryAcquire();
+        if (call == null) {
+            if (errorListener != null)
+                errorListener.onErrorResponse(createCircuitOpenError());
+            return new FigoRequest<T>(method, apiEndpoint + path, headers, data, clazz, listener, errorListener);
+        }
+
+        final Guard<T> guard = new Guard<T>(breaker, call, bulkhead, limiter, listener, errorListener);
+        final FigoRequest<T> request = new FigoRequest<T>(method, apiEndpoint + path, headers, data, clazz, guard, guard);
+
+        final Bulkhead.Task dispatch = new Bulkhead.Task() {
+            @Override
+            public boolean tryRun() {
+                if (!guard.onPermit())
+                    return false;
+                // the access token may have been refreshed while the request was waiting
+                request.setHeaders(headers);
+                transport.enqueue(FigoApi.this, request);
+                return true;
+            }
+        };
+        request.setCancelListener(new Runnable() {
+            @Override
+            public void run() {
+                guard.run();
+                // free the queue slot of a request still waiting for a permit
+                bulkhead.remove(dispatch);
+            }
+        });
+        Runnable admit = new Runnable() {
+            @Override
+            public void run() {
+                if (!bulkhead.submit(dispatch))
+                    guard.reject(createBulkheadFullError());
+            }
+        };
+
+        // wait for the rate limiter without blocking the caller
+        long delay = limiter == null ? 0 : limiter.reserve(userScope);
+        if (delay > 0) {
+            RateLimiter.schedule(admit, delay);
+        } else {
+            admit.run();
+        }
         return request;
     }
 
+    /**
+     * Reports the outcome of a request to its circuit breaker and returns its bulkhead permit, either when the result is
+     * delivered or when the request is cancelled
+     */
+    private static class Guard<T> implements Response.Listener<T>, Response.ErrorListener, Runnable {
+
+        private final CircuitBreaker breaker;
+        private final CircuitBreaker.Permit call;
+        private final Bulkhead bulkhead;
+        private final RateLimiter limiter;
+        private final Response.Listener<T> listener;
+        private final Response.ErrorListener errorListener;
+        private boolean permit;
+        private boolean finished;
+
+        Guard(CircuitBreaker breaker, CircuitBreaker.Permit call, Bulkhead bulkhead, RateLimiter limiter, Response.Listener<T> listener,
+                Response.ErrorListener errorListener) {
+            this.breaker = breaker;
+            this.call = call;
+            this.bulkhead = bulkhead;
+            this.limiter = limiter;
+            this.listener = listener;
+            this.errorListener = errorListener;
+        }
+
+        /**
+         * @return false if the request was cancelled while waiting, the bulkhead passes the permit on in that case
+         */
+        synchronized boolean onPermit() {
+            if (finished)
+                return false;
+            permit = true;
+            return true;
+        }
+
+        /**
+         * @return false if the request was already finished before
+         */
+        private boolean finish() {
+            boolean release;
+            synchronized (this) {
+                if (finished)
+                    return false;
+                finished = true;
+                release = permit;
+            }
+            if (release)
+                bulkhead.release();
+            return true;
+        }
+
+        /**
+         * Fail the request without sending it, which tells the circuit breaker nothing about the server
+         */
+        void reject(VolleyError error) {
+            if (finish())
+                breaker.onCancel(call);
+            if (errorListener != null)
+                errorListener.onErrorResponse(error);
+        }
+
+        @Override
+        public void onResponse(T response) {
+            if (finish())
+                breaker.onSuccess(call);
+            listener.onResponse(response);
+        }
+
+        @Override
+        public void onErrorResponse(VolleyError error) {
+            if (error instanceof FigoRateLimitError && limiter != null)
+                limiter.pause(((FigoRateLimitError) error).getRetryAfter());
+            if (finish()) {
+                if (isFailure(error)) {
+                    breaker.onFailure(call);
+                } else {
+                    breaker.onSuccess(call);
+                }
+            }
+            if (errorListener != null)
+                errorListener.onErrorResponse(error);
+        }
+
+        @Override
+        public void run() {
+            // the request was cancelled
+            if (finish())
+                breaker.onCancel(call);
+        }
+    }
+
+    /**
+     * @return whether the error indicates a problem of the server or the network rather than of the request, i.e. a 5xx
+     *         status, a network error or a timeout
+     */
+    static boolean isFailure(VolleyError error) {
+        if (error instanceof FigoError)
+            return ((FigoError) error).getStatusCode() >= 500;
+        return error instanceof NetworkError || error instanceof TimeoutError || error instanceof ServerError;
+    }
+
+    private static FigoError createCircuitOpenError() {
+        return new FigoError("service_unavailable", "Requests are suspended after repeated failures, please try again later");
+    }
+
+    private static FigoError createBulkheadFullError() {
+        return new FigoError("service_unavailable", "Too many concurrent requests, please try again later");
+    }
+
+    /**
+     * A GET request in flight together with the callers waiting for its result. New callers stop joining it once the
+     * timeout has passed, in case its result is never delivered, and it is cancelled when all of its callers cancel.
+     */
+    private class InFlight<T> implements Response.Listener<T>, Response.ErrorListener, Runnable {
+
+        private final String key;
+        private final long deadline;
+        private final List<FigoRequest<T>> requests = new ArrayList<FigoRequest<T>>();
+        private final List<Response.Listener<T>> listeners = new ArrayList<Response.Listener<T>>();
+        private final List<Response.ErrorListener> errorListeners = new ArrayList<Response.ErrorListener>();
+        private FigoRequest<T> request;
+        private boolean done;
+
+        InFlight(String key, int timeout) {
+            this.key = key;
+            this.deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        }
+
+        /**
+         * @return false if the result was already delivered or is overdue, so the caller needs to start a new request
+         */
+        synchronized boolean join(FigoRequest<T> request, Response.Listener<T> listener, Response.ErrorListener errorListener) {
+            if (done || System.nanoTime() - deadline > 0)
+                return false;
+
+            requests.add(request);
+            listeners.add(listener);
+            errorListeners.add(errorListener);
+            request.setCancelListener(this);
+            return true;
+        }
+
+        /**
+         * @param request the shared request, cancelled once all callers have cancelled theirs
+         */
+        synchronized void setRequest(FigoRequest<T> request) {
+            this.request = request;
+        }
+
+        private synchronized void finish() {
+            done = true;
+            shared.inFlight.remove(key, this);
+        }
+
+        @Override
+        public void run() {
+            // one of the callers cancelled its request
+            FigoRequest<T> cancelled;
+            synchronized (this) {
+                if (done)
+                    return;
+                for (FigoRequest<T> caller : requests) {
+                    if (!caller.isCanceled())
+                        return;
+                }
+                finish();
+                cancelled = request;
+            }
+            if (cancelled != null)
+                cancelled.cancel();
+        }
+
+        @Override
+        public void onResponse(T response) {
+            finish();
+            for (int i = 0; i < requests.size(); i++) {
+                if (!requests.get(i).isCanceled())
+                    listeners.get(i).onResponse(response);
+            }
+        }
+
+        @Override
+        public void onErrorResponse(VolleyError error) {
+            finish();
+            for (int i = 0; i < requests.size(); i++) {
+                if (!requests.get(i).isCanceled() && errorListeners.get(i) != null)
+                    errorListeners.get(i).onErrorResponse(error);
+            }
+        }
+    }
+
+    /**
+     * Helper method for making a OAuth2-compliant API call and blocking until its result is available. The call runs on
+     * the calling thread without holding any locks during I/O, so it is well suited for one call per (virtual) thread.
+     * Failed attempts are repeated according to the {@link #getRetryPolicy() retry policy}.
+     *
+     * @param <T>     Type of expected response
+     * @param path    path on the server to call
+     * @param data    Payload of the request
+     * @param method  the HTTP verb to use
+     * @param typeOfT Type of expected response
+     * @return the parsed result of the request
+     */
+    public <T> T queryApi(String path, Object data, String method, Type typeOfT) throws IOException, FigoError {
+        RateLimiter limiter = rateLimiter;
+        if (limiter != null)
+            FigoRetryPolicy.sleep(limiter.reserve(userScope));
+
+        String group = getEndpointGroup(method, path);
+        CircuitBreaker breaker = getCircuitBreaker(group);
+        Bulkhead bulkhead = getBulkhead(group);
+        CircuitBreaker.Permit call = breaker.tryAcquire();
+        if (call == null)
+            throw createCircuitOpenError();
+
+        try {
+            if (!bulkhead.acquire(timeout)) {
+                breaker.onCancel(call);
+                throw createBulkheadFullError();
+            }
+        } catch (InterruptedException e) {
+            breaker.onCancel(call);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a connection slot");
+        }
+
+        try {
+            T result = performQuery(path, data, method, typeOfT);
+            breaker.onSuccess(call);
+            return result;
+        } catch (FigoError e) {
+            if (e instanceof FigoRateLimitError && limiter != null)
+                limiter.pause(((FigoRateLimitError) e).getRetryAfter());
+            if (isFailure(e)) {
+                breaker.onFailure(call);
+            } else {
+                breaker.onSuccess(call);
+            }
+            throw e;
+        } catch (InterruptedIOException e) {
+            if (e instanceof SocketTimeoutException) {
+                breaker.onFailure(call);
+            } else {
+                breaker.onCancel(call);
+            }
+            throw e;
+        } catch (IOException e) {
+            breaker.onFailure(call);
+            throw e;
+        } catch (RuntimeException e) {
+            breaker.onCancel(call);
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private <T> T performQuery(String path, Object data, String method, Type typeOfT) throws IOException, FigoError {
+        URL url = new URL(apiEndpoint + path);
+        FigoRetryPolicy policy = retryPolicy;
+        if (policy != null)
+            policy.onCall();
+
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            HttpURLConnection connection;
+            ResponseStore.Entry stored;
+            try {
+                connection = openConnection(url, method);
+                stored = "GET".equals(method) ? prepareRevalidation(connection, url.toString()) : null;
+                writePayload(connection, data);
+
+                if (policy != null && policy.shouldRetry(method, attempt, connection.getResponseCode())) {
+                    discard(connection.getErrorStream());
+                    delay = policy.nextDelay(delay);
+                    FigoRetryPolicy.sleep(delay);
+                    continue;
+                }
+            } catch (IOException e) {
+                if (policy == null || !policy.shouldRetry(method, attempt, e))
+                    throw e;
+                delay = policy.nextDelay(delay);
+                FigoRetryPolicy.sleep(delay);
+                continue;
+            }
+
+            // serve unchanged resources from the response store and remember changed ones
+            if ("GET".equals(method) && responseStore != null && isCacheable(url.toString())) {
+                int code = connection.getResponseCode();
+                if (code == HttpURLConnection.HTTP_NOT_MODIFIED && stored != null) {
+                    discard(connection.getInputStream());
+                    return handleResponse(new ByteArrayInputStream(stored.getData()), typeOfT);
+                } else if (code == HttpURLConnection.HTTP_OK) {
+                    byte[] body = readFully(connection.getInputStream());
+                    storeResponse(url.toString(), connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"), body);
+                    return handleResponse(new ByteArrayInputStream(body), typeOfT);
+                }
+            }
+
+            return processResponse(connection, typeOfT);
+        }
+    }
+
+    private HttpURLConnection openConnection(URL url, String method) throws IOException {
+        // configure URL connection, i.e. the HTTP request
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(timeout);
+        connection.setReadTimeout(timeout);
+        connection.setUseCaches(false);
+
+        setupTrustManager(connection);
+
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Authorization", authorization);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Content-Type", "application/json");
+        return connection;
+    }
+
+    private void writePayload(HttpURLConnection connection, Object data) throws IOException {
+        if (data == null)
+            return;
+
+        connection.setDoOutput(true);
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(connection.getOutputStream(), Charset.forName("UTF-8")));
+        try {
+            getGson().toJson(data, data.getClass(), writer);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Look up the stored response for a GET request and add the headers needed to revalidate it
+     *
+     * @param connection the connection for the request, not connected yet
+     * @param url        the URL of the request
+     * @return the stored response, or null if there is none or the resource is not cacheable
+     */
+    protected ResponseStore.Entry prepareRevalidation(HttpURLConnection connection, String url) {
+        ResponseStore store = responseStore;
+        if (store == null || !isCacheable(url))
+            return null;
+
+        ResponseStore.Entry entry = store.get(getStoreKey(url));
+        if (entry == null)
+            return null;
+
+        if (entry.getEtag() != null)
+            connection.setRequestProperty("If-None-Match", entry.getEtag());
+        if (entry.getLastModified() != null)
+            connection.setRequestProperty("If-Modified-Since", entry.getLastModified());
+        return entry;
+    }
+
+    /**
+     * Remember the body of a successful GET request if the server provided a validator for it
+     *
+     * @param url          the URL of the request
+     * @param etag         value of the ETag header, or null
+     * @param lastModified value of the Last-Modified header, or null
+     * @param data         the response body
+     */
+    protected void storeResponse(String url, String etag, String lastModified, byte[] data) {
+        ResponseStore store = responseStore;
+        if (store == null || !isCacheable(url))
+            return;
+
+        if (etag == null && lastModified == null) {
+            store.remove(getStoreKey(url));
+        } else {
+            store.put(getStoreKey(url), new ResponseStore.Entry(etag, lastModified, data));
+        }
+    }
+
+    /**
+     * Whether responses from the given URL are kept in the response store. By default these are accounts, balances,
+     * transactions, securities and standing orders.
+     *
+     * @param url the URL of the request
+     * @return true if the resource may be stored
+     */
+    protected boolean isCacheable(String url) {
+        if (!url.startsWith(apiEndpoint))
+            return false;
+
+        for (Route route : CACHEABLE_ROUTES) {
+            if (route.matches(url, apiEndpoint.length()))
+                return true;
+        }
+        return false;
+    }
+
+    private String getStoreKey(String url) {
+        return userScope + " " + url;
+    }
+
     /**
      * Method to configure TrustManager.
      *
@@ -86,17 +618,43 @@ public class FigoApi {
      */
     protected void setupTrustManager(HttpURLConnection connection) throws IOException {
         if (connection instanceof HttpsURLConnection) {
-            // Setup and install the trust manager
-            try {
-                final SSLContext sc = SSLContext.getInstance("SSL");
-                sc.init(null, new TrustManager[]{new FigoTrustManager()}, new java.security.SecureRandom());
-                ((HttpsURLConnection) connection).setSSLSocketFactory(sc.getSocketFactory());
-            } catch (NoSuchAlgorithmException e) {
-                throw new IOException("Connection setup failed", e);
-            } catch (KeyManagementException e) {
-                throw new IOException("Connection setup failed", e);
+            ((HttpsURLConnection) connection).setSSLSocketFactory(getSSLSocketFactory());
+        }
+    }
+
+    /**
+     * The socket factory installing the FigoTrustManager. It is created once per FigoApi, or once per
+     * {@link FigoSessionFactory} for the sessions it creates, so all connections share one SSLContext and its session
+     * cache, which allows TLS sessions to be resumed instead of doing a full handshake.
+     *
+     * @return SSLSocketFactory for connections to the API endpoint
+     */
+    protected SSLSocketFactory getSSLSocketFactory() throws IOException {
+        SSLSocketFactory result = shared.sslSocketFactory;
+        if (result == null) {
+            synchronized (shared) {
+                result = shared.sslSocketFactory;
+                if (result == null) {
+                    result = shared.sslSocketFactory = createSSLSocketFactory();
+                }
             }
         }
+        return result;
+    }
+
+    private static SSLSocketFactory createSSLSocketFactory() throws IOException {
+        // Setup and install the trust manager
+        try {
+            final SSLContext sc = SSLContext.getInstance("SSL");
+            sc.init(null, new TrustManager[]{new FigoTrustManager()}, null);
+            sc.getClientSessionContext().setSessionCacheSize(SSL_SESSION_CACHE_SIZE);
+            sc.getClientSessionContext().setSessionTimeout(SSL_SESSION_TIMEOUT);
+            return sc.getSocketFactory();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException("Connection setup failed", e);
+        } catch (KeyManagementException e) {
+            throw new IOException("Connection setup failed", e);
+        }
     }
 
     /**
@@ -113,12 +671,19 @@ public class FigoApi {
         if (code >= 200 && code < 300) {
             return handleResponse(connection.getInputStream(), typeOfT);
         } else if (code == 400) {
-            throw new FigoError((FigoError.ErrorResponse) handleResponse(connection.getErrorStream(), FigoError.ErrorResponse.class));
+            FigoError.ErrorResponse error = handleResponse(connection.getErrorStream(), FigoError.ErrorResponse.class);
+            // an empty body decodes to null
+            throw error != null ? new FigoError(error, code) : new FigoError("bad_request", "Bad Request", code);
         } else if (code == 401) {
-            throw new FigoError("access_denied", "Access Denied");
+            discard(connection.getErrorStream());
+            throw new FigoError("access_denied", "Access Denied", code);
+        } else if (code == 429) {
+            discard(connection.getErrorStream());
+            throw new FigoRateLimitError(FigoRateLimitError.parseRetryAfter(connection.getHeaderField("Retry-After")));
         } else {
             // return decode(connection.getErrorStream(), resultType);
-            throw new FigoError("internal_server_error", "We are very sorry, but something went wrong");
+            discard(connection.getErrorStream());
+            throw new FigoError("internal_server_error", "We are very sorry, but something went wrong", code);
         }
     }
 
@@ -129,19 +694,62 @@ public class FigoApi {
      * @param typeOfT Type of the data to be expected
      * @return Decoded data
      */
-    protected <T> T handleResponse(InputStream stream, Type typeOfT) {
-        // check whether decoding is actual requested
-        if (typeOfT == null)
+    protected <T> T handleResponse(InputStream stream, Type typeOfT) throws IOException {
+        // check whether decoding is actual requested, error responses without a body have no stream at all
+        if (typeOfT == null || stream == null) {
+            discard(stream);
             return null;
+        }
+
+        // decode JSON payload straight from the stream
+        JsonReader reader = new JsonReader(new InputStreamReader(stream, Charset.forName("UTF-8")));
+        try {
+            return getGson().<T>fromJson(reader, typeOfT);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Read a response body to its end and close it, so that the connection can be reused for further requests
+     *
+     * @param stream the body to discard, may be null
+     */
+    protected static void discard(InputStream stream) throws IOException {
+        if (stream == null)
+            return;
+
+        try {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // nothing to do
+            }
+        } finally {
+            stream.close();
+        }
+    }
 
-        // read stream body
-        Scanner s = new Scanner(stream, "UTF-8");
-        s.useDelimiter("\\A");
-        String body = s.hasNext() ? s.next() : "";
-        s.close();
+    /**
+     * Read a stream to its end and close it
+     *
+     * @param stream the stream to read, may be null
+     * @return the content of the stream
+     */
+    protected static byte[] readFully(InputStream stream) throws IOException {
+        if (stream == null)
+            return new byte[0];
 
-        // decode JSON payload
-        return createGson().fromJson(body, typeOfT);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            stream.close();
+        }
     }
 
     /**
@@ -153,6 +761,197 @@ public class FigoApi {
         return GsonAdapter.createGson();
     }
 
+    /**
+     * The Gson instance used for decoding, created once per FigoApi, or once per {@link FigoSessionFactory}, through
+     * {@link #createGson()}
+     *
+     * @return GSON instance
+     */
+    protected Gson getGson() {
+        Gson result = shared.gson;
+        if (result == null) {
+            synchronized (shared) {
+                result = shared.gson;
+                if (result == null) {
+                    result = shared.gson = createGson();
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The transport executing the requests of this instance.
+     *
+     * @return
+     */
+    public FigoTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * The policy deciding which failed calls are repeated, or null if calls are never repeated.
+     *
+     * @return
+     */
+    public FigoRetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * @param retryPolicy the policy deciding which failed calls are repeated, or null to never repeat calls
+     */
+    public void setRetryPolicy(FigoRetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * The rate limiter delaying requests to stay within the API quotas, or null if requests are not limited.
+     *
+     * @return
+     */
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param rateLimiter the rate limiter delaying requests, usually {@link RateLimiter#forClient(String)} so that it is
+     *                    shared by all sessions of the client, or null to not limit requests
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * The group of endpoints a call belongs to. Every group has its own circuit breaker and bulkhead, so that slow or
+     * failing synchronization and task calls do not affect the other calls. Meant to be overridden for a different split.
+     *
+     * @param method the HTTP verb of the call
+     * @param path   path on the server
+     * @return {@link #GROUP_SYNC}, {@link #GROUP_TASK} or {@link #GROUP_DEFAULT}
+     */
+    protected String getEndpointGroup(String method, String path) {
+        if (path.startsWith("/task/"))
+            return GROUP_TASK;
+        if (path.startsWith("/rest/sync") || path.endsWith("/submit") || ("POST".equals(method) && path.equals("/rest/accounts")))
+            return GROUP_SYNC;
+        return GROUP_DEFAULT;
+    }
+
+    /**
+     * The circuit breaker of an endpoint group, e.g. to inspect its state
+     *
+     * @param group name of the group
+     * @return circuit breaker of the group
+     */
+    public CircuitBreaker getCircuitBreaker(String group) {
+        CircuitBreaker breaker = shared.circuitBreakers.get(group);
+        if (breaker == null) {
+            CircuitBreaker created = createCircuitBreaker(group);
+            breaker = shared.circuitBreakers.putIfAbsent(group, created);
+            if (breaker == null)
+                breaker = created;
+        }
+        return breaker;
+    }
+
+    /**
+     * The bulkhead of an endpoint group, e.g. to inspect its utilization
+     *
+     * @param group name of the group
+     * @return bulkhead of the group
+     */
+    public Bulkhead getBulkhead(String group) {
+        Bulkhead bulkhead = shared.bulkheads.get(group);
+        if (bulkhead == null) {
+            Bulkhead created = createBulkhead(group);
+            bulkhead = shared.bulkheads.putIfAbsent(group, created);
+            if (bulkhead == null)
+                bulkhead = created;
+        }
+        return bulkhead;
+    }
+
+    /**
+     * Instantiate the circuit breaker of an endpoint group. Meant to be overridden in order to provide custom thresholds.
+     *
+     * @param group name of the group
+     * @return new circuit breaker
+     */
+    protected CircuitBreaker createCircuitBreaker(String group) {
+        return new CircuitBreaker();
+    }
+
+    /**
+     * Instantiate the bulkhead of an endpoint group. Meant to be overridden in order to provide custom limits.
+     *
+     * @param group name of the group
+     * @return new bulkhead
+     */
+    protected Bulkhead createBulkhead(String group) {
+        if (GROUP_SYNC.equals(group))
+            return new Bulkhead(4, 1000);
+        if (GROUP_TASK.equals(group))
+            return new Bulkhead(8, 10000);
+        return new Bulkhead(16, 1000);
+    }
+
+    /**
+     * The store used to keep and revalidate responses, or null if responses are not stored.
+     *
+     * @return
+     */
+    public ResponseStore getResponseStore() {
+        return responseStore;
+    }
+
+    /**
+     * Entries are stored under the authorization this instance was created with, so they remain valid when its access
+     * token is refreshed but not for a new login. Use {@link #setResponseStore(ResponseStore, String)} to keep them
+     * across logins.
+     *
+     * @param responseStore the store used to keep and revalidate responses, or null to always fetch them completely
+     */
+    public void setResponseStore(ResponseStore responseStore) {
+        this.responseStore = responseStore;
+    }
+
+    /**
+     * @param responseStore the store used to keep and revalidate responses, or null to always fetch them completely
+     * @param userId        stable identity of the user the entries are stored under, e.g. {@link me.figo.models.User#getUserId()}
+     */
+    public void setResponseStore(ResponseStore responseStore, String userId) {
+        this.userScope = "user " + userId;
+        this.responseStore = responseStore;
+    }
+
+    /**
+     * @return the value of the Authorization header sent with every request
+     */
+    String getAuthorization() {
+        return authorization;
+    }
+
+    /**
+     * @return stable identity of the user for keys of locally kept data and per-user rate limits: the authorization this
+     *         instance was created with, which does not change when the token is refreshed, or the user ID passed to
+     *         {@link #setResponseStore(ResponseStore, String)}
+     */
+    String getUserScope() {
+        return userScope;
+    }
+
+    /**
+     * Replace the Authorization header. Requests sent afterwards use the new value, including queued requests which
+     * were created before but have not been handed to the transport yet.
+     *
+     * @param authorization the new value of the Authorization header
+     */
+    protected void setAuthorization(String authorization) {
+        this.headers = FigoRequest.createHeaders(authorization);
+        this.authorization = authorization;
+    }
+
     public String getApiEndpoint() {
         return apiEndpoint;
     }
@@ -0,0 +1,924 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.UnsupportedEncodingException;
+import java.util.List;
+
+import me.figo.FigoSession.FieldVisited;
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.internal.TaskResponseType;
+import me.figo.internal.TaskStatusResponse;
+import me.figo.internal.TaskTokenResponse;
+import me.figo.models.Account;
+import me.figo.models.AccountBalance;
+import me.figo.models.Bank;
+import me.figo.models.BusinessProcess;
+import me.figo.models.LoginSettings;
+import me.figo.models.Notification;
+import me.figo.models.Payment;
+import me.figo.models.PaymentContainer;
+import me.figo.models.PaymentProposal;
+import me.figo.models.ProcessToken;
+import me.figo.models.Security;
+import me.figo.models.Service;
+import me.figo.models.StandingOrder;
+import me.figo.models.Transaction;
+import me.figo.models.User;
+
+/**
+ * Future-based view of a {@link FigoSession}. Every method issues the same request as its FigoSession counterpart and
+ * returns a {@link FigoFuture} instead of taking a listener pair, so that many calls can be started at once and joined or
+ * combined afterwards, e.g. with {@link FigoFuture#allAsList(List)}.
+ */
+public class FigoAsyncSession {
+
+    private final FigoSession session;
+
+    /**
+     * Creates a FigoAsyncSession instance
+     *
+     * @param session
+     *            the session issuing the requests
+     */
+    public FigoAsyncSession(FigoSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @return the session issuing the requests
+     */
+    public FigoSession getSession() {
+        return session;
+    }
+
+    /**
+     * Get the current figo Account
+     *
+     * @see FigoSession#getUser
+     */
+    public FigoFuture<User> getUser() {
+        FigoFuture<User> future = new FigoFuture<User>();
+        future.setRequest(session.getUser(future, future));
+        return future;
+    }
+
+    /**
+     * Modify figo Account
+     *
+     * @see FigoSession#updateUser
+     */
+    public FigoFuture<User> updateUser(User user) {
+        FigoFuture<User> future = new FigoFuture<User>();
+        future.setRequest(session.updateUser(user, future, future));
+        return future;
+    }
+
+    /**
+     * Delete figo Account
+     *
+     * @see FigoSession#removeUser
+     */
+    public FigoFuture<Void> removeUser() {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeUser(future, future));
+        return future;
+    }
+
+    /**
+     * Returns a list of all supported credit cards and payment services for a country
+     *
+     * @see FigoSession#getSupportedServices
+     */
+    public FigoFuture<List<Service>> getSupportedServices(String countryCode) {
+        FigoFuture<List<Service>> future = new FigoFuture<List<Service>>();
+        future.setRequest(session.getSupportedServices(countryCode, future, future));
+        return future;
+    }
+
+    /**
+     * Returns the login settings for a specified banking or payment service
+     *
+     * @see FigoSession#getLoginSettings
+     */
+    public FigoFuture<LoginSettings> getLoginSettings(String countryCode, String bankCode) {
+        FigoFuture<LoginSettings> future = new FigoFuture<LoginSettings>();
+        future.setRequest(session.getLoginSettings(countryCode, bankCode, future, future));
+        return future;
+    }
+
+    /**
+     * Returns a TaskToken for a new account creation task
+     *
+     * @see FigoSession#setupNewAccount
+     */
+    public FigoFuture<TaskTokenResponse> setupNewAccount(String bankCode, String countryCode, String loginName, String pin, List<String> syncTasks) {
+        FigoFuture<TaskTokenResponse> future = new FigoFuture<TaskTokenResponse>();
+        future.setRequest(session.setupNewAccount(bankCode, countryCode, loginName, pin, syncTasks, future, future));
+        return future;
+    }
+
+    /**
+     * Returns a TaskToken for a new account creation task
+     *
+     * @see FigoSession#setupNewAccount
+     */
+    public FigoFuture<TaskTokenResponse> setupNewAccount(String bankCode, String countryCode, List<String> credentials, List<String> syncTasks) {
+        FigoFuture<TaskTokenResponse> future = new FigoFuture<TaskTokenResponse>();
+        future.setRequest(session.setupNewAccount(bankCode, countryCode, credentials, syncTasks, future, future));
+        return future;
+    }
+
+    /**
+     * All accounts the user has granted your app access to
+     *
+     * @see FigoSession#getAccounts
+     */
+    public FigoFuture<List<Account>> getAccounts() {
+        FigoFuture<List<Account>> future = new FigoFuture<List<Account>>();
+        future.setRequest(session.getAccounts(future, future));
+        return future;
+    }
+
+    /**
+     * Fetch balance, transactions and securities of all accounts in parallel. The future completes once every request
+     * finished; failed per-account requests are recorded in the snapshot instead of failing it.
+     *
+     * @param parallelism
+     *            maximum number of per-account requests in flight at the same time
+     * @return snapshot of all accounts
+     */
+    public FigoFuture<AccountsSnapshot> getAccountsSnapshot(int parallelism) {
+        return AccountsSnapshot.load(this, parallelism);
+    }
+
+    /**
+     * Returns the account with the specified ID
+     *
+     * @see FigoSession#getAccount
+     */
+    public FigoFuture<Account> getAccount(String accountId) {
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        future.setRequest(session.getAccount(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * Modify an account
+     *
+     * @see FigoSession#updateAccount
+     */
+    public FigoFuture<Account> updateAccount(Account account) {
+        FigoFuture<Account> future = new FigoFuture<Account>();
+        future.setRequest(session.updateAccount(account, future, future));
+        return future;
+    }
+
+    /**
+     * Remove an account
+     *
+     * @see FigoSession#removeAccount
+     */
+    public FigoFuture<Void> removeAccount(String accountId) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeAccount(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * Remove an account
+     *
+     * @see FigoSession#removeAccount
+     */
+    public FigoFuture<Void> removeAccount(Account account) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeAccount(account, future, future));
+        return future;
+    }
+
+    /**
+     * Returns the balance details of the account with he specified ID
+     *
+     * @see FigoSession#getAccountBalance
+     */
+    public FigoFuture<AccountBalance> getAccountBalance(String accountId) {
+        FigoFuture<AccountBalance> future = new FigoFuture<AccountBalance>();
+        future.setRequest(session.getAccountBalance(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * Returns the balance details of the supplied account
+     *
+     * @see FigoSession#getAccountBalance
+     */
+    public FigoFuture<AccountBalance> getAccountBalance(Account account) {
+        FigoFuture<AccountBalance> future = new FigoFuture<AccountBalance>();
+        future.setRequest(session.getAccountBalance(account, future, future));
+        return future;
+    }
+
+    /**
+     * Modify balance or account limits
+     *
+     * @see FigoSession#updateAccountBalance
+     */
+    public FigoFuture<AccountBalance> updateAccountBalance(String accountId, AccountBalance accountBalance) {
+        FigoFuture<AccountBalance> future = new FigoFuture<AccountBalance>();
+        future.setRequest(session.updateAccountBalance(accountId, accountBalance, future, future));
+        return future;
+    }
+
+    /**
+     * Modify balance or account limits
+     *
+     * @see FigoSession#updateAccountBalance
+     */
+    public FigoFuture<AccountBalance> updateAccountBalance(Account account, AccountBalance accountBalance) {
+        FigoFuture<AccountBalance> future = new FigoFuture<AccountBalance>();
+        future.setRequest(session.updateAccountBalance(account, accountBalance, future, future));
+        return future;
+    }
+
+    /**
+     * Set new bank account sorting order
+     *
+     * @see FigoSession#setAccountOrder
+     */
+    public FigoFuture<Void> setAccountOrder(List<Account> orderedList) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.setAccountOrder(orderedList, future, future));
+        return future;
+    }
+
+    /**
+     * All transactions on all account of the user
+     *
+     * @see FigoSession#getTransactions
+     */
+    public FigoFuture<List<Transaction>> getTransactions() {
+        FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+        try {
+            future.setRequest(session.getTransactions(future, future));
+        } catch (UnsupportedEncodingException e) {
+            future.onErrorResponse(new FigoError("invalid_request", "Unsupported encoding", e));
+        }
+        return future;
+    }
+
+    /**
+     * Retrieve all transactions on a specific account of the user
+     *
+     * @see FigoSession#getTransactions
+     */
+    public FigoFuture<List<Transaction>> getTransactions(String accountId) {
+        FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+        try {
+            future.setRequest(session.getTransactions(accountId, future, future));
+        } catch (UnsupportedEncodingException e) {
+            future.onErrorResponse(new FigoError("invalid_request", "Unsupported encoding", e));
+        }
+        return future;
+    }
+
+    /**
+     * Retrieve all transactions on a specific account of the user
+     *
+     * @see FigoSession#getTransactions
+     */
+    public FigoFuture<List<Transaction>> getTransactions(Account account) {
+        FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+        try {
+            future.setRequest(session.getTransactions(account, future, future));
+        } catch (UnsupportedEncodingException e) {
+            future.onErrorResponse(new FigoError("invalid_request", "Unsupported encoding", e));
+        }
+        return future;
+    }
+
+    /**
+     * Get an array of Transaction objects, one for each transaction of the user matching the criteria. Provide null values to not use the option.
+     *
+     * @see FigoSession#getTransactions
+     */
+    public FigoFuture<List<Transaction>> getTransactions(Account account, String since, Integer count, Integer offset, PendingTransactions include_pending) {
+        FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+        try {
+            future.setRequest(session.getTransactions(account, since, count, offset, include_pending, future, future));
+        } catch (UnsupportedEncodingException e) {
+            future.onErrorResponse(new FigoError("invalid_request", "Unsupported encoding", e));
+        }
+        return future;
+    }
+
+    /**
+     * Get an array of Transaction objects, one for each transaction of the user matching the criteria. Provide null values to not use the option.
+     *
+     * @see FigoSession#getTransactions
+     */
+    public FigoFuture<List<Transaction>> getTransactions(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending) {
+        FigoFuture<List<Transaction>> future = new FigoFuture<List<Transaction>>();
+        try {
+            future.setRequest(session.getTransactions(accountId, since, count, offset, include_pending, future, future));
+        } catch (UnsupportedEncodingException e) {
+            future.onErrorResponse(new FigoError("invalid_request", "Unsupported encoding", e));
+        }
+        return future;
+    }
+
+    /**
+     * Iterate over the transactions of an account, or all accounts, fetching them lazily page by page
+     *
+     * @param accountId
+     *            ID of the account for which to list the transactions, or null for all accounts
+     * @param since
+     *            this parameter can either be a transaction ID or a date, or null
+     * @param pageSize
+     *            number of transactions fetched per request
+     * @param include_pending
+     *            whether pending transactions should be included, or null for the server default
+     * @return iterator over the matching transactions
+     * @see TransactionIterator
+     */
+    public TransactionIterator iterateTransactions(String accountId, String since, int pageSize, PendingTransactions include_pending) {
+        return new TransactionIterator(this, accountId, since, pageSize, include_pending);
+    }
+
+    /**
+     * Retrieve a specific transaction by ID
+     *
+     * @see FigoSession#getTransaction
+     */
+    public FigoFuture<Transaction> getTransaction(String accountId, String transactionId) {
+        FigoFuture<Transaction> future = new FigoFuture<Transaction>();
+        future.setRequest(session.getTransaction(accountId, transactionId, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of a specific transaction
+     *
+     * @see FigoSession#modifyTransaction
+     */
+    public FigoFuture<Void> modifyTransaction(Transaction transaction, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifyTransaction(transaction, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all transactions of the current user
+     *
+     * @see FigoSession#modifyTransactions
+     */
+    public FigoFuture<Void> modifyTransactions(FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifyTransactions(visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all transactions of a specific account
+     *
+     * @see FigoSession#modifyTransactions
+     */
+    public FigoFuture<Void> modifyTransactions(Account account, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifyTransactions(account, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all transactions of a specific account
+     *
+     * @see FigoSession#modifyTransactions
+     */
+    public FigoFuture<Void> modifyTransactions(String accountId, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifyTransactions(accountId, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Removes a Transaction
+     *
+     * @see FigoSession#removeTransaction
+     */
+    public FigoFuture<Void> removeTransaction(Transaction transaction) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeTransaction(transaction, future, future));
+        return future;
+    }
+
+    /**
+     * Get an array of standing orders objects, one for each standing order of the user matching the criteria. Provide null values to not use the option.
+     *
+     * @see FigoSession#getStandingOrders
+     */
+    public FigoFuture<List<StandingOrder>> getStandingOrders(String accountId) {
+        FigoFuture<List<StandingOrder>> future = new FigoFuture<List<StandingOrder>>();
+        future.setRequest(session.getStandingOrders(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * All standing orders on all accounts of the user
+     *
+     * @see FigoSession#getStandingOrders
+     */
+    public FigoFuture<List<StandingOrder>> getStandingOrders() {
+        FigoFuture<List<StandingOrder>> future = new FigoFuture<List<StandingOrder>>();
+        future.setRequest(session.getStandingOrders(future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve a specific standing order by ID
+     *
+     * @see FigoSession#getStandingOrder
+     */
+    public FigoFuture<StandingOrder> getStandingOrder(String accountId, String standingOrderId) {
+        FigoFuture<StandingOrder> future = new FigoFuture<StandingOrder>();
+        future.setRequest(session.getStandingOrder(accountId, standingOrderId, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieves a specific security
+     *
+     * @see FigoSession#getSecurity
+     */
+    public FigoFuture<Security> getSecurity(String accountId, String securityId) {
+        FigoFuture<Security> future = new FigoFuture<Security>();
+        future.setRequest(session.getSecurity(accountId, securityId, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieves a specific security
+     *
+     * @see FigoSession#getSecurity
+     */
+    public FigoFuture<Security> getSecurity(Account account, String securityId) {
+        FigoFuture<Security> future = new FigoFuture<Security>();
+        future.setRequest(session.getSecurity(account, securityId, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieves all securities of the current user
+     *
+     * @see FigoSession#getSecurities
+     */
+    public FigoFuture<List<Security>> getSecurities() {
+        FigoFuture<List<Security>> future = new FigoFuture<List<Security>>();
+        future.setRequest(session.getSecurities(future, future));
+        return future;
+    }
+
+    /**
+     * Retrieves all securities of a specific account
+     *
+     * @see FigoSession#getSecurities
+     */
+    public FigoFuture<List<Security>> getSecurities(Account account) {
+        FigoFuture<List<Security>> future = new FigoFuture<List<Security>>();
+        future.setRequest(session.getSecurities(account, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieves all securities of a specific account
+     *
+     * @see FigoSession#getSecurities
+     */
+    public FigoFuture<List<Security>> getSecurities(String accountId) {
+        FigoFuture<List<Security>> future = new FigoFuture<List<Security>>();
+        future.setRequest(session.getSecurities(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of a specific security
+     *
+     * @see FigoSession#modifySecurity
+     */
+    public FigoFuture<Void> modifySecurity(Security security, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifySecurity(security, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all securities of the current user
+     *
+     * @see FigoSession#modifySecurities
+     */
+    public FigoFuture<Void> modifySecurities(FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifySecurities(visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all securities of a specific account
+     *
+     * @see FigoSession#modifySecurities
+     */
+    public FigoFuture<Void> modifySecurities(Account account, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifySecurities(account, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Modifies the visited field of all securities of a specific account
+     *
+     * @see FigoSession#modifySecurities
+     */
+    public FigoFuture<Void> modifySecurities(String accountId, FieldVisited visited) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.modifySecurities(accountId, visited, future, future));
+        return future;
+    }
+
+    /**
+     * Get bank
+     *
+     * @see FigoSession#getBank
+     */
+    public FigoFuture<Bank> getBank(String bankId) {
+        FigoFuture<Bank> future = new FigoFuture<Bank>();
+        future.setRequest(session.getBank(bankId, future, future));
+        return future;
+    }
+
+    /**
+     * Get Bank for account
+     *
+     * @see FigoSession#getBank
+     */
+    public FigoFuture<Bank> getBank(Account account) {
+        FigoFuture<Bank> future = new FigoFuture<Bank>();
+        future.setRequest(session.getBank(account, future, future));
+        return future;
+    }
+
+    /**
+     * Modify a bank
+     *
+     * @see FigoSession#updateBank
+     */
+    public FigoFuture<Bank> updateBank(Bank bank) {
+        FigoFuture<Bank> future = new FigoFuture<Bank>();
+        future.setRequest(session.updateBank(bank, future, future));
+        return future;
+    }
+
+    /**
+     * Remove the stored PIN for a bank (if there was one)
+     *
+     * @see FigoSession#removeBankPin
+     */
+    public FigoFuture<Void> removeBankPin(String bankId) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeBankPin(bankId, future, future));
+        return future;
+    }
+
+    /**
+     * Remove the stored PIN for a bank (if there was one)
+     *
+     * @see FigoSession#removeBankPin
+     */
+    public FigoFuture<Void> removeBankPin(Bank bank) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeBankPin(bank, future, future));
+        return future;
+    }
+
+    /**
+     * All notifications registered by this client for the user
+     *
+     * @see FigoSession#getNotifications
+     */
+    public FigoFuture<List<Notification>> getNotifications() {
+        FigoFuture<List<Notification>> future = new FigoFuture<List<Notification>>();
+        future.setRequest(session.getNotifications(future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve a specific notification by ID
+     *
+     * @see FigoSession#getNotification
+     */
+    public FigoFuture<Notification> getNotification(String notificationId) {
+        FigoFuture<Notification> future = new FigoFuture<Notification>();
+        future.setRequest(session.getNotification(notificationId, future, future));
+        return future;
+    }
+
+    /**
+     * Register a new notification on the server for the user
+     *
+     * @see FigoSession#addNotification
+     */
+    public FigoFuture<Notification> addNotification(Notification notification) {
+        FigoFuture<Notification> future = new FigoFuture<Notification>();
+        future.setRequest(session.addNotification(notification, future, future));
+        return future;
+    }
+
+    /**
+     * Update a stored notification
+     *
+     * @see FigoSession#updateNotification
+     */
+    public FigoFuture<Notification> updateNotification(Notification notification) {
+        FigoFuture<Notification> future = new FigoFuture<Notification>();
+        future.setRequest(session.updateNotification(notification, future, future));
+        return future;
+    }
+
+    /**
+     * Remove a stored notification from the server
+     *
+     * @see FigoSession#removeNotification
+     */
+    public FigoFuture<Void> removeNotification(Notification notification) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removeNotification(notification, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve all payments
+     *
+     * @see FigoSession#getPayments
+     */
+    public FigoFuture<List<Payment>> getPayments() {
+        FigoFuture<List<Payment>> future = new FigoFuture<List<Payment>>();
+        future.setRequest(session.getPayments(future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve all payments on a certain account
+     *
+     * @see FigoSession#getPayments
+     */
+    public FigoFuture<List<Payment>> getPayments(String accountId) {
+        FigoFuture<List<Payment>> future = new FigoFuture<List<Payment>>();
+        future.setRequest(session.getPayments(accountId, future, future));
+        return future;
+    }
+
+    /**
+     * all payments on a certain account
+     *
+     * @see FigoSession#getPayments
+     */
+    public FigoFuture<List<Payment>> getPayments(Account account) {
+        FigoFuture<List<Payment>> future = new FigoFuture<List<Payment>>();
+        future.setRequest(session.getPayments(account, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve a specific payment by ID
+     *
+     * @see FigoSession#getPayment
+     */
+    public FigoFuture<Payment> getPayment(String accountId, String paymentId) {
+        FigoFuture<Payment> future = new FigoFuture<Payment>();
+        future.setRequest(session.getPayment(accountId, paymentId, future, future));
+        return future;
+    }
+
+    /**
+     * Retrieve a specific payment by ID
+     *
+     * @see FigoSession#getPayment
+     */
+    public FigoFuture<Payment> getPayment(Account account, String paymentId) {
+        FigoFuture<Payment> future = new FigoFuture<Payment>();
+        future.setRequest(session.getPayment(account, paymentId, future, future));
+        return future;
+    }
+
+    /**
+     * Create a new payment
+     *
+     * @see FigoSession#addPayment
+     */
+    public FigoFuture<Payment> addPayment(Payment payment) {
+        FigoFuture<Payment> future = new FigoFuture<Payment>();
+        future.setRequest(session.addPayment(payment, future, future));
+        return future;
+    }
+
+    /**
+     *
+     * @see FigoSession#addContainerPayment
+     */
+    public FigoFuture<PaymentContainer> addContainerPayment(PaymentContainer container) {
+        FigoFuture<PaymentContainer> future = new FigoFuture<PaymentContainer>();
+        future.setRequest(session.addContainerPayment(container, future, future));
+        return future;
+    }
+
+    /**
+     * Returns a list of PaymentProposals.
+     *
+     * @see FigoSession#getPaymentProposals
+     */
+    public FigoFuture<List<PaymentProposal>> getPaymentProposals() {
+        FigoFuture<List<PaymentProposal>> future = new FigoFuture<List<PaymentProposal>>();
+        future.setRequest(session.getPaymentProposals(future, future));
+        return future;
+    }
+
+    /**
+     * Update a stored payment
+     *
+     * @see FigoSession#updatePayment
+     */
+    public FigoFuture<Payment> updatePayment(Payment payment) {
+        FigoFuture<Payment> future = new FigoFuture<Payment>();
+        future.setRequest(session.updatePayment(payment, future, future));
+        return future;
+    }
+
+    /**
+     * Remove a stored payment from the server
+     *
+     * @see FigoSession#removePayment
+     */
+    public FigoFuture<Void> removePayment(Payment payment) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.removePayment(payment, future, future));
+        return future;
+    }
+
+    /**
+     * Submit payment to bank server
+     *
+     * @see FigoSession#submitPayment
+     */
+    public FigoFuture<String> submitPayment(Payment payment, String tanSchemeId, String state) {
+        FigoFuture<String> future = new FigoFuture<String>();
+        future.setRequest(session.submitPayment(payment, tanSchemeId, state, future, future));
+        return future;
+    }
+
+    /**
+     * Submit payment to bank server
+     *
+     * @see FigoSession#submitPayment
+     */
+    public FigoFuture<String> submitPayment(Payment payment, String tanSchemeId, String state, String redirectUri) {
+        FigoFuture<String> future = new FigoFuture<String>();
+        future.setRequest(session.submitPayment(payment, tanSchemeId, state, redirectUri, future, future));
+        return future;
+    }
+
+    /**
+     * URL to trigger a synchronization. The user should open this URL in a web browser to synchronize his/her accounts with the respective bank servers. When
+     *
+     * @see FigoSession#getSyncURL
+     */
+    public FigoFuture<String> getSyncURL(String state, String redirect_url) {
+        FigoFuture<String> future = new FigoFuture<String>();
+        future.setRequest(session.getSyncURL(state, redirect_url, future, future));
+        return future;
+    }
+
+    /**
+     * URL to trigger a synchronization. The user should open this URL in a web browser to synchronize his/her accounts with the respective bank servers. When
+     *
+     * @see FigoSession#getSyncURL
+     */
+    public FigoFuture<String> getSyncURL(String state, String redirect_url, List<String> syncTasks) {
+        FigoFuture<String> future = new FigoFuture<String>();
+        future.setRequest(session.getSyncURL(state, redirect_url, syncTasks, future, future));
+        return future;
+    }
+
+    /**
+     * Get the current status of a Task by id
+     *
+     * @see FigoSession#getTaskState
+     */
+    public FigoFuture<TaskStatusResponse> getTaskState(String tokenId) {
+        FigoFuture<TaskStatusResponse> future = new FigoFuture<TaskStatusResponse>();
+        future.setRequest(session.getTaskState(tokenId, future, future));
+        return future;
+    }
+
+    /**
+     *
+     * @see FigoSession#submitResponseToTask
+     */
+    public FigoFuture<TaskStatusResponse> submitResponseToTask(String tokenId, String response, TaskResponseType type) {
+        FigoFuture<TaskStatusResponse> future = new FigoFuture<TaskStatusResponse>();
+        future.setRequest(session.submitResponseToTask(tokenId, response, type, future, future));
+        return future;
+    }
+
+    /**
+     * This method is used to provide a response to a running Task.
+     *
+     * @see FigoSession#submitResponseToTask
+     */
+    public FigoFuture<TaskStatusResponse> submitResponseToTask(TaskTokenResponse tokenResponse, String response, TaskResponseType type) {
+        FigoFuture<TaskStatusResponse> future = new FigoFuture<TaskStatusResponse>();
+        future.setRequest(session.submitResponseToTask(tokenResponse, response, type, future, future));
+        return future;
+    }
+
+    /**
+     * Start communication with bank server.
+     *
+     * @see FigoSession#startTask
+     */
+    public FigoFuture<Void> startTask(TaskTokenResponse tokenResponse) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.startTask(tokenResponse, future, future));
+        return future;
+    }
+
+    /**
+     * Start communication with bank server.
+     *
+     * @see FigoSession#startTask
+     */
+    public FigoFuture<Void> startTask(String taskToken) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.startTask(taskToken, future, future));
+        return future;
+    }
+
+    /**
+     * Cancels a given task if possible
+     *
+     * @see FigoSession#cancelTask
+     */
+    public FigoFuture<Void> cancelTask(TaskTokenResponse tokenResponse) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.cancelTask(tokenResponse, future, future));
+        return future;
+    }
+
+    /**
+     * Cancels a given task if possible
+     *
+     * @see FigoSession#cancelTask
+     */
+    public FigoFuture<Void> cancelTask(String taskToken) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.cancelTask(taskToken, future, future));
+        return future;
+    }
+
+    /**
+     *
+     * @see FigoSession#startProcess
+     */
+    public FigoFuture<Void> startProcess(ProcessToken processToken) {
+        FigoFuture<Void> future = new FigoFuture<Void>();
+        future.setRequest(session.startProcess(processToken, future, future));
+        return future;
+    }
+
+    /**
+     *
+     * @see FigoSession#createProcess
+     */
+    public FigoFuture<ProcessToken> createProcess(BusinessProcess process) {
+        FigoFuture<ProcessToken> future = new FigoFuture<ProcessToken>();
+        future.setRequest(session.createProcess(process, future, future));
+        return future;
+    }
+}
@@ -0,0 +1,306 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.internal.Route;
+import me.figo.internal.TaskStatusRequest;
+import me.figo.internal.TaskStatusResponse;
+import me.figo.models.Account;
+import me.figo.models.AccountBalance;
+import me.figo.models.Bank;
+import me.figo.models.CompactTransaction;
+import me.figo.models.LoginSettings;
+import me.figo.models.Notification;
+import me.figo.models.Payment;
+import me.figo.models.Security;
+import me.figo.models.Service;
+import me.figo.models.StandingOrder;
+import me.figo.models.Transaction;
+import me.figo.models.User;
+
+/**
+ * Blocking view of a {@link FigoSession}: every method performs its HTTP call on the calling thread through
+ * {@link FigoApi#queryApi(String, Object, String, java.lang.reflect.Type)} and returns the decoded result directly.
+ *
+ * No locks are held while waiting for the network, so many calls can run concurrently on a large number of cheap
+ * threads, one call per thread. Resources which do not exist are returned as null, lists without content as empty lists.
+ */
+public class FigoBlockingSession {
+
+    private final FigoSession session;
+
+    /**
+     * Creates a FigoBlockingSession instance
+     *
+     * @param session
+     *            the session providing endpoint, authorization, timeout and SSL setup
+     */
+    public FigoBlockingSession(FigoSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @return the session providing endpoint, authorization, timeout and SSL setup
+     */
+    public FigoSession getSession() {
+        return session;
+    }
+
+    /**
+     * Get the current figo Account
+     *
+     * @return User for the current figo Account
+     */
+    public User getUser() throws IOException, FigoError {
+        return session.queryApi("/rest/user", null, "GET", User.class);
+    }
+
+    /**
+     * All accounts the user has granted your app access to
+     *
+     * @return List of Accounts
+     */
+    public List<Account> getAccounts() throws IOException, FigoError {
+        Account.AccountsResponse response = session.queryApi("/rest/accounts", null, "GET", Account.AccountsResponse.class);
+        return response == null ? Collections.<Account>emptyList() : response.getAccounts();
+    }
+
+    /**
+     * Returns the account with the specified ID
+     *
+     * @param accountId
+     *            figo ID of the account to be retrieved
+     * @return Account or Null
+     */
+    public Account getAccount(String accountId) throws IOException, FigoError {
+        return session.queryApi(Route.ACCOUNT.format(accountId), null, "GET", Account.class);
+    }
+
+    /**
+     * Returns the balance details of the account with he specified ID
+     *
+     * @param accountId
+     *            figo ID of the account to be retrieved
+     * @return AccountBalance or Null
+     */
+    public AccountBalance getAccountBalance(String accountId) throws IOException, FigoError {
+        return session.queryApi(Route.ACCOUNT_BALANCE.format(accountId), null, "GET", AccountBalance.class);
+    }
+
+    /**
+     * All transactions on all account of the user
+     *
+     * @return List of Transaction objects
+     */
+    public List<Transaction> getTransactions() throws IOException, FigoError {
+        return getTransactions(null, null, null, null, null);
+    }
+
+    /**
+     * Retrieve all transactions on a specific account of the user
+     *
+     * @param accountId
+     *            the ID of the account for which to retrieve the transactions
+     * @return List of Transactions
+     */
+    public List<Transaction> getTransactions(String accountId) throws IOException, FigoError {
+        return getTransactions(accountId, null, null, null, null);
+    }
+
+    /**
+     * Get an array of Transaction objects, one for each transaction of the user matching the criteria. Provide null values to not use the option.
+     *
+     * @param accountId
+     *            ID of the account for which to list the transactions
+     * @param since
+     *            this parameter can either be a transaction ID or a date
+     * @param count
+     *            limit the number of returned transactions
+     * @param offset
+     *            which offset into the result set should be used to determine the first transaction to return (useful in combination with count)
+     * @param include_pending
+     *            this flag indicates whether pending transactions should be included in the response; pending transactions are always included as a complete
+     *            set, regardless of the `since` parameter
+     * @return an array of Transaction objects
+     */
+    public List<Transaction> getTransactions(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending) throws IOException, FigoError {
+        Transaction.TransactionsResponse response = session.queryApi(FigoSession.getTransactionsPath(accountId, since, count, offset, include_pending), null, "GET",
+                Transaction.TransactionsResponse.class);
+        return response == null ? Collections.<Transaction>emptyList() : response.getTransactions();
+    }
+
+    /**
+     * Same as {@link #getTransactions(String, String, Integer, Integer, PendingTransactions)}, but decodes the transactions
+     * into the memory-saving {@link CompactTransaction}, e.g. for analyzing large numbers of transactions.
+     *
+     * @return an array of CompactTransaction objects
+     */
+    public List<CompactTransaction> getCompactTransactions(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending) throws IOException, FigoError {
+        CompactTransaction.TransactionsResponse response = session.queryApi(FigoSession.getTransactionsPath(accountId, since, count, offset, include_pending), null, "GET",
+                CompactTransaction.TransactionsResponse.class);
+        return response == null ? Collections.<CompactTransaction>emptyList() : response.getTransactions();
+    }
+
+    /**
+     * Retrieve a specific transaction by ID
+     *
+     * @param accountId
+     *            ID of the account on which the transaction occurred
+     * @param transactionId
+     *            the figo ID of the specific transaction
+     * @return Transaction or null
+     */
+    public Transaction getTransaction(String accountId, String transactionId) throws IOException, FigoError {
+        return session.queryApi(Route.ACCOUNT_TRANSACTION.format(accountId, transactionId), null, "GET", Transaction.class);
+    }
+
+    /**
+     * Get an array of standing orders objects, one for each standing order of the user matching the criteria. Provide null values to not use the option.
+     *
+     * @param accountId
+     *            ID of the account for which to list the standing orders
+     * @return an array of Standing Order objects
+     */
+    public List<StandingOrder> getStandingOrders(String accountId) throws IOException, FigoError {
+        String path = accountId == null ? "/rest/standing_orders" : Route.ACCOUNT_STANDING_ORDERS.format(accountId);
+        StandingOrder.StandingOrdersResponse response = session.queryApi(path, null, "GET", StandingOrder.StandingOrdersResponse.class);
+        return response == null ? Collections.<StandingOrder>emptyList() : response.getStandingOrders();
+    }
+
+    /**
+     * Retrieves all securities of the current user
+     *
+     * @return List of Securities
+     */
+    public List<Security> getSecurities() throws IOException, FigoError {
+        return getSecurities(null);
+    }
+
+    /**
+     * Retrieves all securities of a specific account
+     *
+     * @param accountId
+     *            Security owning account id, or null for all accounts
+     * @return List of Securities
+     */
+    public List<Security> getSecurities(String accountId) throws IOException, FigoError {
+        String path = accountId == null ? "/rest/securities" : Route.ACCOUNT_SECURITIES.format(accountId);
+        Security.SecurityResponse response = session.queryApi(path, null, "GET", Security.SecurityResponse.class);
+        return response == null ? Collections.<Security>emptyList() : response.getSecurities();
+    }
+
+    /**
+     * Retrieve all payments
+     *
+     * @return List of Payments
+     */
+    public List<Payment> getPayments() throws IOException, FigoError {
+        return getPayments(null);
+    }
+
+    /**
+     * Retrieve all payments on a certain account
+     *
+     * @param accountId
+     *            the ID of the account for which to retrieve the payments, or null for all accounts
+     * @return List of Payments
+     */
+    public List<Payment> getPayments(String accountId) throws IOException, FigoError {
+        String path = accountId == null ? "/rest/payments" : Route.ACCOUNT_PAYMENTS.format(accountId);
+        Payment.PaymentsResponse response = session.queryApi(path, null, "GET", Payment.PaymentsResponse.class);
+        return response == null ? Collections.<Payment>emptyList() : response.getPayments();
+    }
+
+    /**
+     * Retrieve a specific payment by ID
+     *
+     * @param accountId
+     *            ID of the account on which the payment can be found
+     * @param paymentId
+     *            ID of the payment to be retrieved
+     * @return Payment or Null
+     */
+    public Payment getPayment(String accountId, String paymentId) throws IOException, FigoError {
+        return session.queryApi(Route.ACCOUNT_PAYMENT.format(accountId, paymentId), null, "GET", Payment.class);
+    }
+
+    /**
+     * Get bank
+     *
+     * @param bankId
+     *            ID of the bank to be retrieved
+     * @return Bank or null
+     */
+    public Bank getBank(String bankId) throws IOException, FigoError {
+        return session.queryApi(Route.BANK.format(bankId), null, "GET", Bank.class);
+    }
+
+    /**
+     * All notifications registered by this client for the user
+     *
+     * @return List of Notification objects
+     */
+    public List<Notification> getNotifications() throws IOException, FigoError {
+        Notification.NotificationsResponse response = session.queryApi("/rest/notifications", null, "GET", Notification.NotificationsResponse.class);
+        return response == null ? Collections.<Notification>emptyList() : response.getNotifications();
+    }
+
+    /**
+     * Returns a list of all supported credit cards and payment services for a country
+     *
+     * @param countryCode
+     * @return List of Services
+     */
+    public List<Service> getSupportedServices(String countryCode) throws IOException, FigoError {
+        Service.ServiceResponse response = session.queryApi(Route.CATALOG_SERVICES.format(countryCode), null, "GET", Service.ServiceResponse.class);
+        return response == null ? Collections.<Service>emptyList() : response.getServices();
+    }
+
+    /**
+     * Returns the login settings for a specified banking or payment service
+     *
+     * @param countryCode
+     * @param bankCode
+     * @return LoginSettings
+     */
+    public LoginSettings getLoginSettings(String countryCode, String bankCode) throws IOException, FigoError {
+        return session.queryApi(Route.CATALOG_BANK.format(countryCode, bankCode), null, "GET", LoginSettings.class);
+    }
+
+    /**
+     * Get the current status of a Task by id
+     *
+     * @param tokenId
+     *            ID of the TaskToken which will be checked
+     * @return A TaskStatusResponse Object with information about the task.
+     */
+    public TaskStatusResponse getTaskState(String tokenId) throws IOException, FigoError {
+        return session.queryApi(Route.TASK_PROGRESS.format(tokenId), new TaskStatusRequest(tokenId), "POST", TaskStatusResponse.class);
+    }
+}
@@ -31,6 +31,7 @@ import me.figo.internal.CreateUserRequest;
 import me.figo.internal.CreateUserResponse;
 import me.figo.internal.CredentialLoginRequest;
 import me.figo.internal.FigoRequest;
+import me.figo.internal.Route;
 import me.figo.internal.TokenRequest;
 import me.figo.internal.TokenResponse;
 
@@ -85,6 +86,23 @@ public class FigoConnection extends FigoApi {
      */
     public FigoConnection(String clientId, String clientSecret, String redirectUri, int timeout, String apiEndpoint, RequestQueue requestQueue) {
         super(apiEndpoint, buildAuthorizationString(clientId, clientSecret), timeout, requestQueue);
+        this.clientId = clientId;
+        this.redirectUri = redirectUri;
+    }
+
+    /**
+     * Creates a FigoConnection instance
+     *
+     * @param clientId     the OAuth Client ID as provided by your figo developer contact
+     * @param clientSecret the OAuth Client Secret as provided by your figo developer contact
+     * @param redirectUri  the URI the users gets redirected to after the login is finished or if he presses cancels
+     * @param timeout      the timeout used for queries
+     * @param apiEndpoint  which endpoint to use (customize for different figo deployment)
+     * @param transport    the transport executing the requests, e.g. a {@link UrlConnectionTransport} outside of Android
+     */
+    public FigoConnection(String clientId, String clientSecret, String redirectUri, int timeout, String apiEndpoint, FigoTransport transport) {
+        super(apiEndpoint, buildAuthorizationString(clientId, clientSecret), timeout, transport);
+        this.clientId = clientId;
         this.redirectUri = redirectUri;
     }
 
@@ -142,6 +160,7 @@ public class FigoConnection extends FigoApi {
     public FigoRequest convertRefreshToken(String refreshToken, Response.Listener<TokenResponse> listener, Response.ErrorListener errorListener) {
         if (!refreshToken.startsWith("R")) {
             errorListener.onErrorResponse(new FigoError("invalid_code", "Invalid authentication code"));
+            return null;
         }
 
         return this.queryApi("/auth/token", new TokenRequest(refreshToken, null, this.redirectUri, "refresh_token"), Request.Method.POST, TokenResponse.class, listener, errorListener);
@@ -166,7 +185,7 @@ public class FigoConnection extends FigoApi {
      * @param token access or refresh token to be revoked
      */
     public FigoRequest revokeToken(String token, Response.Listener<Void> listener, Response.ErrorListener errorListener) throws UnsupportedEncodingException {
-        return this.queryApi("/auth/revoke?token=" + URLEncoder.encode(token, "ISO-8859-1"), null, Request.Method.GET, null, listener, errorListener);
+        return this.queryApi(Route.AUTH_REVOKE.format(token), null, Request.Method.GET, null, listener, errorListener);
     }
 
     /**
@@ -35,26 +35,48 @@ public class FigoError extends VolleyError {
 
     private final String error_code;
 
+    private final int status_code;
+
     public FigoError(String error_code, String error_message) {
+        this(error_code, error_message, 0);
+    }
+
+    /**
+     * @param status_code HTTP status of the response the error was decoded from
+     */
+    public FigoError(String error_code, String error_message, int status_code) {
         super(error_message);
 
         this.error_code = error_code;
+        this.status_code = status_code;
     }
 
     public FigoError(String error_code, String error_message, Throwable exc) {
         super(error_message, exc);
 
         this.error_code = error_code;
+        this.status_code = 0;
     }
 
     public FigoError(ErrorResponse response) {
-        this(response.getError(), response.getErrorDescription());
+        this(response, 0);
+    }
+
+    public FigoError(ErrorResponse response, int status_code) {
+        this(response.getError(), response.getErrorDescription(), status_code);
     }
 
     public String getErrorCode() {
         return error_code;
     }
 
+    /**
+     * @return HTTP status of the response the error was decoded from, or 0 if it was not reported by the server
+     */
+    public int getStatusCode() {
+        return status_code;
+    }
+
     public static class ErrorResponse {
         private String error;
         private String error_description;
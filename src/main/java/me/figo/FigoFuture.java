@@ -0,0 +1,279 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Future for the result of an asynchronous figo API call. It can be passed as listener and error listener to any
+ * FigoSession method, be joined with {@link #get()}, or be composed without blocking through
+ * {@link #addListener(Response.Listener, Response.ErrorListener)} and {@link #allAsList(List)}.
+ *
+ * Failures are reported as {@link ExecutionException} whose cause is the VolleyError, usually a {@link FigoError}.
+ * Cancelling the future cancels the underlying request and the futures registered through
+ * {@link #propagateCancel(Future)}; listeners are not notified in that case.
+ *
+ * @param <T> type of the result
+ */
+public class FigoFuture<T> implements Future<T>, Response.Listener<T>, Response.ErrorListener {
+
+    private final List<Response.Listener<? super T>> listeners = new ArrayList<Response.Listener<? super T>>();
+    private final List<Response.ErrorListener> errorListeners = new ArrayList<Response.ErrorListener>();
+    private final List<Future<?>> cancelTargets = new ArrayList<Future<?>>();
+    private Request<?> request;
+    private boolean done;
+    private boolean cancelled;
+    private T result;
+    private VolleyError error;
+
+    /**
+     * Bind the request producing the result of this future, so that cancelling the future also cancels the request
+     *
+     * @param request the request whose listeners deliver to this future
+     * @return this future
+     */
+    public FigoFuture<T> setRequest(Request<?> request) {
+        boolean cancelRequest;
+        synchronized (this) {
+            this.request = request;
+            cancelRequest = cancelled;
+        }
+        if (cancelRequest && request != null) {
+            request.cancel();
+        }
+        return this;
+    }
+
+    /**
+     * Cancel another future together with this one, e.g. a future which cannot complete without the result of this one
+     *
+     * @param other the future to cancel, right away if this future is already cancelled
+     * @return this future
+     */
+    public FigoFuture<T> propagateCancel(Future<?> other) {
+        synchronized (this) {
+            if (!done) {
+                cancelTargets.add(other);
+                return this;
+            }
+            if (!cancelled)
+                return this;
+        }
+        other.cancel(false);
+        return this;
+    }
+
+    @Override
+    public void onResponse(T response) {
+        complete(response, null);
+    }
+
+    @Override
+    public void onErrorResponse(VolleyError error) {
+        complete(null, error);
+    }
+
+    private void complete(T response, VolleyError failure) {
+        List<Response.Listener<? super T>> notifyListeners;
+        List<Response.ErrorListener> notifyErrorListeners;
+        synchronized (this) {
+            if (done)
+                return;
+
+            done = true;
+            result = response;
+            error = failure;
+            notifyAll();
+
+            notifyListeners = new ArrayList<Response.Listener<? super T>>(listeners);
+            notifyErrorListeners = new ArrayList<Response.ErrorListener>(errorListeners);
+            listeners.clear();
+            errorListeners.clear();
+            cancelTargets.clear();
+        }
+
+        if (failure == null) {
+            for (Response.Listener<? super T> listener : notifyListeners) {
+                listener.onResponse(response);
+            }
+        } else {
+            for (Response.ErrorListener errorListener : notifyErrorListeners) {
+                errorListener.onErrorResponse(failure);
+            }
+        }
+    }
+
+    /**
+     * Register listeners to be notified once the result is available. If the future is already completed, the matching
+     * listener is called immediately on the calling thread, otherwise on the thread delivering the response.
+     *
+     * @param listener      called with the result on success, may be null
+     * @param errorListener called with the error on failure, may be null
+     * @return this future
+     */
+    public FigoFuture<T> addListener(Response.Listener<? super T> listener, Response.ErrorListener errorListener) {
+        synchronized (this) {
+            if (!done) {
+                if (listener != null)
+                    listeners.add(listener);
+                if (errorListener != null)
+                    errorListeners.add(errorListener);
+                return this;
+            }
+            if (cancelled)
+                return this;
+        }
+
+        if (error == null) {
+            if (listener != null)
+                listener.onResponse(result);
+        } else if (errorListener != null) {
+            errorListener.onErrorResponse(error);
+        }
+        return this;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        Request<?> toCancel;
+        List<Future<?>> targets;
+        synchronized (this) {
+            if (done)
+                return false;
+
+            done = true;
+            cancelled = true;
+            toCancel = request;
+            targets = new ArrayList<Future<?>>(cancelTargets);
+            listeners.clear();
+            errorListeners.clear();
+            cancelTargets.clear();
+            notifyAll();
+        }
+
+        if (toCancel != null) {
+            toCancel.cancel();
+        }
+        for (Future<?> target : targets) {
+            target.cancel(mayInterruptIfRunning);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (!done) {
+            wait();
+        }
+        return report();
+    }
+
+    @Override
+    public synchronized T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!done) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+                throw new TimeoutException();
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return report();
+    }
+
+    private T report() throws ExecutionException {
+        if (cancelled)
+            throw new CancellationException();
+        if (error != null)
+            throw new ExecutionException(error);
+        return result;
+    }
+
+    /**
+     * Create a future which completes with the results of all given futures in the same order, or fails with the first
+     * error reported by any of them. It is cancelled when any of the given futures is cancelled, and cancelling it
+     * cancels all of them.
+     *
+     * @param futures the futures to combine
+     * @return a future of the list of results
+     */
+    public static <T> FigoFuture<List<T>> allAsList(List<? extends FigoFuture<? extends T>> futures) {
+        final FigoFuture<List<T>> combined = new FigoFuture<List<T>>();
+        final int count = futures.size();
+        final Object[] results = new Object[count];
+        final int[] pending = { count };
+
+        if (count == 0) {
+            combined.onResponse(Collections.<T>emptyList());
+            return combined;
+        }
+
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            FigoFuture<? extends T> future = futures.get(i);
+            combined.propagateCancel(future);
+            future.propagateCancel(combined);
+            future.addListener(new Response.Listener<T>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public void onResponse(T response) {
+                    List<T> list = null;
+                    synchronized (results) {
+                        results[index] = response;
+                        if (--pending[0] == 0) {
+                            list = new ArrayList<T>(count);
+                            for (Object result : results) {
+                                list.add((T) result);
+                            }
+                        }
+                    }
+                    if (list != null) {
+                        combined.onResponse(list);
+                    }
+                }
+            }, combined);
+        }
+        return combined;
+    }
+}
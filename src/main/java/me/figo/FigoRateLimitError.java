@@ -0,0 +1,59 @@
+package me.figo;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/***
+ * Error raised when the figo API rejected a request because the client or user exceeded its request quota (HTTP 429).
+ * The time the server asked to wait before sending further requests is available as {@link #getRetryAfter()}.
+ */
+public class FigoRateLimitError extends FigoError {
+
+    private static final long serialVersionUID = 5764520379174712043L;
+
+    private final long retryAfter;
+
+    /**
+     * @param retryAfter time to wait in milliseconds, or -1 if the server did not say
+     */
+    public FigoRateLimitError(long retryAfter) {
+        super("rate_limit_exceeded", "Too many requests, please try again later", 429);
+
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return time to wait in milliseconds before sending further requests, or -1 if the server did not say
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Parse the value of a Retry-After header, which is either a number of seconds or an HTTP date
+     *
+     * @param value the header value, may be null
+     * @return time to wait in milliseconds, or -1 if the value is missing or invalid
+     */
+    public static long parseRetryAfter(String value) {
+        if (value == null)
+            return -1;
+
+        value = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // not a number of seconds, try a date
+        }
+
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, format.parse(value).getTime() - System.currentTimeMillis());
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
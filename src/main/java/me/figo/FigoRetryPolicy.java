@@ -0,0 +1,208 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+
+/**
+ * Decides whether a failed figo API call is repeated and how long to wait before. Only idempotent methods (GET, PUT and
+ * DELETE) are retried, and only after errors which are safe to repeat: 5xx responses other than 501, timeouts and
+ * connection resets. The delay follows the "decorrelated jitter" scheme, i.e. it is drawn at random between the base
+ * delay and three times the previous delay, capped at the maximum delay.
+ *
+ * Every retry has to be paid for from a {@link RetryBudget}, which is refilled by a fraction of every new call. This
+ * bounds retries to a fixed share of the traffic, so that retries cannot multiply the load on a struggling server.
+ */
+public class FigoRetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    public static final long DEFAULT_BASE_DELAY = 100;
+    public static final long DEFAULT_MAX_DELAY = 5000;
+
+    /**
+     * Token bucket limiting the number of retries. It starts full, every call adds a fraction of a token and every retry
+     * takes a whole token.
+     */
+    public static class RetryBudget {
+
+        /**
+         * Budget shared by all policies which are not given their own one, allowing bursts of 10 retries and 10% retries
+         * in the long run
+         */
+        public static final RetryBudget GLOBAL = new RetryBudget(10, 0.1);
+
+        private final double maxTokens;
+        private final double tokensPerCall;
+        private double tokens;
+
+        /**
+         * @param maxTokens     maximum number of retries in a burst
+         * @param tokensPerCall share of a retry earned by every call
+         */
+        public RetryBudget(double maxTokens, double tokensPerCall) {
+            this.maxTokens = maxTokens;
+            this.tokensPerCall = tokensPerCall;
+            this.tokens = maxTokens;
+        }
+
+        /**
+         * Record a new call
+         */
+        public synchronized void onCall() {
+            tokens = Math.min(maxTokens, tokens + tokensPerCall);
+        }
+
+        /**
+         * Take the token for a retry
+         *
+         * @return false if the budget is exhausted and the call must not be retried
+         */
+        public synchronized boolean tryAcquire() {
+            if (tokens < 1)
+                return false;
+
+            tokens -= 1;
+            return true;
+        }
+
+        /**
+         * @return the number of retries currently available
+         */
+        public synchronized double getTokens() {
+            return tokens;
+        }
+    }
+
+    private final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final RetryBudget budget;
+    private final Random random = new Random();
+
+    /**
+     * Creates a policy with the default attempts and delays, drawing from the global budget
+     */
+    public FigoRetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, RetryBudget.GLOBAL);
+    }
+
+    /**
+     * Creates a policy
+     *
+     * @param maxAttempts maximum number of attempts per call, including the first one
+     * @param baseDelay   minimum delay between two attempts in milliseconds
+     * @param maxDelay    maximum delay between two attempts in milliseconds
+     * @param budget      budget paying for the retries
+     */
+    public FigoRetryPolicy(int maxAttempts, long baseDelay, long maxDelay, RetryBudget budget) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = Math.max(baseDelay, maxDelay);
+        this.budget = budget;
+    }
+
+    /**
+     * Record a new call, which refills the budget
+     */
+    public void onCall() {
+        budget.onCall();
+    }
+
+    /**
+     * @return whether a call which received the given status code should be attempted again
+     */
+    public boolean shouldRetry(String method, int attempt, int statusCode) {
+        return canRetry(method, attempt) && isRetryable(statusCode) && budget.tryAcquire();
+    }
+
+    /**
+     * @return whether a call which failed with the given exception should be attempted again
+     */
+    public boolean shouldRetry(String method, int attempt, IOException e) {
+        return canRetry(method, attempt) && isRetryable(e) && budget.tryAcquire();
+    }
+
+    /**
+     * @return whether the method may be retried at all after the given number of attempts
+     */
+    public boolean canRetry(String method, int attempt) {
+        return attempt < maxAttempts && isIdempotent(method);
+    }
+
+    /**
+     * @return whether repeating a request with the given method has the same effect as sending it once
+     */
+    public boolean isIdempotent(String method) {
+        return "GET".equals(method) || "PUT".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * @return whether the status code signals a temporary server problem
+     */
+    public boolean isRetryable(int statusCode) {
+        return statusCode >= 500 && statusCode != 501;
+    }
+
+    /**
+     * @return whether the exception signals a temporary network problem, i.e. a timeout or a reset connection
+     */
+    public boolean isRetryable(IOException e) {
+        return e instanceof SocketTimeoutException || e instanceof SocketException;
+    }
+
+    /**
+     * @param previousDelay the delay before the previous attempt, or 0 before the first retry
+     * @return the delay in milliseconds before the next attempt
+     */
+    public long nextDelay(long previousDelay) {
+        long upper = Math.min(maxDelay, Math.max(baseDelay, previousDelay * 3));
+        synchronized (random) {
+            return baseDelay + (long) (random.nextDouble() * (upper - baseDelay));
+        }
+    }
+
+    /**
+     * Wait before the next attempt
+     */
+    static void sleep(long delay) throws InterruptedIOException {
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+}
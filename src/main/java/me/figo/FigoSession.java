@@ -30,11 +30,11 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.net.HttpURLConnection;
-import java.net.URLEncoder;
 import java.util.List;
 
 import me.figo.internal.AccountOrderRequest;
 import me.figo.internal.FigoRequest;
+import me.figo.internal.Route;
 import me.figo.internal.SetupAccountRequest;
 import me.figo.internal.SubmitPaymentRequest;
 import me.figo.internal.SyncTokenRequest;
@@ -65,6 +65,8 @@ import java.util.Collections;
 /**
  * Main entry point to the data access-part of the figo connect java library.
  * Here you can retrieve all the data the user granted your app access to.
+ * Concurrent identical reads share one request and hand the same model objects and lists to all of their listeners,
+ * so results must not be modified in place.
  *
  * @author Stefan Richter
  */
@@ -116,6 +118,50 @@ public class FigoSession extends FigoApi {
         super(apiEndpoint, "Bearer " + accessToken, timeout, requestQueue);
     }
 
+    /**
+     * Creates a FigoSession instance
+     *
+     * @param accessToken
+     *            the access token to bind this session to a user
+     * @param transport
+     *            the transport executing the requests, e.g. a {@link UrlConnectionTransport} outside of Android
+     */
+    public FigoSession(String accessToken, FigoTransport transport) {
+        this(accessToken, 10000, "https://api.figo.me", transport);
+    }
+
+    /**
+     * Creates a FigoSession instance
+     *
+     * @param accessToken
+     *            the access token to bind this session to a user
+     * @param timeout
+     *            the timeout used for queries
+     * @param apiEndpoint
+     *            which endpoint to use (customize for different figo deployment)
+     * @param transport
+     *            the transport executing the requests, e.g. a {@link UrlConnectionTransport} outside of Android
+     */
+    public FigoSession(String accessToken, int timeout, String apiEndpoint, FigoTransport transport) {
+        super(apiEndpoint, "Bearer " + accessToken, timeout, transport);
+    }
+
+    FigoSession(String accessToken, int timeout, String apiEndpoint, FigoTransport transport, Shared shared) {
+        super(apiEndpoint, "Bearer " + accessToken, timeout, transport, shared);
+    }
+
+    /**
+     * Bind this session to a new access token, e.g. after refreshing the old one. Requests sent afterwards use the new
+     * token, requests already on the wire are not affected.
+     *
+     * @param accessToken
+     *            the new access token of the user
+     * @see TokenManager
+     */
+    public void setAccessToken(String accessToken) {
+        setAuthorization("Bearer " + accessToken);
+    }
+
     /**
      * Get the current figo Account
      *
@@ -156,7 +202,7 @@ public class FigoSession extends FigoApi {
             }
         };
 
-    	return this.queryApi("/rest/catalog/services/" + countryCode, null, Request.Method.GET, Service.ServiceResponse.class, wrapperListener, errorListener);
+    	return this.queryApi(Route.CATALOG_SERVICES.format(countryCode), null, Request.Method.GET, Service.ServiceResponse.class, wrapperListener, errorListener);
     }
 
     /**
@@ -166,7 +212,7 @@ public class FigoSession extends FigoApi {
      * @return LoginSettings
      */
     public FigoRequest getLoginSettings(String countryCode, String bankCode, Response.Listener<LoginSettings> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/catalog/banks/" + countryCode + "/" + bankCode, null, Request.Method.GET, LoginSettings.class, listener, errorListener);
+    	return this.queryApi(Route.CATALOG_BANK.format(countryCode, bankCode), null, Request.Method.GET, LoginSettings.class, listener, errorListener);
     }
 
     @Deprecated
@@ -244,7 +290,7 @@ public class FigoSession extends FigoApi {
      * @return Account or Null
      */
     public FigoRequest getAccount(String accountId, Response.Listener<Account> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId, null, Request.Method.GET, Account.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT.format(accountId), null, Request.Method.GET, Account.class, listener, errorListener);
     }
 
     /**
@@ -255,7 +301,7 @@ public class FigoSession extends FigoApi {
      * @return Account object for the updated account returned by server
      */
     public FigoRequest updateAccount(Account account, Response.Listener<Account> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + account.getAccountId(), account, Request.Method.PUT, Account.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT.format(account.getAccountId()), account, Request.Method.PUT, Account.class, listener, errorListener);
     }
 
     /**
@@ -265,7 +311,7 @@ public class FigoSession extends FigoApi {
      *            ID of the account to be removed
      */
     public FigoRequest removeAccount(String accountId, Response.Listener<Void> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId, null, Request.Method.DELETE, null, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT.format(accountId), null, Request.Method.DELETE, null, listener, errorListener);
     }
 
     /**
@@ -286,7 +332,7 @@ public class FigoSession extends FigoApi {
      * @return AccountBalance or Null
      */
     public FigoRequest getAccountBalance(String accountId, Response.Listener<AccountBalance> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId + "/balance", null, Request.Method.GET, AccountBalance.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_BALANCE.format(accountId), null, Request.Method.GET, AccountBalance.class, listener, errorListener);
     }
 
     /**
@@ -310,7 +356,7 @@ public class FigoSession extends FigoApi {
      * @return AccountBalance object for the updated account as returned by the server
      */
     public FigoRequest updateAccountBalance(String accountId, AccountBalance accountBalance, Response.Listener<AccountBalance> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId + "/balance", accountBalance, Request.Method.PUT, AccountBalance.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_BALANCE.format(accountId), accountBalance, Request.Method.PUT, AccountBalance.class, listener, errorListener);
     }
 
     /**
@@ -403,24 +449,7 @@ public class FigoSession extends FigoApi {
      * @return an array of Transaction objects
      */
     public FigoRequest getTransactions(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending, final Response.Listener<List<Transaction>> listener, Response.ErrorListener errorListener) throws UnsupportedEncodingException {
-        String path = "";
-        if (accountId == null) {
-            path += "/rest/transactions?";
-        } else {
-            path += "/rest/accounts/" + accountId + "/transactions?";
-        }
-        if (since != null) {
-            path += "since=" + URLEncoder.encode(since, "ISO-8859-1") + "&";
-        }
-        if (count != null) {
-            path += "count=" + count + "&";
-        }
-        if (offset != null) {
-            path += "offset=" + offset + "&";
-        }
-        if (include_pending != null) {
-            path += "include_pending=" + (include_pending == PendingTransactions.INCLUDED ? "1" : "0");
-        }
+        String path = getTransactionsPath(accountId, since, count, offset, include_pending);
 
         Response.Listener<Transaction.TransactionsResponse> wrapperListener = new Response.Listener<Transaction.TransactionsResponse>() {
             @Override
@@ -432,6 +461,18 @@ public class FigoSession extends FigoApi {
         return this.queryApi(path, null, Request.Method.GET, Transaction.TransactionsResponse.class, wrapperListener, errorListener);
     }
 
+    /**
+     * Build the path for a transaction listing. Provide null values to not use the option.
+     */
+    static String getTransactionsPath(String accountId, String since, Integer count, Integer offset, PendingTransactions include_pending) {
+        Route.Builder path = accountId == null ? Route.TRANSACTIONS.start() : Route.ACCOUNT_TRANSACTIONS.start(accountId);
+        return path.param("since", since)
+                .param("count", count)
+                .param("offset", offset)
+                .param("include_pending", include_pending == null ? null : Boolean.valueOf(include_pending == PendingTransactions.INCLUDED))
+                .toString();
+    }
+
     /**
      * Retrieve a specific transaction by ID
      *
@@ -442,7 +483,7 @@ public class FigoSession extends FigoApi {
      * @return Transaction or null
      */
     public FigoRequest getTransaction(String accountId, String transactionId, Response.Listener<Transaction> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId + "/transactions/" + transactionId, null, Request.Method.GET, Transaction.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_TRANSACTION.format(accountId, transactionId), null, Request.Method.GET, Transaction.class, listener, errorListener);
     }
 
     /**
@@ -453,7 +494,7 @@ public class FigoSession extends FigoApi {
      * 				new value for the visited field
      */
     public FigoRequest modifyTransaction(Transaction transaction, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + transaction.getAccountId() + "/transactions/" + transaction.getTransactionId(), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_TRANSACTION.format(transaction.getAccountId(), transaction.getTransactionId()), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
 
@@ -474,7 +515,7 @@ public class FigoSession extends FigoApi {
      * 			new value for the visited field
      */
     public FigoRequest modifyTransactions(Account account, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + account.getAccountId() + "/transactions", new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_TRANSACTIONS.format(account.getAccountId()), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
     /**
@@ -485,7 +526,7 @@ public class FigoSession extends FigoApi {
      * 			new value for the visited field
      */
     public FigoRequest modifyTransactions(String accountId, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + accountId + "/transactions", new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_TRANSACTIONS.format(accountId), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
     /**
@@ -494,7 +535,7 @@ public class FigoSession extends FigoApi {
      * 				transaction which will be removed
      */
     public FigoRequest removeTransaction(Transaction transaction, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + transaction.getAccountId() + "/transactions/" + transaction.getTransactionId(), null, Request.Method.DELETE, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_TRANSACTION.format(transaction.getAccountId(), transaction.getTransactionId()), null, Request.Method.DELETE, null, listener, errorListener);
     }
 
     /**
@@ -505,12 +546,7 @@ public class FigoSession extends FigoApi {
      * @return an array of Standing Order objects
      */
     public FigoRequest getStandingOrders(String accountId, final Response.Listener<List<StandingOrder>> listener, Response.ErrorListener errorListener)  {
-        String path = "";
-        if (accountId == null) {
-            path += "/rest/standing_orders";
-        } else {
-            path += "/rest/accounts/" + accountId + "/standing_orders";
-        }
+        String path = accountId == null ? "/rest/standing_orders" : Route.ACCOUNT_STANDING_ORDERS.format(accountId);
 
         Response.Listener<StandingOrder.StandingOrdersResponse> wrapperListener = new Response.Listener<StandingOrder.StandingOrdersResponse>() {
             @Override
@@ -541,7 +577,7 @@ public class FigoSession extends FigoApi {
      * @return Standing Order or null
      */
     public FigoRequest getStandingOrder(String accountId, String standingOrderId, Response.Listener<StandingOrder> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/accounts/" + accountId + "/standing_orders/" + standingOrderId, null, Request.Method.GET, StandingOrder.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_STANDING_ORDER.format(accountId, standingOrderId), null, Request.Method.GET, StandingOrder.class, listener, errorListener);
     }
 
     /**
@@ -553,7 +589,7 @@ public class FigoSession extends FigoApi {
      * @return	Security or null
      */
     public FigoRequest getSecurity(String accountId, String securityId, Response.Listener<Security> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + accountId + "/securities/" + securityId, null, Request.Method.GET, Security.class, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITY.format(accountId, securityId), null, Request.Method.GET, Security.class, listener, errorListener);
     }
 
     /**
@@ -565,7 +601,7 @@ public class FigoSession extends FigoApi {
      * @return	Security or null
      */
     public FigoRequest getSecurity(Account account, String securityId, Response.Listener<Security> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + account.getAccountId() + "/securities/" + securityId, null, Request.Method.GET, Security.class, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITY.format(account.getAccountId(), securityId), null, Request.Method.GET, Security.class, listener, errorListener);
     }
 
     /**
@@ -596,7 +632,7 @@ public class FigoSession extends FigoApi {
             }
         };
 
-    	return this.queryApi("/rest/accounts/" + account.getAccountId() + "/securities", null, Request.Method.GET, Security.SecurityResponse.class, wrapperListener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITIES.format(account.getAccountId()), null, Request.Method.GET, Security.SecurityResponse.class, wrapperListener, errorListener);
     }
 
     /**
@@ -612,7 +648,7 @@ public class FigoSession extends FigoApi {
             }
         };
 
-    	return this.queryApi("/rest/accounts/" + accountId + "/securities", null, Request.Method.GET, Security.SecurityResponse.class, wrapperListener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITIES.format(accountId), null, Request.Method.GET, Security.SecurityResponse.class, wrapperListener, errorListener);
     }
 
     /**
@@ -623,7 +659,7 @@ public class FigoSession extends FigoApi {
      * 			new value for the visited field
      */
     public FigoRequest modifySecurity(Security security, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + security.getAccountId() + "/securities/" + security.getSecurityId(), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITY.format(security.getAccountId(), security.getSecurityId()), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
     /**
@@ -643,7 +679,7 @@ public class FigoSession extends FigoApi {
      * 			new value for the visited field
      */
     public FigoRequest modifySecurities(Account account, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + account.getAccountId() + "/securities", new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITIES.format(account.getAccountId()), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
     /**
@@ -654,7 +690,7 @@ public class FigoSession extends FigoApi {
      * 			new value for the visited field
      */
     public FigoRequest modifySecurities(String accountId, FieldVisited visited, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/rest/accounts/" + accountId + "/securities", new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_SECURITIES.format(accountId), new VisitedRequest(visited == FieldVisited.VISITED), Request.Method.PUT, null, listener, errorListener);
     }
 
     /**
@@ -665,7 +701,7 @@ public class FigoSession extends FigoApi {
      * @return Bank or null
      */
     public FigoRequest getBank(String bankId, Response.Listener<Bank> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/banks/" + bankId, null, Request.Method.GET, Bank.class, listener, errorListener);
+        return this.queryApi(Route.BANK.format(bankId), null, Request.Method.GET, Bank.class, listener, errorListener);
     }
 
     /**
@@ -687,7 +723,7 @@ public class FigoSession extends FigoApi {
      * @return Bank object for the updated bank
      */
     public FigoRequest updateBank(Bank bank, Response.Listener<Bank> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/banks/" + bank.getBankId(), bank, Request.Method.PUT, Bank.class, listener, errorListener);
+        return this.queryApi(Route.BANK.format(bank.getBankId()), bank, Request.Method.PUT, Bank.class, listener, errorListener);
     }
 
     /**
@@ -697,7 +733,7 @@ public class FigoSession extends FigoApi {
      *            ID of the bank whose pin should be removed
      */
     public FigoRequest removeBankPin(String bankId, Response.Listener<Void> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/banks/" + bankId + "/remove_pin", null, Request.Method.POST, null, listener, errorListener);
+        return this.queryApi(Route.BANK_REMOVE_PIN.format(bankId), null, Request.Method.POST, null, listener, errorListener);
     }
 
     /**
@@ -734,7 +770,7 @@ public class FigoSession extends FigoApi {
      * @return Notification or Null
      */
     public FigoRequest getNotification(String notificationId, Response.Listener<Notification> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/notifications/" + notificationId, null, Request.Method.GET, Notification.class, listener, errorListener);
+        return this.queryApi(Route.NOTIFICATION.format(notificationId), null, Request.Method.GET, Notification.class, listener, errorListener);
     }
 
     /**
@@ -755,7 +791,7 @@ public class FigoSession extends FigoApi {
      *            Notification with updated values
      */
     public FigoRequest updateNotification(Notification notification, Response.Listener<Notification> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/notifications/" + notification.getNotificationId(), notification, Request.Method.PUT, Notification.class, listener, errorListener);
+        return this.queryApi(Route.NOTIFICATION.format(notification.getNotificationId()), notification, Request.Method.PUT, Notification.class, listener, errorListener);
     }
 
     /**
@@ -765,7 +801,7 @@ public class FigoSession extends FigoApi {
      *            Notification to be removed
      */
     public FigoRequest removeNotification(Notification notification, Response.Listener<Void> listener, Response.ErrorListener errorListener)  {
-        return this.queryApi("/rest/notifications/" + notification.getNotificationId(), null, Request.Method.DELETE, null, listener, errorListener);
+        return this.queryApi(Route.NOTIFICATION.format(notification.getNotificationId()), null, Request.Method.DELETE, null, listener, errorListener);
     }
 
     /**
@@ -799,7 +835,7 @@ public class FigoSession extends FigoApi {
             }
         };
 
-        return this.queryApi("/rest/accounts/" + accountId + "/payments", null, Request.Method.GET, Payment.PaymentsResponse.class, wrapperListener, errorListener);
+        return this.queryApi(Route.ACCOUNT_PAYMENTS.format(accountId), null, Request.Method.GET, Payment.PaymentsResponse.class, wrapperListener, errorListener);
     }
 
     /**
@@ -823,7 +859,7 @@ public class FigoSession extends FigoApi {
      * @return Payment or Null
      */
     public FigoRequest getPayment(String accountId, String paymentId, Response.Listener<Payment> listener, Response.ErrorListener errorListener) {
-        return this.queryApi("/rest/accounts/" + accountId + "/payments/" + paymentId, null, Request.Method.GET, Payment.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_PAYMENT.format(accountId, paymentId), null, Request.Method.GET, Payment.class, listener, errorListener);
     }
 
     /**
@@ -847,11 +883,11 @@ public class FigoSession extends FigoApi {
      * @return the newly created payment
      */
     public FigoRequest addPayment(Payment payment, Response.Listener<Payment> listener, Response.ErrorListener errorListener) {
-        return this.queryApi("/rest/accounts/" + payment.getAccountId() + "/payments", payment, Request.Method.POST, Payment.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_PAYMENTS.format(payment.getAccountId()), payment, Request.Method.POST, Payment.class, listener, errorListener);
     }
 
     public FigoRequest addContainerPayment(PaymentContainer container, Response.Listener<PaymentContainer> listener, Response.ErrorListener errorListener) {
-    	return this.queryApi("/rest/accounts/" + container.getAccountId() + "/payments", container, Request.Method.POST, PaymentContainer.class, listener, errorListener);
+    	return this.queryApi(Route.ACCOUNT_PAYMENTS.format(container.getAccountId()), container, Request.Method.POST, PaymentContainer.class, listener, errorListener);
     }
 
     /**
@@ -876,7 +912,7 @@ public class FigoSession extends FigoApi {
      * @return updated Payment as returned by the server
      */
     public FigoRequest updatePayment(Payment payment, Response.Listener<Payment> listener, Response.ErrorListener errorListener) {
-        return this.queryApi("/rest/accounts/" + payment.getAccountId() + "/payments/" + payment.getPaymentId(), payment, Request.Method.PUT, Payment.class, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_PAYMENT.format(payment.getAccountId(), payment.getPaymentId()), payment, Request.Method.PUT, Payment.class, listener, errorListener);
     }
 
     /**
@@ -886,7 +922,7 @@ public class FigoSession extends FigoApi {
      *            payment to be removed
      */
     public FigoRequest removePayment(Payment payment, Response.Listener<Void> listener, Response.ErrorListener errorListener) {
-        return this.queryApi("/rest/accounts/" + payment.getAccountId() + "/payments/" + payment.getPaymentId(), null, Request.Method.DELETE, null, listener, errorListener);
+        return this.queryApi(Route.ACCOUNT_PAYMENT.format(payment.getAccountId(), payment.getPaymentId()), null, Request.Method.DELETE, null, listener, errorListener);
     }
 
     /**
@@ -921,11 +957,11 @@ public class FigoSession extends FigoApi {
         Response.Listener<TaskTokenResponse> wrapperListener = new Response.Listener<TaskTokenResponse>() {
             @Override
             public void onResponse(TaskTokenResponse response) {
-                listener.onResponse(getApiEndpoint() + "/task/start?id=" + response.task_token);
+                listener.onResponse(getApiEndpoint() + Route.TASK_START.format(response.task_token));
             }
         };
 
-        return this.queryApi("/rest/accounts/" + payment.getAccountId() + "/payments/" + payment.getPaymentId() + "/submit",
+        return this.queryApi(Route.ACCOUNT_PAYMENT_SUBMIT.format(payment.getAccountId(), payment.getPaymentId()),
                 new SubmitPaymentRequest(tanSchemeId, state, redirectUri), Request.Method.POST, TaskTokenResponse.class, wrapperListener, errorListener);
     }
 
@@ -944,7 +980,7 @@ public class FigoSession extends FigoApi {
         Response.Listener<TaskTokenResponse> wrapperListener = new Response.Listener<TaskTokenResponse>() {
             @Override
             public void onResponse(TaskTokenResponse response) {
-                listener.onResponse(getApiEndpoint() + "/task/start?id=" + response.task_token);
+                listener.onResponse(getApiEndpoint() + Route.TASK_START.format(response.task_token));
             }
         };
 
@@ -968,7 +1004,7 @@ public class FigoSession extends FigoApi {
         Response.Listener<TaskTokenResponse> wrapperListener = new Response.Listener<TaskTokenResponse>() {
             @Override
             public void onResponse(TaskTokenResponse response) {
-                listener.onResponse(getApiEndpoint() + "/task/start?id=" + response.task_token);
+                listener.onResponse(getApiEndpoint() + Route.TASK_START.format(response.task_token));
             }
         };
 
@@ -982,7 +1018,7 @@ public class FigoSession extends FigoApi {
      * @return	A TaskStatusResponse Object with information about the task.
      */
     public FigoRequest getTaskState(String tokenId, Response.Listener<TaskStatusResponse> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/progress?id=" + tokenId, new TaskStatusRequest(tokenId), Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
+    	return this.queryApi(Route.TASK_PROGRESS.format(tokenId), new TaskStatusRequest(tokenId), Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
     }
 
     @Deprecated
@@ -995,7 +1031,7 @@ public class FigoSession extends FigoApi {
      * @return A TaskStatusResponse Object with information about the task.
      */
     public FigoRequest getTaskState(String tokenId, String pin, Response.Listener<TaskStatusResponse> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/progress?id=" + tokenId, new TaskStatusRequest(tokenId, pin), Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
+    	return this.queryApi(Route.TASK_PROGRESS.format(tokenId), new TaskStatusRequest(tokenId, pin), Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
     }
 
     public FigoRequest submitResponseToTask(String tokenId, String response, TaskResponseType type, Response.Listener<TaskStatusResponse> listener, Response.ErrorListener errorListener) 	{
@@ -1026,7 +1062,7 @@ public class FigoSession extends FigoApi {
 		default:
 			break;
 		}
-    	return this.queryApi("/task/progress?id=" + tokenId, request, Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
+    	return this.queryApi(Route.TASK_PROGRESS.format(tokenId), request, Request.Method.POST, TaskStatusResponse.class, listener, errorListener);
     }
 
     public FigoRequest submitResponseToTask(TaskTokenResponse tokenResponse, String response, TaskResponseType type, Response.Listener<TaskStatusResponse> listener, Response.ErrorListener errorListener) 	{
@@ -1049,7 +1085,7 @@ public class FigoSession extends FigoApi {
      * 				TokenResponse Object
      */
     public FigoRequest startTask(TaskTokenResponse tokenResponse, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/start?id=" + tokenResponse.task_token, null, Request.Method.GET, null, listener, errorListener);
+    	return this.queryApi(Route.TASK_START.format(tokenResponse.task_token), null, Request.Method.GET, null, listener, errorListener);
     }
 
     /**
@@ -1058,7 +1094,7 @@ public class FigoSession extends FigoApi {
      * 				Token ID
      */
     public FigoRequest startTask(String taskToken, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/start?id=" + taskToken, null, Request.Method.GET, null, listener, errorListener);
+    	return this.queryApi(Route.TASK_START.format(taskToken), null, Request.Method.GET, null, listener, errorListener);
     }
 
     /**
@@ -1067,7 +1103,7 @@ public class FigoSession extends FigoApi {
      * 				Token Response Object
      */
     public FigoRequest cancelTask(TaskTokenResponse tokenResponse, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/cancel?id=" + tokenResponse.task_token, null, Request.Method.POST, null, listener, errorListener);
+    	return this.queryApi(Route.TASK_CANCEL.format(tokenResponse.task_token), null, Request.Method.POST, null, listener, errorListener);
     }
 
     /**
@@ -1076,7 +1112,7 @@ public class FigoSession extends FigoApi {
      * 				Token ID
      */
     public FigoRequest cancelTask(String taskToken, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
-    	return this.queryApi("/task/cancel?id=" + taskToken, null, Request.Method.POST, null, listener, errorListener);
+    	return this.queryApi(Route.TASK_CANCEL.format(taskToken), null, Request.Method.POST, null, listener, errorListener);
     }
 
     public FigoRequest startProcess(ProcessToken processToken, Response.Listener<Void> listener, Response.ErrorListener errorListener) 	{
@@ -1092,6 +1128,7 @@ public class FigoSession extends FigoApi {
         // process response
         int code = connection.getResponseCode();
         if (code == 404) {
+            discard(connection.getErrorStream());
             return null;
         }
         return super.processResponse(connection, typeOfT);
@@ -0,0 +1,141 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.RequestQueue;
+
+/**
+ * Creates sessions for many users of one client. All sessions share the transport with its threads and connections, the
+ * Gson instance, the SSL socket factory and its TLS session cache, the retry policy, and the circuit breakers and
+ * bulkheads of the endpoint groups, so a session itself only holds the access token of its user and the prepared
+ * headers of its requests. Concurrent identical GET requests of the same user are coalesced across sessions.
+ *
+ * The rate limiter and the response store configured on the factory are installed on every session created afterwards.
+ */
+public class FigoSessionFactory {
+
+    private final String apiEndpoint;
+    private final int timeout;
+    private final FigoTransport transport;
+    private final FigoApi.Shared shared = new FigoApi.Shared();
+    private volatile RateLimiter rateLimiter;
+    private volatile ResponseStore responseStore;
+
+    /**
+     * Creates a FigoSessionFactory instance
+     *
+     * @param requestQueue
+     *            the Volley queue executing the requests of all sessions
+     */
+    public FigoSessionFactory(RequestQueue requestQueue) {
+        this(new VolleyTransport(requestQueue));
+    }
+
+    /**
+     * Creates a FigoSessionFactory instance
+     *
+     * @param transport
+     *            the transport executing the requests of all sessions, e.g. a {@link UrlConnectionTransport} outside of
+     *            Android
+     */
+    public FigoSessionFactory(FigoTransport transport) {
+        this(10000, "https://api.figo.me", transport);
+    }
+
+    /**
+     * Creates a FigoSessionFactory instance
+     *
+     * @param timeout
+     *            the timeout used for queries
+     * @param apiEndpoint
+     *            which endpoint to use (customize for different figo deployment)
+     * @param transport
+     *            the transport executing the requests of all sessions, e.g. a {@link UrlConnectionTransport} outside of
+     *            Android
+     */
+    public FigoSessionFactory(int timeout, String apiEndpoint, FigoTransport transport) {
+        this.timeout = timeout;
+        this.apiEndpoint = apiEndpoint;
+        this.transport = transport;
+    }
+
+    /**
+     * Creates a session for a user
+     *
+     * @param accessToken
+     *            the access token to bind the session to a user
+     * @return new session sharing the state of this factory
+     */
+    public FigoSession createSession(String accessToken) {
+        FigoSession session = new FigoSession(accessToken, timeout, apiEndpoint, transport, shared);
+        session.setRateLimiter(rateLimiter);
+        session.setResponseStore(responseStore);
+        return session;
+    }
+
+    /**
+     * Creates a session for a user whose access token is kept valid by a token manager
+     *
+     * @param tokenManager
+     *            the manager refreshing the token of the user
+     * @return new session sharing the state of this factory, attached to the token manager
+     */
+    public FigoSession createSession(TokenManager tokenManager) {
+        return tokenManager.attach(createSession(tokenManager.getAccessToken()));
+    }
+
+    public String getApiEndpoint() {
+        return apiEndpoint;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+
+    public FigoTransport getTransport() {
+        return transport;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    /**
+     * @param rateLimiter the rate limiter installed on sessions created afterwards, or null to not limit requests
+     */
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public ResponseStore getResponseStore() {
+        return responseStore;
+    }
+
+    /**
+     * @param responseStore the response store installed on sessions created afterwards, or null to not store responses
+     */
+    public void setResponseStore(ResponseStore responseStore) {
+        this.responseStore = responseStore;
+    }
+}
@@ -0,0 +1,41 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import me.figo.internal.FigoRequest;
+
+/**
+ * Transport which executes the requests issued by a {@link FigoApi}. The default transport enqueues them on a Volley
+ * RequestQueue, see {@link VolleyTransport}; {@link UrlConnectionTransport} runs them without Volley, e.g. on a server JVM.
+ */
+public interface FigoTransport {
+
+    /**
+     * Execute a request asynchronously. The result or error has to be delivered to the request's listeners.
+     *
+     * @param api     the API instance issuing the request, providing timeout and SSL setup
+     * @param request the request to be executed
+     */
+    <T> void enqueue(FigoApi api, FigoRequest<T> request);
+}
@@ -0,0 +1,239 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ResponseStore keeping one file per entry in a directory, so that stored responses survive restarts. File names are
+ * hashes of the keys, which keeps the user identity contained in the keys out of the file system. Entries which cannot
+ * be read are treated as missing.
+ *
+ * Once the files exceed the maximum size, the least recently used ones are deleted, judged by their modification time
+ * which is updated on every hit.
+ */
+public class FileResponseStore implements ResponseStore {
+
+    public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+    private static final int VERSION = 1;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final File directory;
+    private final long maxSize;
+    // approximate total size of the entries, recomputed whenever entries are evicted
+    private long size;
+
+    /**
+     * Creates a store in the given directory holding up to {@value #DEFAULT_MAX_SIZE} bytes
+     *
+     * @param directory directory holding the entries, created if necessary
+     */
+    public FileResponseStore(File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Creates a store in the given directory
+     *
+     * @param directory directory holding the entries, created if necessary
+     * @param maxSize   total size of the files in bytes after which the least recently used entries are evicted
+     */
+    public FileResponseStore(File directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        directory.mkdirs();
+        this.size = trim(Long.MAX_VALUE);
+    }
+
+    @Override
+    public Entry get(String key) {
+        File file = getFile(key);
+        if (!file.isFile())
+            return null;
+
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            try {
+                if (in.readInt() != VERSION)
+                    return null;
+                String etag = in.readBoolean() ? in.readUTF() : null;
+                String lastModified = in.readBoolean() ? in.readUTF() : null;
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                file.setLastModified(System.currentTimeMillis());
+                return new Entry(etag, lastModified, data);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, Entry entry) {
+        File file = getFile(key);
+        File temp = new File(directory, file.getName() + TEMP_SUFFIX + Thread.currentThread().getId());
+        long previous = file.length();
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            try {
+                out.writeInt(VERSION);
+                writeOptional(out, entry.getEtag());
+                writeOptional(out, entry.getLastModified());
+                out.writeInt(entry.getData().length);
+                out.write(entry.getData());
+            } finally {
+                out.close();
+            }
+
+            // replace the old entry in one step, so that readers never see a partially written file
+            if (!temp.renameTo(file)) {
+                file.delete();
+                if (!temp.renameTo(file))
+                    temp.delete();
+            }
+            grow(file.length() - previous);
+        } catch (IOException e) {
+            // the store is only an optimization, the response is simply fetched again next time
+            temp.delete();
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        File file = getFile(key);
+        long length = file.length();
+        if (file.delete())
+            grow(-length);
+    }
+
+    private void grow(long delta) {
+        synchronized (this) {
+            size += delta;
+            if (size <= maxSize)
+                return;
+        }
+        long remaining = trim(maxSize);
+        synchronized (this) {
+            size = remaining;
+        }
+    }
+
+    /**
+     * Delete the least recently used entries until the remaining ones fit into the given size, as well as temporary
+     * files left behind by an earlier process
+     *
+     * @return total size of the remaining entries
+     */
+    private long trim(long limit) {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return 0;
+
+        long total = 0;
+        List<File> entries = new ArrayList<File>(files.length);
+        for (File file : files) {
+            if (file.getName().contains(TEMP_SUFFIX)) {
+                // files still being written are younger than a minute
+                if (System.currentTimeMillis() - file.lastModified() > 60000)
+                    file.delete();
+            } else if (file.isFile()) {
+                entries.add(file);
+                total += file.length();
+            }
+        }
+        if (total <= limit)
+            return total;
+
+        final Map<File, Long> lastUsed = new HashMap<File, Long>();
+        for (File file : entries) {
+            lastUsed.put(file, file.lastModified());
+        }
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long x = lastUsed.get(a);
+                long y = lastUsed.get(b);
+                return x < y ? -1 : x == y ? 0 : 1;
+            }
+        });
+        for (File file : entries) {
+            if (total <= limit)
+                break;
+            long length = file.length();
+            if (file.delete())
+                total -= length;
+        }
+        return total;
+    }
+
+    private File getFile(String key) {
+        return new File(directory, hash(key));
+    }
+
+    /**
+     * Hex encoded SHA-256 digest of a key. DigestUtils is not used, as Android up to API 22 bundles an old commons-codec
+     * without sha256Hex on the boot classpath.
+     */
+    private static String hash(String key) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(Charset.forName("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+}
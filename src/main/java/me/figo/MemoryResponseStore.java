@@ -0,0 +1,73 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ResponseStore keeping the most recently used entries in memory
+ */
+public class MemoryResponseStore implements ResponseStore {
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a store holding up to {@value #DEFAULT_MAX_ENTRIES} entries
+     */
+    public MemoryResponseStore() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a store holding up to the given number of entries
+     *
+     * @param maxEntries the number of entries after which the least recently used one is evicted
+     */
+    public MemoryResponseStore(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResponseStore.Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    @Override
+    public synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+}
@@ -0,0 +1,210 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client side rate limiter keeping the requests of an application within the figo API quotas. It combines a token
+ * bucket for the whole client with one bucket per user, and pauses all requests for the interval the server asked for
+ * when it answers with HTTP 429 anyway.
+ *
+ * Requests are not rejected but delayed: the blocking calls of {@link FigoApi} wait on the calling thread, asynchronous
+ * calls are handed to the transport once their turn has come. One limiter should be shared by all {@link FigoSession}s
+ * and the {@link FigoConnection} of a client ID, see {@link #forClient(String)}, and installed with
+ * {@link FigoApi#setRateLimiter(RateLimiter)}.
+ */
+public class RateLimiter {
+
+    public static final double DEFAULT_CLIENT_RATE = 20;
+    public static final int DEFAULT_CLIENT_BURST = 40;
+    public static final double DEFAULT_USER_RATE = 5;
+    public static final int DEFAULT_USER_BURST = 10;
+    public static final long DEFAULT_PAUSE = 1000;
+    private static final int MAX_USERS = 1024;
+
+    private static final Map<String, RateLimiter> CLIENTS = new HashMap<String, RateLimiter>();
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Token bucket refilled continuously at a fixed rate. Tokens may be reserved ahead of time, which makes the bucket go
+     * negative and delays the following reservations accordingly.
+     */
+    private static class TokenBucket {
+
+        private final double tokensPerMilli;
+        private final double capacity;
+        private double tokens;
+        private long updated;
+
+        TokenBucket(double ratePerSecond, int burst, long now) {
+            this.tokensPerMilli = ratePerSecond / 1000;
+            this.capacity = burst;
+            this.tokens = burst;
+            this.updated = now;
+        }
+
+        /**
+         * @return the time in milliseconds until the reserved token is available
+         */
+        long reserve(long now) {
+            tokens = Math.min(capacity, tokens + (now - updated) * tokensPerMilli);
+            updated = now;
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerMilli);
+        }
+    }
+
+    private final double userRate;
+    private final int userBurst;
+    private final TokenBucket clientBucket;
+    private final Map<String, TokenBucket> userBuckets = new LinkedHashMap<String, TokenBucket>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest) {
+            return size() > MAX_USERS;
+        }
+    };
+    private long pausedUntil;
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    /**
+     * Creates a rate limiter with the default rates
+     */
+    public RateLimiter() {
+        this(DEFAULT_CLIENT_RATE, DEFAULT_CLIENT_BURST, DEFAULT_USER_RATE, DEFAULT_USER_BURST);
+    }
+
+    /**
+     * Creates a rate limiter
+     *
+     * @param clientRate requests per second allowed for the whole client
+     * @param clientBurst requests the client may send at once after being idle
+     * @param userRate requests per second allowed for a single user
+     * @param userBurst requests a single user may send at once after being idle
+     */
+    public RateLimiter(double clientRate, int clientBurst, double userRate, int userBurst) {
+        this.clientBucket = new TokenBucket(clientRate, clientBurst, System.currentTimeMillis());
+        this.userRate = userRate;
+        this.userBurst = userBurst;
+    }
+
+    /**
+     * The rate limiter shared by everything using the given client ID, created with the default rates on first use
+     *
+     * @param clientId the OAuth Client ID
+     * @return rate limiter of the client
+     */
+    public static RateLimiter forClient(String clientId) {
+        synchronized (CLIENTS) {
+            RateLimiter limiter = CLIENTS.get(clientId);
+            if (limiter == null) {
+                limiter = new RateLimiter();
+                CLIENTS.put(clientId, limiter);
+            }
+            return limiter;
+        }
+    }
+
+    /**
+     * Reserve the right to send a request
+     *
+     * @param user key of the user sending the request, which stays the same when its access token is refreshed, or null
+     *             for requests not bound to a user
+     * @return time in milliseconds the request has to wait before being sent
+     */
+    public synchronized long reserve(String user) {
+        long now = System.currentTimeMillis();
+        long wait = Math.max(clientBucket.reserve(now), pausedUntil - now);
+        if (user != null) {
+            TokenBucket bucket = userBuckets.get(user);
+            if (bucket == null) {
+                bucket = new TokenBucket(userRate, userBurst, now);
+                userBuckets.put(user, bucket);
+            }
+            wait = Math.max(wait, bucket.reserve(now));
+        }
+
+        if (wait > 0)
+            delayed.incrementAndGet();
+        return Math.max(0, wait);
+    }
+
+    /**
+     * Hold back all requests for the given time, e.g. after the server answered with HTTP 429
+     *
+     * @param millis time to pause in milliseconds, or a negative value for the default pause
+     */
+    public synchronized void pause(long millis) {
+        rateLimited.incrementAndGet();
+        pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + (millis < 0 ? DEFAULT_PAUSE : millis));
+    }
+
+    /**
+     * Run a task after the given delay on a shared daemon thread
+     */
+    static void schedule(Runnable task, long delay) {
+        synchronized (CLIENTS) {
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "figo-rate-limiter");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+        }
+        scheduler.schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return whether requests are currently held back because the server asked to
+     */
+    public synchronized boolean isPaused() {
+        return pausedUntil > System.currentTimeMillis();
+    }
+
+    /**
+     * @return number of requests which had to wait so far
+     */
+    public long getDelayedCount() {
+        return delayed.get();
+    }
+
+    /**
+     * @return number of HTTP 429 responses received so far
+     */
+    public long getRateLimitedCount() {
+        return rateLimited.get();
+    }
+}
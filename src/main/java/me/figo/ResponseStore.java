@@ -0,0 +1,83 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+/**
+ * Local store for the JSON bodies of cacheable API resources (accounts, balances, transactions, securities and standing
+ * orders). Stored bodies are revalidated with If-None-Match or If-Modified-Since, so unchanged resources are served
+ * locally after a 304 response and only changed ones are transferred again.
+ *
+ * Implementations have to be thread-safe. Keys already identify the user, either by the authorization a session was
+ * created with or by the user ID passed to {@link FigoApi#setResponseStore(ResponseStore, String)}, so a store can be
+ * shared by sessions of different users. Implementations should bound their size, as entries of former logins are never
+ * looked up again.
+ */
+public interface ResponseStore {
+
+    /**
+     * @return the stored entry for the key, or null if there is none
+     */
+    Entry get(String key);
+
+    void put(String key, Entry entry);
+
+    void remove(String key);
+
+    /**
+     * Stored response body together with its validators
+     */
+    class Entry {
+
+        private final String etag;
+        private final String lastModified;
+        private final byte[] data;
+
+        public Entry(String etag, String lastModified, byte[] data) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.data = data;
+        }
+
+        /**
+         * @return value of the ETag header, or null
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return value of the Last-Modified header, or null
+         */
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * @return the raw response body
+         */
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.TaskStatusResponse;
+import me.figo.internal.TaskTokenResponse;
+
+/**
+ * Polls the progress of tasks started by e.g. {@link FigoSession#setupNewAccount}, {@link FigoSession#submitPayment} or
+ * {@link FigoSession#getSyncURL} until they have ended. The interval starts short and grows while the task state does not
+ * change, with random jitter so that many tasks do not poll in lockstep. Any change of the state resets it.
+ *
+ * A single scheduler thread only triggers the polls; the requests themselves run asynchronously on the session's
+ * transport, so thousands of tasks can be monitored at the same time.
+ *
+ * Polls failing because of the network, the server or the rate limit are repeated on the same growing schedule, since
+ * the POST requests polling the state are never retried by the transport. Only {@value #MAX_POLL_ERRORS} consecutive
+ * failures, or any other error, end the monitoring.
+ */
+public class TaskMonitor {
+
+    public static final long DEFAULT_MIN_DELAY = 500;
+    public static final long DEFAULT_MAX_DELAY = 10000;
+    public static final int MAX_POLL_ERRORS = 5;
+    private static final double BACKOFF_FACTOR = 1.5;
+
+    /**
+     * Receiver of the state changes of a monitored task. All methods are called at most once per change.
+     */
+    public interface Listener {
+
+        /**
+         * The task reported a new message
+         */
+        void onProgress(String taskToken, TaskStatusResponse status);
+
+        /**
+         * The task waits for the PIN, which has to be submitted with {@link FigoSession#submitResponseToTask}
+         */
+        void onWaitingForPin(String taskToken, TaskStatusResponse status);
+
+        /**
+         * The task waits for the response to a challenge, which has to be submitted with
+         * {@link FigoSession#submitResponseToTask}
+         */
+        void onWaitingForResponse(String taskToken, TaskStatusResponse status);
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long minDelay;
+    private final long maxDelay;
+    private final Random random = new Random();
+
+    /**
+     * Creates a TaskMonitor with the default intervals on its own daemon thread
+     */
+    public TaskMonitor() {
+        this(createDefaultScheduler(), DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates a TaskMonitor
+     *
+     * @param scheduler
+     *            scheduler triggering the polls
+     * @param minDelay
+     *            delay in milliseconds before the first poll and after every change of the task state, must be positive
+     * @param maxDelay
+     *            upper bound in milliseconds of the growing delay
+     */
+    public TaskMonitor(ScheduledExecutorService scheduler, long minDelay, long maxDelay) {
+        if (minDelay <= 0)
+            throw new IllegalArgumentException("minDelay must be positive");
+
+        this.scheduler = scheduler;
+        this.minDelay = minDelay;
+        this.maxDelay = Math.max(minDelay, maxDelay);
+    }
+
+    private static ScheduledExecutorService createDefaultScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "figo-task-monitor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Monitor a task until it has ended
+     *
+     * @param session
+     *            the session which started the task
+     * @param tokenResponse
+     *            the token of the task
+     * @param listener
+     *            receiver of the state changes, may be null
+     * @return future completed with the final state of the task, which may be erroneous; cancelling it stops polling
+     */
+    public FigoFuture<TaskStatusResponse> monitor(FigoSession session, TaskTokenResponse tokenResponse, Listener listener) {
+        return monitor(session, tokenResponse.getTaskToken(), listener);
+    }
+
+    /**
+     * Monitor a task until it has ended
+     *
+     * @param session
+     *            the session which started the task
+     * @param taskToken
+     *            ID of the task token
+     * @param listener
+     *            receiver of the state changes, may be null
+     * @return future completed with the final state of the task, which may be erroneous; cancelling it stops polling
+     */
+    public FigoFuture<TaskStatusResponse> monitor(FigoSession session, String taskToken, Listener listener) {
+        FigoFuture<TaskStatusResponse> future = new FigoFuture<TaskStatusResponse>();
+        new Poll(session, taskToken, listener, future).schedule(minDelay);
+        return future;
+    }
+
+    /**
+     * Polling state of a single task
+     */
+    private class Poll implements Runnable, Response.Listener<TaskStatusResponse>, Response.ErrorListener {
+
+        private final FigoSession session;
+        private final String taskToken;
+        private final Listener listener;
+        private final FigoFuture<TaskStatusResponse> future;
+        private long delay;
+        private int errors;
+        private String message;
+        private boolean waitingForPin;
+        private boolean waitingForResponse;
+
+        Poll(FigoSession session, String taskToken, Listener listener, FigoFuture<TaskStatusResponse> future) {
+            this.session = session;
+            this.taskToken = taskToken;
+            this.listener = listener;
+            this.future = future;
+        }
+
+        /**
+         * @return the next delay, growing by at least a millisecond so that short delays do not stay the same
+         */
+        long backOff() {
+            return Math.min(maxDelay, Math.max(delay + 1, (long) (delay * BACKOFF_FACTOR)));
+        }
+
+        void schedule(long delay) {
+            schedule(delay, 0);
+        }
+
+        /**
+         * @param notBefore minimum time to wait in milliseconds regardless of the jitter
+         */
+        void schedule(long delay, long notBefore) {
+            this.delay = delay;
+            // equal jitter: wait at least half the delay
+            long half = delay / 2;
+            long jittered = Math.max(notBefore, half + (half > 0 ? (long) (random.nextDouble() * half) : 0));
+            try {
+                scheduler.schedule(this, jittered, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                future.onErrorResponse(new VolleyError(e));
+            }
+        }
+
+        @Override
+        public void run() {
+            if (future.isCancelled())
+                return;
+
+            try {
+                future.setRequest(session.getTaskState(taskToken, this, this));
+            } catch (RuntimeException e) {
+                future.onErrorResponse(new VolleyError(e));
+            }
+        }
+
+        @Override
+        public void onResponse(TaskStatusResponse status) {
+            if (future.isCancelled())
+                return;
+
+            if (status == null) {
+                future.onErrorResponse(new FigoError("internal_server_error", "Empty task state"));
+                return;
+            }
+            errors = 0;
+
+            boolean changed = false;
+            if (status.getMessage() != null && !status.getMessage().equals(message)) {
+                message = status.getMessage();
+                changed = true;
+                if (listener != null)
+                    listener.onProgress(taskToken, status);
+            }
+            if (status.isWaitingForPin() != waitingForPin) {
+                waitingForPin = status.isWaitingForPin();
+                changed = true;
+                if (waitingForPin && listener != null)
+                    listener.onWaitingForPin(taskToken, status);
+            }
+            if (status.isWaitingForResponse() != waitingForResponse) {
+                waitingForResponse = status.isWaitingForResponse();
+                changed = true;
+                if (waitingForResponse && listener != null)
+                    listener.onWaitingForResponse(taskToken, status);
+            }
+
+            if (status.isEnded()) {
+                future.onResponse(status);
+            } else {
+                schedule(changed ? minDelay : backOff());
+            }
+        }
+
+        @Override
+        public void onErrorResponse(VolleyError error) {
+            if (future.isCancelled())
+                return;
+
+            if (!isRetryable(error) || ++errors >= MAX_POLL_ERRORS) {
+                future.onErrorResponse(error);
+                return;
+            }
+            long retryAfter = error instanceof FigoRateLimitError ? ((FigoRateLimitError) error).getRetryAfter() : 0;
+            schedule(backOff(), retryAfter);
+        }
+    }
+
+    /**
+     * @return whether a failed poll may succeed when repeated
+     */
+    private static boolean isRetryable(VolleyError error) {
+        if (error instanceof FigoRateLimitError)
+            return true;
+        // service_unavailable is reported by an open circuit breaker or a full bulkhead
+        if (error instanceof FigoError && "service_unavailable".equals(((FigoError) error).getErrorCode()))
+            return true;
+        return FigoApi.isFailure(error);
+    }
+}
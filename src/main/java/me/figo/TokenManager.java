@@ -0,0 +1,353 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.Response;
+import com.android.volley.VolleyError;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import me.figo.internal.TokenResponse;
+
+/**
+ * Keeps the access token of a user valid. The token is refreshed with the refresh token shortly before it expires, and
+ * every attached {@link FigoSession} is switched over to the new token without being rebuilt, so requests keep working
+ * across the expiry instead of all failing with "access_denied" at once.
+ *
+ * Concurrent refreshes, whether scheduled or requested through {@link #refresh()}, share a single request to the server.
+ * Failed refreshes are retried after a delay unless the server rejected the refresh token.
+ */
+public class TokenManager {
+
+    public static final long DEFAULT_REFRESH_MARGIN = 60000;
+    public static final long DEFAULT_RETRY_DELAY = 5000;
+
+    private static ScheduledExecutorService defaultScheduler;
+
+    /**
+     * Receiver of the outcome of every refresh
+     */
+    public interface Listener {
+
+        /**
+         * The token was refreshed and all attached sessions use it already
+         */
+        void onRefreshed(TokenResponse token);
+
+        /**
+         * The token could not be refreshed
+         */
+        void onRefreshFailed(VolleyError error);
+    }
+
+    private final FigoConnection connection;
+    private final ScheduledExecutorService scheduler;
+    private final long refreshMargin;
+    private final long retryDelay;
+    private final List<FigoSession> sessions = new CopyOnWriteArrayList<FigoSession>();
+    private volatile Listener listener;
+    private String accessToken;
+    private String refreshToken;
+    private long expiresAt;
+    private FigoFuture<TokenResponse> refreshing;
+    private ScheduledFuture<?> scheduled;
+    private boolean closed;
+
+    /**
+     * Creates a TokenManager refreshing the token one minute before it expires
+     *
+     * @param connection
+     *            the connection used to refresh the token
+     * @param token
+     *            the token as returned by e.g. {@link FigoConnection#credentialLogin}, it has to contain a refresh token
+     */
+    public TokenManager(FigoConnection connection, TokenResponse token) {
+        this(connection, token, getDefaultScheduler(), DEFAULT_REFRESH_MARGIN, DEFAULT_RETRY_DELAY);
+    }
+
+    /**
+     * Creates a TokenManager
+     *
+     * @param connection
+     *            the connection used to refresh the token
+     * @param token
+     *            the token as returned by e.g. {@link FigoConnection#credentialLogin}, it has to contain a refresh token
+     * @param scheduler
+     *            scheduler triggering the refreshes
+     * @param refreshMargin
+     *            time in milliseconds before the expiry at which the token is refreshed; tokens living shorter than twice
+     *            the margin are refreshed after half of their lifetime
+     * @param retryDelay
+     *            delay in milliseconds before retrying a failed refresh
+     */
+    public TokenManager(FigoConnection connection, TokenResponse token, ScheduledExecutorService scheduler, long refreshMargin, long retryDelay) {
+        if (token == null || token.getAccessToken() == null || token.getRefreshToken() == null)
+            throw new IllegalArgumentException("The token has to contain an access and a refresh token");
+
+        this.connection = connection;
+        this.scheduler = scheduler;
+        this.refreshMargin = refreshMargin;
+        this.retryDelay = retryDelay;
+        synchronized (this) {
+            update(token);
+        }
+    }
+
+    private static synchronized ScheduledExecutorService getDefaultScheduler() {
+        if (defaultScheduler == null) {
+            defaultScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "figo-token-manager");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * @param listener receiver of the outcome of every refresh, or null
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Switch a session over to the current token and keep it up to date on every refresh
+     *
+     * @param session
+     *            the session of the user owning the token
+     * @return the session
+     */
+    public FigoSession attach(FigoSession session) {
+        // under the lock, so that a refresh completing meanwhile cannot be overwritten with the old token
+        synchronized (this) {
+            sessions.add(session);
+            session.setAccessToken(accessToken);
+        }
+        return session;
+    }
+
+    /**
+     * Stop updating the token of a session
+     *
+     * @param session
+     *            a session passed to {@link #attach} before
+     */
+    public void detach(FigoSession session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * @return the current access token
+     */
+    public synchronized String getAccessToken() {
+        return accessToken;
+    }
+
+    /**
+     * @return the current refresh token, which the server may have replaced on a refresh
+     */
+    public synchronized String getRefreshToken() {
+        return refreshToken;
+    }
+
+    /**
+     * @return time in milliseconds since the epoch at which the current access token expires, or 0 if unknown
+     */
+    public synchronized long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * @return whether the current access token is known to have expired
+     */
+    public synchronized boolean isExpired() {
+        return expiresAt > 0 && System.currentTimeMillis() >= expiresAt;
+    }
+
+    /**
+     * Refresh the token right away. If a refresh is running already, no further request is sent and the result of the
+     * running one is delivered instead.
+     *
+     * @return future completed with the new token once all attached sessions use it; cancelling it only discards the
+     *         result for this caller
+     */
+    public FigoFuture<TokenResponse> refresh() {
+        FigoFuture<TokenResponse> shared;
+        String token = null;
+        synchronized (this) {
+            if (closed)
+                return failed(new FigoError("invalid_request", "The token manager has been closed"));
+
+            shared = refreshing;
+            if (shared == null) {
+                shared = new FigoFuture<TokenResponse>();
+                refreshing = shared;
+                token = refreshToken;
+                cancelScheduled();
+            }
+        }
+
+        FigoFuture<TokenResponse> future = new FigoFuture<TokenResponse>();
+        shared.addListener(future, future);
+        if (token != null)
+            send(shared, token);
+        return future;
+    }
+
+    /**
+     * Stop refreshing the token. Attached sessions keep the last token.
+     */
+    public synchronized void close() {
+        closed = true;
+        cancelScheduled();
+    }
+
+    private void send(final FigoFuture<TokenResponse> shared, String token) {
+        try {
+            connection.convertRefreshToken(token, new Response.Listener<TokenResponse>() {
+                @Override
+                public void onResponse(TokenResponse response) {
+                    onRefreshed(shared, response);
+                }
+            }, new Response.ErrorListener() {
+                @Override
+                public void onErrorResponse(VolleyError error) {
+                    onRefreshFailed(shared, error);
+                }
+            });
+        } catch (RuntimeException e) {
+            onRefreshFailed(shared, new VolleyError(e));
+        }
+    }
+
+    private void onRefreshed(FigoFuture<TokenResponse> shared, TokenResponse response) {
+        if (response == null || response.getAccessToken() == null) {
+            onRefreshFailed(shared, new FigoError("internal_server_error", "Empty token response"));
+            return;
+        }
+
+        synchronized (this) {
+            if (refreshing != shared)
+                return;
+            refreshing = null;
+            update(response);
+
+            // switch the sessions before anyone waiting for the refresh is notified
+            for (FigoSession session : sessions) {
+                session.setAccessToken(accessToken);
+            }
+        }
+        Listener current = listener;
+        if (current != null)
+            current.onRefreshed(response);
+        shared.onResponse(response);
+    }
+
+    private void onRefreshFailed(FigoFuture<TokenResponse> shared, VolleyError error) {
+        synchronized (this) {
+            if (refreshing != shared)
+                return;
+            refreshing = null;
+            if (!closed && !isRejected(error))
+                schedule(retryDelay);
+        }
+
+        Listener current = listener;
+        if (current != null)
+            current.onRefreshFailed(error);
+        shared.onErrorResponse(error);
+    }
+
+    /**
+     * @return whether the server refused the refresh token itself, in which case retrying is pointless
+     */
+    private static boolean isRejected(VolleyError error) {
+        if (!(error instanceof FigoError) || error instanceof FigoRateLimitError)
+            return false;
+
+        String code = ((FigoError) error).getErrorCode();
+        return !"internal_server_error".equals(code) && !"service_unavailable".equals(code);
+    }
+
+    /**
+     * Take over a token and schedule its refresh, the caller has to hold the lock
+     */
+    private void update(TokenResponse token) {
+        accessToken = token.getAccessToken();
+        if (token.getRefreshToken() != null)
+            refreshToken = token.getRefreshToken();
+
+        Integer expiresIn = token.getExpiresIn();
+        if (expiresIn == null || expiresIn <= 0) {
+            expiresAt = 0;
+            return;
+        }
+
+        long lifetime = expiresIn * 1000L;
+        expiresAt = System.currentTimeMillis() + lifetime;
+        if (!closed)
+            schedule(lifetime > 2 * refreshMargin ? lifetime - refreshMargin : lifetime / 2);
+    }
+
+    /**
+     * Schedule the next refresh, the caller has to hold the lock
+     */
+    private void schedule(long delay) {
+        cancelScheduled();
+        try {
+            scheduled = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            scheduled = null;
+        }
+    }
+
+    private void cancelScheduled() {
+        if (scheduled != null) {
+            scheduled.cancel(false);
+            scheduled = null;
+        }
+    }
+
+    private static FigoFuture<TokenResponse> failed(VolleyError error) {
+        FigoFuture<TokenResponse> future = new FigoFuture<TokenResponse>();
+        future.onErrorResponse(error);
+        return future;
+    }
+}
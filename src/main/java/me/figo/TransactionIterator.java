@@ -0,0 +1,155 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.models.Transaction;
+
+/**
+ * Iterator over the transactions of a user or account, fetching them page by page through the count and offset
+ * parameters. While one page is consumed the next one is already requested, and consumed transactions are released
+ * right away, so arbitrarily long histories can be walked in constant memory.
+ *
+ * The offset advances by the number of booked transactions actually received and iteration ends with the first page
+ * without any, so a server returning fewer transactions than requested does not cut the walk short. Pending
+ * transactions come as a complete set with every page, so they are only requested with the first one.
+ *
+ * The iterator blocks while waiting for a page. It must not be used on the thread the transport delivers responses on,
+ * i.e. not on the Android main thread when using Volley. Failed requests are reported as IllegalStateException with the
+ * {@link FigoError} or VolleyError as cause.
+ */
+public class TransactionIterator implements Iterator<Transaction> {
+
+    private static final Transaction[] EMPTY_PAGE = new Transaction[0];
+
+    private final FigoAsyncSession session;
+    private final String accountId;
+    private final String since;
+    private final int pageSize;
+    private final PendingTransactions includePending;
+
+    private Transaction[] page = EMPTY_PAGE;
+    private int index;
+    private int offset;
+    private FigoFuture<List<Transaction>> nextPage;
+
+    /**
+     * Creates a TransactionIterator and requests the first page
+     *
+     * @param session
+     *            the session to fetch the pages with
+     * @param accountId
+     *            ID of the account for which to list the transactions, or null for all accounts
+     * @param since
+     *            this parameter can either be a transaction ID or a date, or null
+     * @param pageSize
+     *            number of transactions fetched per request
+     * @param includePending
+     *            whether pending transactions should be included, or null for the server default
+     */
+    public TransactionIterator(FigoAsyncSession session, String accountId, String since, int pageSize, PendingTransactions includePending) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+
+        this.session = session;
+        this.accountId = accountId;
+        this.since = since;
+        this.pageSize = pageSize;
+        this.includePending = includePending;
+        this.nextPage = fetch();
+    }
+
+    private FigoFuture<List<Transaction>> fetch() {
+        PendingTransactions pending = offset > 0 && includePending == PendingTransactions.INCLUDED ? PendingTransactions.EXCLUDED : includePending;
+        return session.getTransactions(accountId, since, pageSize, offset, pending);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (index >= page.length) {
+            if (nextPage == null)
+                return false;
+
+            List<Transaction> transactions = await(nextPage);
+            page = transactions == null ? EMPTY_PAGE : transactions.toArray(new Transaction[transactions.size()]);
+            index = 0;
+
+            int booked = page.length;
+            if (includePending == PendingTransactions.INCLUDED) {
+                for (Transaction transaction : page) {
+                    if (!transaction.isBooked())
+                        booked--;
+                }
+            }
+
+            // a page without booked transactions is the last one, otherwise prefetch the next page while this one is
+            // consumed
+            offset += booked;
+            nextPage = booked == 0 ? null : fetch();
+        }
+        return true;
+    }
+
+    @Override
+    public Transaction next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        Transaction transaction = page[index];
+        page[index++] = null;
+        return transaction;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop iterating and cancel the request for the next page, if any
+     */
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        page = EMPTY_PAGE;
+    }
+
+    private static List<Transaction> await(FigoFuture<List<Transaction>> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fetching transactions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fetching transactions failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,307 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import me.figo.FigoSession.PendingTransactions;
+import me.figo.models.Transaction;
+
+/**
+ * Incremental synchronization of the transactions of an account. Instead of downloading the full list every time, only
+ * transactions after the last one returned by the previous run are fetched through the <code>since</code> parameter.
+ * Pending transactions are always returned as a complete set by the server, so they are requested with the first page
+ * only and reconciled against the set seen during the previous run.
+ * The differences are reported to a {@link Listener} as insert, update and delete events, booked transactions oldest
+ * first.
+ *
+ * The cursor and the pending set of each account are kept in a {@link Store}, which can be backed by persistent storage so
+ * that synchronization continues where it stopped after a restart. The state is only saved after all events of a run
+ * have been delivered, so a failing run is repeated completely by the next one. Different accounts can be synchronized
+ * concurrently, runs for the same account are serialized.
+ */
+public class TransactionSync {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * Receiver of the changes found during a synchronization run
+     */
+    public interface Listener {
+
+        /**
+         * A transaction not known before, either booked or pending
+         */
+        void onInsert(Transaction transaction);
+
+        /**
+         * A known pending transaction which changed or got booked
+         */
+        void onUpdate(Transaction transaction);
+
+        /**
+         * A pending transaction which disappeared without being booked under its ID
+         */
+        void onDelete(String accountId, String transactionId);
+    }
+
+    /**
+     * Storage for the synchronization state of each account
+     */
+    public interface Store {
+
+        /**
+         * @return the state saved for the account, or null if it was never synchronized
+         */
+        State load(String accountId);
+
+        /**
+         * Save the state of an account, a null state removes it
+         */
+        void save(String accountId, State state);
+    }
+
+    /**
+     * Synchronization state of a single account: the cursor passed as <code>since</code> and a fingerprint of every
+     * pending transaction seen during the last run
+     */
+    public static class State {
+
+        private final String cursor;
+        private final Map<String, String> pending;
+
+        public State(String cursor, Map<String, String> pending) {
+            this.cursor = cursor;
+            this.pending = pending;
+        }
+
+        /**
+         * @return ID of the newest booked transaction returned by the server so far, or null
+         */
+        public String getCursor() {
+            return cursor;
+        }
+
+        /**
+         * @return fingerprints of the pending transactions by transaction ID
+         */
+        public Map<String, String> getPending() {
+            return pending;
+        }
+    }
+
+    /**
+     * Store keeping the state in memory only
+     */
+    public static class MemoryStore implements Store {
+
+        private final Map<String, State> states = new ConcurrentHashMap<String, State>();
+
+        @Override
+        public State load(String accountId) {
+            return states.get(accountId);
+        }
+
+        @Override
+        public void save(String accountId, State state) {
+            if (state == null) {
+                states.remove(accountId);
+            } else {
+                states.put(accountId, state);
+            }
+        }
+    }
+
+    private final FigoBlockingSession session;
+    private final Store store;
+    private final int pageSize;
+    private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
+
+    /**
+     * Creates a TransactionSync instance keeping its state in memory
+     *
+     * @param session
+     *            the session to fetch the transactions with
+     */
+    public TransactionSync(FigoBlockingSession session) {
+        this(session, new MemoryStore(), DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Creates a TransactionSync instance
+     *
+     * @param session
+     *            the session to fetch the transactions with
+     * @param store
+     *            storage for the cursor and pending set of each account
+     * @param pageSize
+     *            number of transactions fetched per request
+     */
+    public TransactionSync(FigoBlockingSession session, Store store, int pageSize) {
+        if (pageSize <= 0)
+            throw new IllegalArgumentException("pageSize must be positive");
+
+        this.session = session;
+        this.store = store;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Fetch the changes of an account since the last run and report them to the listener
+     *
+     * @param accountId
+     *            ID of the account to synchronize
+     * @param listener
+     *            receiver of the changes
+     * @return number of reported changes
+     */
+    public int sync(String accountId, Listener listener) throws IOException, FigoError {
+        Lock lock = getLock(accountId);
+        lock.lock();
+        try {
+            return doSync(accountId, listener);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int doSync(String accountId, Listener listener) throws IOException, FigoError {
+        State state = store.load(accountId);
+        String cursor = state == null ? null : state.getCursor();
+        Map<String, String> previousPending = state == null ? new HashMap<String, String>() : state.getPending();
+
+        // fetch all booked transactions after the cursor, the complete pending set comes with the first page only and
+        // takes up part of its count. The server lists newest first, so the first booked transaction is the new cursor
+        List<Transaction> booked = new ArrayList<Transaction>();
+        Map<String, Transaction> pending = new LinkedHashMap<String, Transaction>();
+        int offset = 0;
+        List<Transaction> page = null;
+        do {
+            page = session.getTransactions(accountId, cursor, pageSize, offset,
+                    page == null ? PendingTransactions.INCLUDED : PendingTransactions.EXCLUDED);
+            for (Transaction transaction : page) {
+                if (transaction.isBooked()) {
+                    booked.add(transaction);
+                    offset++;
+                } else {
+                    pending.put(transaction.getTransactionId(), transaction);
+                }
+            }
+        } while (page.size() >= pageSize);
+
+        // report the booked transactions oldest first
+        Set<String> bookedIds = new HashSet<String>();
+        int changes = 0;
+        for (int i = booked.size() - 1; i >= 0; i--) {
+            Transaction transaction = booked.get(i);
+            bookedIds.add(transaction.getTransactionId());
+            if (previousPending.containsKey(transaction.getTransactionId())) {
+                listener.onUpdate(transaction);
+            } else {
+                listener.onInsert(transaction);
+            }
+            changes++;
+        }
+
+        Map<String, String> currentPending = new HashMap<String, String>();
+        for (Transaction transaction : pending.values()) {
+            String fingerprint = fingerprint(transaction);
+            String previous = previousPending.get(transaction.getTransactionId());
+            if (previous == null) {
+                listener.onInsert(transaction);
+                changes++;
+            } else if (!previous.equals(fingerprint)) {
+                listener.onUpdate(transaction);
+                changes++;
+            }
+            currentPending.put(transaction.getTransactionId(), fingerprint);
+        }
+
+        for (String transactionId : previousPending.keySet()) {
+            if (!currentPending.containsKey(transactionId) && !bookedIds.contains(transactionId)) {
+                listener.onDelete(accountId, transactionId);
+                changes++;
+            }
+        }
+
+        store.save(accountId, new State(booked.isEmpty() ? cursor : booked.get(0).getTransactionId(), currentPending));
+        return changes;
+    }
+
+    private Lock getLock(String accountId) {
+        Lock lock = locks.get(accountId);
+        if (lock == null) {
+            Lock created = new ReentrantLock();
+            lock = locks.putIfAbsent(accountId, created);
+            if (lock == null)
+                lock = created;
+        }
+        return lock;
+    }
+
+    /**
+     * Forget the state of an account, so that the next run reports all its transactions again
+     *
+     * @param accountId
+     *            ID of the account to reset
+     */
+    public void reset(String accountId) {
+        Lock lock = getLock(accountId);
+        lock.lock();
+        try {
+            store.save(accountId, null);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return a string which changes whenever a field visible to the user changes
+     */
+    static String fingerprint(Transaction transaction) {
+        StringBuilder sb = new StringBuilder();
+        BigDecimal amount = transaction.getAmount();
+        sb.append(amount == null ? null : amount.stripTrailingZeros().toPlainString()).append('\u0000');
+        sb.append(transaction.getCurrency()).append('\u0000');
+        sb.append(transaction.getBookingDate() == null ? null : transaction.getBookingDate().getTime()).append('\u0000');
+        sb.append(transaction.getValueDate() == null ? null : transaction.getValueDate().getTime()).append('\u0000');
+        sb.append(transaction.getName()).append('\u0000');
+        sb.append(transaction.getPurposeText()).append('\u0000');
+        sb.append(transaction.getBookingText()).append('\u0000');
+        sb.append(transaction.getType());
+        return sb.toString();
+    }
+}
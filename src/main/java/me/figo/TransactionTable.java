@@ -0,0 +1,720 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import me.figo.internal.IsoDateFormat;
+import me.figo.models.CompactTransaction;
+import me.figo.models.Transaction;
+
+/**
+ * Column-oriented, read-only copy of a set of transactions for aggregations over many rows. Amounts, booking days and
+ * the booked flag are stored in parallel primitive arrays, account ID, name, type and currency as indexes into a
+ * dictionary of their distinct values, so sums and groupings run as tight loops over arrays instead of walking object
+ * graphs.
+ *
+ * Rows are selected through {@link Selection}s, e.g. <code>table.whereCurrency("EUR").and(table.whereDebits())</code>.
+ * Amounts are in minor units of their currency, see {@link CompactTransaction#getAmount()}, so sums only make sense
+ * within one currency.
+ *
+ * If an executor is set through {@link #setExecutor}, aggregations over large tables are split into ranges of rows
+ * which are processed in parallel.
+ */
+public class TransactionTable {
+
+    /**
+     * Columns holding dictionary-encoded strings, which rows can be grouped by
+     */
+    public enum Column {
+        ACCOUNT,
+        NAME,
+        TYPE,
+        CURRENCY
+    }
+
+    private static final int MIN_ROWS_PER_TASK = 16384;
+
+    private final int size;
+    private final long[] amounts;
+    private final int[] bookingDays;
+    private final boolean[] booked;
+    private final Dictionary accounts;
+    private final Dictionary names;
+    private final Dictionary types;
+    private final Dictionary currencies;
+    private volatile ExecutorService executor;
+    private volatile int parallelism = 1;
+
+    private TransactionTable(Builder builder) {
+        this.size = builder.size;
+        this.amounts = Arrays.copyOf(builder.amounts, size);
+        this.bookingDays = Arrays.copyOf(builder.bookingDays, size);
+        this.booked = Arrays.copyOf(builder.booked, size);
+        this.accounts = builder.accounts.copy(size);
+        this.names = builder.names.copy(size);
+        this.types = builder.types.copy(size);
+        this.currencies = builder.currencies.copy(size);
+    }
+
+    /**
+     * Build a table from the transactions of a response
+     *
+     * @param response
+     *            the response of e.g. {@link FigoSession#getTransactions}
+     * @return new table
+     */
+    public static TransactionTable of(Transaction.TransactionsResponse response) {
+        List<Transaction> transactions = response == null ? null : response.getTransactions();
+        return transactions == null ? new Builder(0).build() : of(transactions);
+    }
+
+    /**
+     * Build a table from a list of transactions
+     *
+     * @param transactions
+     *            the transactions to copy
+     * @return new table
+     */
+    public static TransactionTable of(List<Transaction> transactions) {
+        Builder builder = new Builder(transactions.size());
+        for (Transaction transaction : transactions) {
+            builder.add(CompactTransaction.of(transaction));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Build a table from a list of compact transactions, e.g. as returned by
+     * {@link FigoBlockingSession#getCompactTransactions}
+     *
+     * @param transactions
+     *            the transactions to copy
+     * @return new table
+     */
+    public static TransactionTable ofCompact(List<CompactTransaction> transactions) {
+        Builder builder = new Builder(transactions.size());
+        for (CompactTransaction transaction : transactions) {
+            builder.add(transaction);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Process aggregations over large tables in parallel
+     *
+     * @param executor
+     *            executor running the ranges of rows, or null to process all rows on the calling thread
+     * @param parallelism
+     *            maximum number of ranges processed at the same time
+     */
+    public void setExecutor(ExecutorService executor, int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = executor;
+    }
+
+    /**
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the amount of a row in minor units of its currency
+     */
+    public long getAmount(int row) {
+        return amounts[checkRow(row)];
+    }
+
+    /**
+     * @return the booking day of a row in days since 1970-01-01, or {@link CompactTransaction#NO_DATE}
+     */
+    public int getBookingDay(int row) {
+        return bookingDays[checkRow(row)];
+    }
+
+    /**
+     * @return whether the transaction of a row is booked or pending
+     */
+    public boolean isBooked(int row) {
+        return booked[checkRow(row)];
+    }
+
+    /**
+     * @return the value of a dictionary-encoded column in a row
+     */
+    public String get(Column column, int row) {
+        return dictionary(column).get(checkRow(row));
+    }
+
+    /**
+     * @return the distinct values of a dictionary-encoded column, without null
+     */
+    public List<String> getValues(Column column) {
+        return dictionary(column).getValues();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size)
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        return row;
+    }
+
+    private Dictionary dictionary(Column column) {
+        switch (column) {
+        case ACCOUNT:
+            return accounts;
+        case NAME:
+            return names;
+        case TYPE:
+            return types;
+        default:
+            return currencies;
+        }
+    }
+
+    /**
+     * @return selection of all rows
+     */
+    public Selection all() {
+        BitSet rows = new BitSet(size);
+        rows.set(0, size);
+        return new Selection(this, rows);
+    }
+
+    /**
+     * @return selection of the rows whose column has the given value
+     */
+    public Selection where(Column column, String value) {
+        Dictionary dictionary = dictionary(column);
+        int code = dictionary.find(value);
+        BitSet rows = new BitSet(size);
+        if (code >= 0 || value == null) {
+            int[] codes = dictionary.codes;
+            for (int i = 0; i < size; i++) {
+                if (codes[i] == code)
+                    rows.set(i);
+            }
+        }
+        return new Selection(this, rows);
+    }
+
+    /**
+     * @return selection of the rows of an account
+     */
+    public Selection whereAccount(String accountId) {
+        return where(Column.ACCOUNT, accountId);
+    }
+
+    /**
+     * @return selection of the rows in a currency
+     */
+    public Selection whereCurrency(String currency) {
+        return where(Column.CURRENCY, currency);
+    }
+
+    /**
+     * @return selection of the rows booked on or after the first and before the second day, both in days since
+     *         1970-01-01; rows without booking date are never selected
+     */
+    public Selection whereBookingDays(int fromDay, int toDay) {
+        BitSet rows = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            int day = bookingDays[i];
+            if (day != CompactTransaction.NO_DATE && day >= fromDay && day < toDay)
+                rows.set(i);
+        }
+        return new Selection(this, rows);
+    }
+
+    /**
+     * @return selection of the rows with an amount between minimum and maximum, both inclusive
+     */
+    public Selection whereAmount(long minimum, long maximum) {
+        BitSet rows = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            long amount = amounts[i];
+            if (amount >= minimum && amount <= maximum)
+                rows.set(i);
+        }
+        return new Selection(this, rows);
+    }
+
+    /**
+     * @return selection of the rows with a negative amount, i.e. spending
+     */
+    public Selection whereDebits() {
+        return whereAmount(Long.MIN_VALUE, -1);
+    }
+
+    /**
+     * @return selection of the rows with a positive amount, i.e. income
+     */
+    public Selection whereCredits() {
+        return whereAmount(1, Long.MAX_VALUE);
+    }
+
+    /**
+     * @return selection of the booked rows, leaving out pending transactions
+     */
+    public Selection whereBooked() {
+        BitSet rows = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (booked[i])
+                rows.set(i);
+        }
+        return new Selection(this, rows);
+    }
+
+    /**
+     * Sum the amounts of the selected rows
+     *
+     * @param selection
+     *            the rows to sum, or null for all rows
+     * @return the sum in minor units
+     */
+    public long sum(Selection selection) {
+        final BitSet rows = rows(selection);
+        return run(new RangeTask() {
+            @Override
+            public long[] compute(int from, int to) {
+                long sum = 0;
+                if (rows == null) {
+                    for (int i = from; i < to; i++)
+                        sum += amounts[i];
+                } else {
+                    for (int i = rows.nextSetBit(from); i >= 0 && i < to; i = rows.nextSetBit(i + 1))
+                        sum += amounts[i];
+                }
+                return new long[] { sum };
+            }
+        })[0];
+    }
+
+    /**
+     * Sum the amounts of the selected rows per value of a column, e.g. the totals per counterparty with
+     * {@link Column#NAME}
+     *
+     * @param column
+     *            the column to group by
+     * @param selection
+     *            the rows to sum, or null for all rows
+     * @return the sums in minor units per value, in order of first occurrence; rows without value are left out
+     */
+    public Map<String, Long> sumBy(Column column, Selection selection) {
+        final Dictionary dictionary = dictionary(column);
+        final BitSet rows = rows(selection);
+        final int[] codes = dictionary.codes;
+        final int buckets = dictionary.size();
+        long[] sums = run(new RangeTask() {
+            @Override
+            public long[] compute(int from, int to) {
+                // sum and row count per code, shifted by one slot for the rows without value
+                long[] sums = new long[(buckets + 1) * 2];
+                if (rows == null) {
+                    for (int i = from; i < to; i++) {
+                        int slot = (codes[i] + 1) * 2;
+                        sums[slot] += amounts[i];
+                        sums[slot + 1]++;
+                    }
+                } else {
+                    for (int i = rows.nextSetBit(from); i >= 0 && i < to; i = rows.nextSetBit(i + 1)) {
+                        int slot = (codes[i] + 1) * 2;
+                        sums[slot] += amounts[i];
+                        sums[slot + 1]++;
+                    }
+                }
+                return sums;
+            }
+        });
+
+        Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (int code = 0; code < buckets; code++) {
+            if (sums[(code + 1) * 2 + 1] > 0)
+                result.put(dictionary.values[code], sums[(code + 1) * 2]);
+        }
+        return result;
+    }
+
+    /**
+     * Sum the amounts of the selected rows per booking month, e.g. the monthly spending of a type with
+     * <code>sumByMonth(table.where(Column.TYPE, "Direct debit").and(table.whereDebits()))</code>
+     *
+     * @param selection
+     *            the rows to sum, or null for all rows
+     * @return the sums in minor units per month formatted like <code>2013-06</code>, in chronological order; rows
+     *         without booking date are left out
+     */
+    public SortedMap<String, Long> sumByMonth(Selection selection) {
+        SortedMap<Integer, Long> days = sumByDay(selection);
+        SortedMap<String, Long> result = new TreeMap<String, Long>();
+        int currentMonth = 0;
+        long sum = 0;
+        boolean hasMonth = false;
+        for (Map.Entry<Integer, Long> entry : days.entrySet()) {
+            int month = IsoDateFormat.epochMonth(entry.getKey());
+            if (hasMonth && month != currentMonth) {
+                result.put(IsoDateFormat.formatEpochMonth(currentMonth), sum);
+                sum = 0;
+            }
+            currentMonth = month;
+            hasMonth = true;
+            sum += entry.getValue();
+        }
+        if (hasMonth)
+            result.put(IsoDateFormat.formatEpochMonth(currentMonth), sum);
+        return result;
+    }
+
+    /**
+     * Sum the amounts of the selected rows per booking day
+     *
+     * @param selection
+     *            the rows to sum, or null for all rows
+     * @return the sums in minor units per day since 1970-01-01, in chronological order; rows without booking date are
+     *         left out
+     */
+    public SortedMap<Integer, Long> sumByDay(Selection selection) {
+        final BitSet rows = rows(selection);
+        final int[] range = dayRange(rows);
+        SortedMap<Integer, Long> result = new TreeMap<Integer, Long>();
+        if (range == null)
+            return result;
+
+        final int first = range[0];
+        final int days = range[1] - first + 1;
+        long[] sums = run(new RangeTask() {
+            @Override
+            public long[] compute(int from, int to) {
+                // one extra slot per day counts its rows, so that days summing up to zero are kept
+                long[] sums = new long[days * 2];
+                for (int i = rows == null ? from : rows.nextSetBit(from); i >= 0 && i < to; i = rows == null ? i + 1 : rows.nextSetBit(i + 1)) {
+                    int day = bookingDays[i];
+                    if (day != CompactTransaction.NO_DATE) {
+                        sums[(day - first) * 2] += amounts[i];
+                        sums[(day - first) * 2 + 1]++;
+                    }
+                }
+                return sums;
+            }
+        });
+        for (int day = 0; day < days; day++) {
+            if (sums[day * 2 + 1] > 0)
+                result.put(first + day, sums[day * 2]);
+        }
+        return result;
+    }
+
+    /**
+     * The balance at the end of every booking day, e.g. to chart the balance of an account over time
+     *
+     * @param selection
+     *            the rows to accumulate, usually the booked rows of one account, or null for all rows
+     * @param openingBalance
+     *            the balance in minor units before the first selected row
+     * @return the balance in minor units per day since 1970-01-01 on which a selected row was booked
+     */
+    public SortedMap<Integer, Long> balanceByDay(Selection selection, long openingBalance) {
+        SortedMap<Integer, Long> result = sumByDay(selection);
+        long balance = openingBalance;
+        for (Map.Entry<Integer, Long> entry : result.entrySet()) {
+            balance += entry.getValue();
+            entry.setValue(balance);
+        }
+        return result;
+    }
+
+    /**
+     * @return the first and last booking day of the rows, or null if no row has a booking date
+     */
+    private int[] dayRange(BitSet rows) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = rows == null ? 0 : rows.nextSetBit(0); i >= 0 && i < size; i = rows == null ? i + 1 : rows.nextSetBit(i + 1)) {
+            int day = bookingDays[i];
+            if (day == CompactTransaction.NO_DATE)
+                continue;
+            if (day < min)
+                min = day;
+            if (day > max)
+                max = day;
+        }
+        return min > max ? null : new int[] { min, max };
+    }
+
+    private BitSet rows(Selection selection) {
+        if (selection == null)
+            return null;
+        if (selection.table != this)
+            throw new IllegalArgumentException("The selection belongs to a different table");
+        return selection.rows;
+    }
+
+    /**
+     * Aggregation over a range of rows, whose partial results are added up element by element
+     */
+    private interface RangeTask {
+        long[] compute(int from, int to);
+    }
+
+    /**
+     * Run a task over all rows, split into ranges processed by the executor if the table is large enough
+     */
+    private long[] run(final RangeTask task) {
+        ExecutorService current = executor;
+        int tasks = Math.min(parallelism, size / MIN_ROWS_PER_TASK);
+        if (current == null || tasks <= 1)
+            return task.compute(0, size);
+
+        int chunk = (size + tasks - 1) / tasks;
+        List<Future<long[]>> futures = new ArrayList<Future<long[]>>(tasks);
+        for (int from = chunk; from < size; from += chunk) {
+            final int start = from;
+            final int end = Math.min(size, from + chunk);
+            futures.add(current.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() {
+                    return task.compute(start, end);
+                }
+            }));
+        }
+
+        // the calling thread processes the first range itself
+        long[] result = task.compute(0, chunk);
+        try {
+            for (Future<long[]> future : futures) {
+                long[] partial = future.get();
+                for (int i = 0; i < result.length; i++)
+                    result[i] += partial[i];
+            }
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while aggregating transactions", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw new IllegalStateException("Aggregating transactions failed", e.getCause());
+        }
+        return result;
+    }
+
+    private static void cancel(List<Future<long[]>> futures) {
+        for (Future<long[]> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Set of rows of a table. Selections are immutable and can be combined freely.
+     */
+    public static final class Selection {
+
+        private final TransactionTable table;
+        private final BitSet rows;
+
+        private Selection(TransactionTable table, BitSet rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        /**
+         * @return the rows contained in both selections
+         */
+        public Selection and(Selection other) {
+            BitSet result = (BitSet) rows.clone();
+            result.and(table.rows(other));
+            return new Selection(table, result);
+        }
+
+        /**
+         * @return the rows contained in either selection
+         */
+        public Selection or(Selection other) {
+            BitSet result = (BitSet) rows.clone();
+            result.or(table.rows(other));
+            return new Selection(table, result);
+        }
+
+        /**
+         * @return the rows of the table not contained in this selection
+         */
+        public Selection not() {
+            BitSet result = (BitSet) rows.clone();
+            result.flip(0, table.size);
+            return new Selection(table, result);
+        }
+
+        /**
+         * @return the number of selected rows
+         */
+        public int size() {
+            return rows.cardinality();
+        }
+
+        /**
+         * @return whether a row is selected
+         */
+        public boolean contains(int row) {
+            return rows.get(row);
+        }
+    }
+
+    /**
+     * Distinct values of a string column and the code of every row, -1 for null
+     */
+    private static final class Dictionary {
+
+        private String[] values;
+        private int[] codes;
+        private int count;
+        private final Map<String, Integer> index;
+
+        Dictionary(int capacity) {
+            values = new String[16];
+            codes = new int[Math.max(capacity, 16)];
+            index = new HashMap<String, Integer>();
+        }
+
+        private Dictionary(Dictionary source, int rows) {
+            values = Arrays.copyOf(source.values, source.count);
+            codes = Arrays.copyOf(source.codes, rows);
+            count = source.count;
+            index = new HashMap<String, Integer>(source.index);
+        }
+
+        void add(int row, String value) {
+            if (row == codes.length)
+                codes = Arrays.copyOf(codes, row * 2);
+            if (value == null) {
+                codes[row] = -1;
+                return;
+            }
+
+            Integer code = index.get(value);
+            if (code == null) {
+                code = count;
+                if (count == values.length)
+                    values = Arrays.copyOf(values, count * 2);
+                values[count++] = value;
+                index.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        /**
+         * @return a trimmed copy of the first rows, which later additions to this dictionary leave untouched
+         */
+        Dictionary copy(int rows) {
+            return new Dictionary(this, rows);
+        }
+
+        int size() {
+            return count;
+        }
+
+        int find(String value) {
+            Integer code = value == null ? null : index.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String get(int row) {
+            int code = codes[row];
+            return code < 0 ? null : values[code];
+        }
+
+        List<String> getValues() {
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+    }
+
+    /**
+     * Collects rows one by one before building a table
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] amounts;
+        private int[] bookingDays;
+        private boolean[] booked;
+        private final Dictionary accounts;
+        private final Dictionary names;
+        private final Dictionary types;
+        private final Dictionary currencies;
+
+        /**
+         * @param capacity expected number of rows
+         */
+        public Builder(int capacity) {
+            int initial = Math.max(capacity, 16);
+            amounts = new long[initial];
+            bookingDays = new int[initial];
+            booked = new boolean[initial];
+            accounts = new Dictionary(initial);
+            names = new Dictionary(initial);
+            types = new Dictionary(initial);
+            currencies = new Dictionary(initial);
+        }
+
+        /**
+         * Append a transaction as row
+         */
+        public Builder add(CompactTransaction transaction) {
+            if (size == amounts.length) {
+                amounts = Arrays.copyOf(amounts, size * 2);
+                bookingDays = Arrays.copyOf(bookingDays, size * 2);
+                booked = Arrays.copyOf(booked, size * 2);
+            }
+            amounts[size] = transaction.getAmount();
+            bookingDays[size] = transaction.getBookingDate();
+            booked[size] = transaction.isBooked();
+            accounts.add(size, transaction.getAccountId());
+            names.add(size, transaction.getName());
+            types.add(size, transaction.getType());
+            currencies.add(size, transaction.getCurrency());
+            size++;
+            return this;
+        }
+
+        /**
+         * @return new table containing the rows added so far
+         */
+        public TransactionTable build() {
+            return new TransactionTable(this);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.NetworkError;
+import com.android.volley.NetworkResponse;
+import com.android.volley.NoConnectionError;
+import com.android.volley.Request;
+import com.android.volley.TimeoutError;
+import com.android.volley.VolleyError;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import me.figo.internal.FigoRequest;
+
+/**
+ * Transport executing requests through HttpURLConnection on an Executor instead of a Volley RequestQueue. Results and
+ * errors are delivered on the executor's threads.
+ *
+ * Connections to the API endpoint are kept alive and reused by the platform's HTTP connection pool, whose size can be
+ * tuned with the <code>http.maxConnections</code> system property.
+ */
+public class UrlConnectionTransport implements FigoTransport {
+
+    private static final int DEFAULT_THREADS = 4;
+
+    private final Executor executor;
+
+    /**
+     * Creates a transport running requests on a pool of {@value #DEFAULT_THREADS} daemon threads
+     */
+    public UrlConnectionTransport() {
+        this(createDefaultExecutor());
+    }
+
+    /**
+     * Creates a transport running requests on the given executor
+     *
+     * @param executor the executor used to run the blocking HTTP calls
+     */
+    public UrlConnectionTransport(Executor executor) {
+        this.executor = executor;
+    }
+
+    private static ExecutorService createDefaultExecutor() {
+        return Executors.newFixedThreadPool(DEFAULT_THREADS, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "figo-transport");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public <T> void enqueue(final FigoApi api, final FigoRequest<T> request) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                execute(api, request);
+            }
+        });
+    }
+
+    /**
+     * Execute a request on the calling thread and deliver its result to the request's listeners. Failed attempts are
+     * repeated according to the API's retry policy, waiting on the calling thread in between.
+     */
+    protected <T> void execute(FigoApi api, FigoRequest<T> request) {
+        if (request.isCanceled())
+            return;
+
+        String method;
+        try {
+            method = getMethodName(request.getMethod());
+        } catch (IllegalArgumentException e) {
+            request.deliverError(new VolleyError(e));
+            return;
+        }
+
+        FigoRetryPolicy policy = api.getRetryPolicy();
+        if (policy != null)
+            policy.onCall();
+
+        long delay = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                NetworkResponse response = performRequest(api, request);
+                if (policy != null && !request.isCanceled() && policy.shouldRetry(method, attempt, response.statusCode)) {
+                    delay = policy.nextDelay(delay);
+                    FigoRetryPolicy.sleep(delay);
+                    continue;
+                }
+                request.deliverNetworkResponse(response);
+            } catch (IOException e) {
+                if (policy != null && !request.isCanceled() && policy.shouldRetry(method, attempt, e)) {
+                    try {
+                        delay = policy.nextDelay(delay);
+                        FigoRetryPolicy.sleep(delay);
+                        continue;
+                    } catch (InterruptedIOException interrupted) {
+                        e = interrupted;
+                    }
+                }
+                request.deliverError(toVolleyError(e));
+            } catch (AuthFailureError e) {
+                request.deliverError(e);
+            } catch (RuntimeException e) {
+                // like Volley's NetworkDispatcher, never let a failure escape without notifying the listeners
+                request.deliverError(new VolleyError(e));
+            }
+            return;
+        }
+    }
+
+    private static VolleyError toVolleyError(IOException e) {
+        if (e instanceof SocketTimeoutException)
+            return new TimeoutError();
+        if (e instanceof ConnectException || e instanceof UnknownHostException)
+            return new NoConnectionError(e);
+        return new NetworkError(e);
+    }
+
+    /**
+     * Perform the HTTP exchange for a request
+     *
+     * @return the raw response as received from the server
+     */
+    protected NetworkResponse performRequest(FigoApi api, Request<?> request) throws IOException, AuthFailureError {
+        HttpURLConnection connection = (HttpURLConnection) new URL(request.getUrl()).openConnection();
+        connection.setConnectTimeout(api.getTimeout());
+        connection.setReadTimeout(api.getTimeout());
+        connection.setUseCaches(false);
+        connection.setDoInput(true);
+        api.setupTrustManager(connection);
+
+        connection.setRequestMethod(getMethodName(request.getMethod()));
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+        boolean get = request.getMethod() == Request.Method.GET;
+        ResponseStore.Entry stored = get ? api.prepareRevalidation(connection, request.getUrl()) : null;
+
+        byte[] body = request.getBody();
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", request.getBodyContentType());
+            connection.setFixedLengthStreamingMode(body.length);
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+        }
+
+        int code = connection.getResponseCode();
+        InputStream stream = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        Map<String, String> headers = new TreeMap<String, String>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (header.getKey() != null && !header.getValue().isEmpty()) {
+                headers.put(header.getKey(), header.getValue().get(0));
+            }
+        }
+
+        // reading the body to its end and closing the stream hands the connection back to the keep-alive pool
+        byte[] data = FigoApi.readFully(stream);
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED && stored != null) {
+            return new NetworkResponse(HttpURLConnection.HTTP_OK, stored.getData(), headers, true);
+        } else if (code == HttpURLConnection.HTTP_OK && get) {
+            api.storeResponse(request.getUrl(), headers.get("ETag"), headers.get("Last-Modified"), data);
+        }
+        return new NetworkResponse(code, data, headers, false);
+    }
+
+    /**
+     * @throws IllegalArgumentException for methods the API does not use
+     */
+    static String getMethodName(int method) {
+        switch (method) {
+            case Request.Method.GET:
+                return "GET";
+            case Request.Method.POST:
+                return "POST";
+            case Request.Method.PUT:
+                return "PUT";
+            case Request.Method.DELETE:
+                return "DELETE";
+            default:
+                throw new IllegalArgumentException("Unsupported request method " + method);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo;
+
+import com.android.volley.AuthFailureError;
+import com.android.volley.RequestQueue;
+import com.android.volley.RetryPolicy;
+import com.android.volley.VolleyError;
+
+import me.figo.internal.FigoRequest;
+
+/**
+ * Transport handing all requests to a Volley RequestQueue. Volley only repeats requests after timeouts and without delay;
+ * these retries are limited by the API's {@link FigoRetryPolicy} to idempotent methods and paid from its budget.
+ */
+public class VolleyTransport implements FigoTransport {
+
+    private final RequestQueue requestQueue;
+
+    public VolleyTransport(RequestQueue requestQueue) {
+        this.requestQueue = requestQueue;
+    }
+
+    @Override
+    public <T> void enqueue(FigoApi api, FigoRequest<T> request) {
+        request.setRetryPolicy(new VolleyRetryPolicy(api.getRetryPolicy(), UrlConnectionTransport.getMethodName(request.getMethod()), api.getTimeout()));
+        requestQueue.add(request);
+    }
+
+    public RequestQueue getRequestQueue() {
+        return requestQueue;
+    }
+
+    /**
+     * Volley retry policy delegating the decision to a FigoRetryPolicy
+     */
+    private static class VolleyRetryPolicy implements RetryPolicy {
+
+        private final FigoRetryPolicy policy;
+        private final String method;
+        private final int timeout;
+        private int retryCount;
+
+        VolleyRetryPolicy(FigoRetryPolicy policy, String method, int timeout) {
+            this.policy = policy;
+            this.method = method;
+            this.timeout = timeout;
+            if (policy != null)
+                policy.onCall();
+        }
+
+        @Override
+        public int getCurrentTimeout() {
+            return timeout;
+        }
+
+        @Override
+        public int getCurrentRetryCount() {
+            return retryCount;
+        }
+
+        @Override
+        public void retry(VolleyError error) throws VolleyError {
+            // Volley asks for timeouts and authentication failures, only the former are worth repeating
+            if (policy == null || error instanceof AuthFailureError || !policy.canRetry(method, retryCount + 1) || !policy.getBudget().tryAcquire())
+                throw error;
+            retryCount++;
+        }
+    }
+}
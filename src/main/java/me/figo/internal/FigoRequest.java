@@ -6,44 +6,91 @@ import com.android.volley.ParseError;
 import com.android.volley.Request;
 import com.android.volley.Response;
 import com.android.volley.toolbox.HttpHeaderParser;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Type;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import me.figo.FigoError;
+import me.figo.FigoRateLimitError;
 
 /**
  * Created by Zane on 9/26/2015.
  */
 public class FigoRequest<T> extends Request<T> {
     private final Class<T> clazz;
-    private final Map<String, String> headers;
     private final Response.Listener<T> listener;
     private final Object data;
+    private volatile Map<String, String> headers;
+    private byte[] body;
+    private volatile Runnable cancelListener;
 
     public FigoRequest(int method, String apiEndpoint, String path, String authorization, Object data, Class<T> clazz, Response.Listener<T> listener, Response.ErrorListener errorListener) {
-        super(method, apiEndpoint + path, errorListener);
+        this(method, apiEndpoint + path, createHeaders(authorization), data, clazz, listener, errorListener);
+    }
+
+    /**
+     * Creates a request sending a prepared set of headers, which may be shared by any number of requests
+     *
+     * @param url     the complete URL of the request
+     * @param headers immutable headers of the request, see {@link #createHeaders(String)}
+     */
+    public FigoRequest(int method, String url, Map<String, String> headers, Object data, Class<T> clazz, Response.Listener<T> listener, Response.ErrorListener errorListener) {
+        super(method, url, errorListener);
         this.clazz = clazz;
         this.listener = listener;
-        this.headers = new HashMap<String, String>();
-        this.headers.put("Authorization", authorization);
-        this.headers.put("Accept", "application/json");
+        this.headers = headers;
         this.data = data;
     }
 
+    /**
+     * Build the immutable headers sent with every request of a user
+     *
+     * @param authorization the value of the Authorization header
+     * @return headers which can be shared by all requests with this authorization
+     */
+    public static Map<String, String> createHeaders(String authorization) {
+        Map<String, String> headers = new HashMap<String, String>(4);
+        headers.put("Authorization", authorization);
+        headers.put("Accept", "application/json");
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * The request body is serialized on first use and the encoded bytes are kept for further calls, e.g. on retries
+     */
     @Override
     public byte[] getBody() throws AuthFailureError {
-        if(this.data != null) {
-            String encodedData = GsonAdapter.getInstance().toJson(this.data);
+        if (this.data != null && this.body == null) {
+            this.body = encodeBody(this.data);
+        }
+
+        return this.body;
+    }
 
-            return encodedData.getBytes(Charset.forName("UTF-8"));
+    private static byte[] encodeBody(Object data) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(stream, Charset.forName("UTF-8")));
+        try {
+            GsonAdapter.getInstance().toJson(data, data.getClass(), writer);
+            writer.close();
+        } catch (IOException e) {
+            throw new JsonIOException(e);
         }
 
-        return null;
+        return stream.toByteArray();
     }
 
     @Override
@@ -51,6 +98,15 @@ public class FigoRequest<T> extends Request<T> {
         return "application/json";
     }
 
+    /**
+     * Replace the headers, e.g. after the access token was refreshed while the request was waiting to be sent
+     *
+     * @param headers immutable headers of the request, see {@link #createHeaders(String)}
+     */
+    public void setHeaders(Map<String, String> headers) {
+        this.headers = headers;
+    }
+
     @Override
     public Map<String, String> getHeaders() throws AuthFailureError {
         return this.headers;
@@ -64,23 +120,78 @@ public class FigoRequest<T> extends Request<T> {
                 return Response.success(handleResponse(response, clazz),
                         HttpHeaderParser.parseCacheHeaders(response));
             } else if (code == 400) {
-                return Response.error(new FigoError((FigoError.ErrorResponse) handleResponse(response,
-                       FigoError.ErrorResponse.class)));
+                FigoError.ErrorResponse error = handleResponse(response, FigoError.ErrorResponse.class);
+                // an empty body decodes to null
+                return Response.error(error != null ? new FigoError(error, code) : new FigoError("bad_request", "Bad Request", code));
             } else if (code == 401) {
-                return Response.error(new FigoError("access_denied", "Access Denied"));
+                return Response.error(new FigoError("access_denied", "Access Denied", code));
+            } else if (code == 429) {
+                return Response.error(new FigoRateLimitError(FigoRateLimitError.parseRetryAfter(getHeader(response, "Retry-After"))));
             } else {
-                return Response.error(new FigoError("internal_server_error", "We are very sorry, but something went wrong"));
+                return Response.error(new FigoError("internal_server_error", "We are very sorry, but something went wrong", code));
             }
         } catch (UnsupportedEncodingException e) {
             return Response.error(new ParseError(e));
         } catch (JsonSyntaxException e) {
             return Response.error(new ParseError(e));
+        } catch (JsonIOException e) {
+            return Response.error(new ParseError(e));
         }
     }
 
+    private static String getHeader(NetworkResponse response, String name) {
+        if (response.headers == null)
+            return null;
+
+        String value = response.headers.get(name);
+        return value != null ? value : response.headers.get(name.toLowerCase());
+    }
+
+    /**
+     * Decode the response body straight from its bytes, without building an intermediate String of the whole payload
+     */
     private <C> C handleResponse(NetworkResponse response, Class<C> clazz) throws UnsupportedEncodingException {
-        String json = new String(response.data, HttpHeaderParser.parseCharset(response.headers));
-        return GsonAdapter.getInstance().fromJson(json, clazz);
+        // check whether decoding is actual requested
+        if (clazz == null || response.data == null)
+            return null;
+
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(response.data),
+                HttpHeaderParser.parseCharset(response.headers)));
+        return GsonAdapter.getInstance().fromJson(reader, clazz);
+    }
+
+    /**
+     * Register a callback which is run when the request is cancelled, e.g. to release resources held for it
+     *
+     * @param cancelListener the callback, or null
+     */
+    public void setCancelListener(Runnable cancelListener) {
+        this.cancelListener = cancelListener;
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        Runnable listener = cancelListener;
+        if (listener != null)
+            listener.run();
+    }
+
+    /**
+     * Parse a response which was received outside of a Volley RequestQueue and deliver it to the listeners
+     *
+     * @param networkResponse the raw response as received from the server
+     */
+    public void deliverNetworkResponse(NetworkResponse networkResponse) {
+        if (isCanceled())
+            return;
+
+        Response<T> response = parseNetworkResponse(networkResponse);
+        if (response.isSuccess()) {
+            deliverResponse(response.result);
+        } else {
+            deliverError(response.error);
+        }
     }
 
     @Override
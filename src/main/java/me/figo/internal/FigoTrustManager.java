@@ -22,40 +22,51 @@
 
 package me.figo.internal;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.net.ssl.X509TrustManager;
+
+import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 
 public class FigoTrustManager implements X509TrustManager {
 
-    private static final List<String> VALID_FINGERPRINTS = new ArrayList<String>(Arrays.asList(
-            "3A62544D86B43438EA34644E9510A9FF372769C0",                                                     
+    private static final List<String> VALID_FINGERPRINTS = new CopyOnWriteArrayList<String>(Arrays.asList(
+            "3A62544D86B43438EA34644E9510A9FF372769C0",
             "CFC1BC7F6A16092B10838AB0224F3A65D270D73E"));
 
+    private static volatile Pins pins = new Pins(VALID_FINGERPRINTS);
+
     /**
-     * @return the list of trusted certificate fingerprints using SHA1
+     * @return the list of trusted certificate fingerprints using SHA1 or SHA256
      */
     public static List<String> getTrustedFingerprints() {
-        return VALID_FINGERPRINTS;
+        return Collections.unmodifiableList(VALID_FINGERPRINTS);
     }
-    
+
     /**
      * Add a fingerprint to the trusted list, e.g. when using a custom figo deployment.
-     * 
-     * @param fingerprint the SHA1 hash of the SSL certificate in upper case
+     *
+     * @param fingerprint the SHA1 or SHA256 hash of the SSL certificate in upper case
      */
-    public static void addTrustedFingerprint(String fingerprint) {
+    public static synchronized void addTrustedFingerprint(String fingerprint) {
         VALID_FINGERPRINTS.add(fingerprint);
+        pins = new Pins(VALID_FINGERPRINTS);
     }
-    
+
     @Override
     public java.security.cert.X509Certificate[] getAcceptedIssuers() {
         return null;
@@ -69,24 +80,74 @@ public class FigoTrustManager implements X509TrustManager {
     public void checkServerTrusted(X509Certificate[] certs, String authType) throws CertificateException {
         if (certs.length == 0) {
             throw new CertificateException("No certificate found");
-        } else {
-            String thumbprint = getThumbPrint(certs[0]);
-            if (!VALID_FINGERPRINTS.contains(thumbprint))
-                throw new CertificateException();
+        } else if (!pins.isTrusted(certs[0])) {
+            throw new CertificateException();
         }
     }
 
-    private static String getThumbPrint(X509Certificate cert) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-1");
-            byte[] der = cert.getEncoded();
-            md.update(der);
-            byte[] digest = md.digest();
-            return new String(Hex.encodeHex(digest));
-        } catch (NoSuchAlgorithmException e) {
-            return "";
-        } catch (CertificateEncodingException e) {
-            return "";
+    /**
+     * Immutable snapshot of the trusted fingerprints as raw digests, together with a small cache of already verified
+     * certificates. A new snapshot is published whenever a fingerprint is added, which also drops the cache.
+     */
+    private static class Pins {
+        private static final int CACHE_SIZE = 16;
+
+        private final Set<ByteBuffer> sha1 = new HashSet<ByteBuffer>();
+        private final Set<ByteBuffer> sha256 = new HashSet<ByteBuffer>();
+        private final Map<X509Certificate, Boolean> verified = new LinkedHashMap<X509Certificate, Boolean>(CACHE_SIZE, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<X509Certificate, Boolean> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        };
+
+        Pins(List<String> fingerprints) {
+            for (String fingerprint : fingerprints) {
+                try {
+                    byte[] digest = Hex.decodeHex(fingerprint.toCharArray());
+                    if (digest.length == 20) {
+                        sha1.add(ByteBuffer.wrap(digest));
+                    } else if (digest.length == 32) {
+                        sha256.add(ByteBuffer.wrap(digest));
+                    }
+                } catch (DecoderException e) {
+                    // not a hex encoded fingerprint, it can never match
+                }
+            }
+        }
+
+        boolean isTrusted(X509Certificate cert) {
+            synchronized (verified) {
+                Boolean cached = verified.get(cert);
+                if (cached != null)
+                    return cached;
+            }
+
+            boolean trusted;
+            try {
+                byte[] der = cert.getEncoded();
+                trusted = matches(sha1, "SHA-1", der) || matches(sha256, "SHA-256", der);
+            } catch (CertificateEncodingException e) {
+                trusted = false;
+            }
+
+            synchronized (verified) {
+                verified.put(cert, trusted);
+            }
+            return trusted;
+        }
+
+        private static boolean matches(Set<ByteBuffer> digests, String algorithm, byte[] der) {
+            if (digests.isEmpty())
+                return false;
+
+            try {
+                return digests.contains(ByteBuffer.wrap(MessageDigest.getInstance(algorithm).digest(der)));
+            } catch (NoSuchAlgorithmException e) {
+                return false;
+            }
         }
     }
 }
@@ -22,59 +22,58 @@
 
 package me.figo.internal;
 
-import java.lang.reflect.Type;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.IOException;
 import java.util.Date;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
-public class GsonAdapter {
-    private static Gson instance = null;
+import me.figo.models.ModelTypeAdapterFactory;
 
-    public static Gson createGson() {
-        JsonSerializer<Date> serializer = new JsonSerializer<Date>() {
-            @Override
-            public JsonElement serialize(Date src, Type type, JsonSerializationContext context) {
-                if (src == null)
-                    return null;
+public class GsonAdapter {
 
-                String formatted = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(src);
-                return new JsonPrimitive(formatted.substring(0, 22) + ":" + formatted.substring(22));
+    /**
+     * Streaming adapter for figo timestamps, see {@link IsoDateFormat}
+     */
+    private static final TypeAdapter<Date> DATE_ADAPTER = new TypeAdapter<Date>() {
+        @Override
+        public void write(JsonWriter out, Date src) throws IOException {
+            if (src == null) {
+                out.nullValue();
+                return;
             }
-        };
 
-        JsonDeserializer<Date> deserializer = new JsonDeserializer<Date>() {
-            @Override
-            public Date deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-                if (json == null)
-                    return null;
+            out.value(IsoDateFormat.format(src));
+        }
 
-                String s = json.getAsString().replace("Z", "+0000");
-                try {
-                    return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZZZZ").parse(s);
-                } catch (ParseException e) {
-                    return null;
-                }
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
             }
-        };
 
-        return new GsonBuilder().registerTypeAdapter(Date.class, serializer).registerTypeAdapter(Date.class, deserializer).excludeFieldsWithoutExposeAnnotation().create();
+            return IsoDateFormat.parse(in.nextString());
+        }
+    };
+
+    public static Gson createGson() {
+        return new GsonBuilder().registerTypeAdapter(Date.class, DATE_ADAPTER).registerTypeAdapterFactory(new ModelTypeAdapterFactory())
+                .excludeFieldsWithoutExposeAnnotation().create();
     }
 
     public static Gson getInstance() {
-        if(instance == null) {
-            instance = createGson();
-        }
+        return InstanceHolder.INSTANCE;
+    }
 
-        return instance;
+    /**
+     * Lazily initialized and safely published shared Gson instance
+     */
+    private static class InstanceHolder {
+        static final Gson INSTANCE = createGson();
     }
 }
@@ -0,0 +1,306 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package me.figo.internal;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Parser and formatter for the ISO-8601 timestamps used by the figo API, e.g. <code>2013-06-02T00:00:00.000+02:00</code>.
+ * Unlike SimpleDateFormat it keeps no state, so its static methods are thread-safe and can be called by all Gson
+ * adapters concurrently.
+ */
+public final class IsoDateFormat {
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+
+    private IsoDateFormat() {
+    }
+
+    /**
+     * Parse a figo timestamp. Seconds, fraction and time zone are optional, a missing time zone is read as UTC.
+     *
+     * @param s the timestamp to parse
+     * @return the parsed date or null if the string is not a valid timestamp
+     */
+    public static Date parse(String s) {
+        long millis = parseMillis(s);
+        return millis == Long.MIN_VALUE ? null : new Date(millis);
+    }
+
+    /**
+     * Parse a figo timestamp into milliseconds since the epoch
+     *
+     * @param s the timestamp to parse
+     * @return the milliseconds since the epoch or Long.MIN_VALUE if the string is not a valid timestamp
+     */
+    public static long parseMillis(String s) {
+        if (s == null)
+            return Long.MIN_VALUE;
+
+        int len = s.length();
+        if (len < 10 || s.charAt(4) != '-' || s.charAt(7) != '-')
+            return Long.MIN_VALUE;
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31)
+            return Long.MIN_VALUE;
+
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+        int pos = 10;
+        if (pos < len && s.charAt(pos) == 'T') {
+            if (len < pos + 6 || s.charAt(pos + 3) != ':')
+                return Long.MIN_VALUE;
+            int hour = digits(s, pos + 1, 2);
+            int minute = digits(s, pos + 4, 2);
+            if (hour < 0 || hour > 23 || minute < 0 || minute > 59)
+                return Long.MIN_VALUE;
+            millis += (hour * 60 + minute) * MILLIS_PER_MINUTE;
+            pos += 6;
+
+            if (pos < len && s.charAt(pos) == ':') {
+                int second = digits(s, pos + 1, 2);
+                if (second < 0 || second > 60)
+                    return Long.MIN_VALUE;
+                millis += second * 1000L;
+                pos += 3;
+
+                if (pos < len && s.charAt(pos) == '.') {
+                    // only the first three fraction digits are significant
+                    int fraction = 0;
+                    int scale = 100;
+                    pos++;
+                    int start = pos;
+                    while (pos < len && isDigit(s.charAt(pos))) {
+                        fraction += (s.charAt(pos) - '0') * scale;
+                        scale /= 10;
+                        pos++;
+                    }
+                    if (pos == start)
+                        return Long.MIN_VALUE;
+                    millis += fraction;
+                }
+            }
+        }
+
+        if (pos == len)
+            return millis;
+
+        char c = s.charAt(pos);
+        if (c == 'Z')
+            return pos + 1 == len ? millis : Long.MIN_VALUE;
+        if (c != '+' && c != '-')
+            return Long.MIN_VALUE;
+
+        int offsetHours = digits(s, pos + 1, 2);
+        pos += 3;
+        if (pos < len && s.charAt(pos) == ':')
+            pos++;
+        int offsetMinutes = digits(s, pos, 2);
+        if (offsetHours < 0 || offsetMinutes < 0 || pos + 2 != len)
+            return Long.MIN_VALUE;
+
+        long offset = (offsetHours * 60 + offsetMinutes) * MILLIS_PER_MINUTE;
+        return c == '+' ? millis - offset : millis + offset;
+    }
+
+    /**
+     * Parse the calendar date of a figo timestamp as written, ignoring time and time zone, so that e.g. the booking date
+     * <code>2013-06-02T00:00:00.000+02:00</code> stays on June 2nd regardless of the time zone of the reader.
+     *
+     * @param s the timestamp or date to parse
+     * @return the number of days since 1970-01-01, or Integer.MIN_VALUE if the string does not start with a valid date
+     */
+    public static int parseEpochDay(String s) {
+        if (s == null || s.length() < 10 || s.charAt(4) != '-' || s.charAt(7) != '-')
+            return Integer.MIN_VALUE;
+
+        int year = digits(s, 0, 4);
+        int month = digits(s, 5, 2);
+        int day = digits(s, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31)
+            return Integer.MIN_VALUE;
+        if (s.length() > 10 && s.charAt(10) != 'T')
+            return Integer.MIN_VALUE;
+        return (int) daysFromCivil(year, month, day);
+    }
+
+    /**
+     * Calendar date of a point in time in UTC, which matches {@link #parseEpochDay} for the midnight UTC timestamps the
+     * figo API uses for booking and value dates
+     *
+     * @param date the point in time
+     * @return the number of days since 1970-01-01
+     */
+    public static int epochDay(Date date) {
+        return (int) floorDiv(date.getTime(), MILLIS_PER_DAY);
+    }
+
+    /**
+     * Format a number of days since 1970-01-01 as date, e.g. <code>2013-06-02</code>
+     *
+     * @param epochDay the number of days since 1970-01-01
+     * @return the formatted date
+     */
+    public static String formatEpochDay(int epochDay) {
+        char[] buf = new char[10];
+        writeDate(buf, epochDay);
+        return new String(buf);
+    }
+
+    /**
+     * @param epochDay the number of days since 1970-01-01
+     * @return the number of months between January 1970 and the month of the day
+     */
+    public static int epochMonth(int epochDay) {
+        long z = epochDay + 719468L;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+        return (year - 1970) * 12 + month - 1;
+    }
+
+    /**
+     * Format a number of months since January 1970, e.g. <code>2013-06</code>
+     *
+     * @param epochMonth the number of months since January 1970
+     * @return the formatted month
+     */
+    public static String formatEpochMonth(int epochMonth) {
+        int year = 1970 + (int) floorDiv(epochMonth, 12);
+        int month = epochMonth - (year - 1970) * 12 + 1;
+        char[] buf = new char[7];
+        write(buf, 0, year, 4);
+        buf[4] = '-';
+        write(buf, 5, month, 2);
+        return new String(buf);
+    }
+
+    /**
+     * Format a date in the default time zone, e.g. <code>2013-06-02T00:00:00.000+02:00</code>
+     *
+     * @param date the date to format
+     * @return the formatted timestamp
+     */
+    public static String format(Date date) {
+        return format(date.getTime(), TimeZone.getDefault());
+    }
+
+    /**
+     * Format a point in time in the given time zone
+     *
+     * @param millis milliseconds since the epoch
+     * @param zone the time zone whose offset is used
+     * @return the formatted timestamp
+     */
+    public static String format(long millis, TimeZone zone) {
+        int offsetMinutes = (int) (zone.getOffset(millis) / MILLIS_PER_MINUTE);
+        long local = millis + offsetMinutes * MILLIS_PER_MINUTE;
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+
+        char[] buf = new char[29];
+        writeDate(buf, days);
+        buf[10] = 'T';
+        write(buf, 11, millisOfDay / 3600000, 2);
+        buf[13] = ':';
+        write(buf, 14, millisOfDay / 60000 % 60, 2);
+        buf[16] = ':';
+        write(buf, 17, millisOfDay / 1000 % 60, 2);
+        buf[19] = '.';
+        write(buf, 20, millisOfDay % 1000, 3);
+        buf[23] = offsetMinutes < 0 ? '-' : '+';
+        int absOffset = Math.abs(offsetMinutes);
+        write(buf, 24, absOffset / 60, 2);
+        buf[26] = ':';
+        write(buf, 27, absOffset % 60, 2);
+        return new String(buf);
+    }
+
+    /**
+     * @return the number of days between 1970-01-01 and the given date of the proleptic Gregorian calendar
+     */
+    static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yoe = y - era * 400;
+        int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468;
+    }
+
+    private static void writeDate(char[] buf, long epochDay) {
+        long z = epochDay + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yoe + era * 400) + (month <= 2 ? 1 : 0);
+
+        write(buf, 0, year, 4);
+        buf[4] = '-';
+        write(buf, 5, month, 2);
+        buf[7] = '-';
+        write(buf, 8, day, 2);
+    }
+
+    private static void write(char[] buf, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static int digits(String s, int offset, int count) {
+        if (offset + count > s.length())
+            return -1;
+
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = s.charAt(i);
+            if (!isDigit(c))
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? q - 1 : q;
+    }
+}
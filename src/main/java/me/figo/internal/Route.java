@@ -0,0 +1,345 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo.internal;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Path template of an API endpoint, e.g. "/rest/accounts/{}/transactions/{}". The template is split into its literal
+ * parts once, and every "{}" is replaced by an escaped parameter when a path is built: as a path segment before the "?",
+ * as a query value after it. Parameters consisting only of unreserved characters, like all figo IDs, are copied as they
+ * are.
+ *
+ * Paths are assembled in a StringBuilder kept per thread, so building one only allocates the resulting String.
+ */
+public final class Route {
+
+    public static final Route CATALOG_SERVICES = new Route("/rest/catalog/services/{}");
+    public static final Route CATALOG_BANK = new Route("/rest/catalog/banks/{}/{}");
+    public static final Route TRANSACTIONS = new Route("/rest/transactions");
+    public static final Route ACCOUNT = new Route("/rest/accounts/{}");
+    public static final Route ACCOUNT_BALANCE = new Route("/rest/accounts/{}/balance");
+    public static final Route ACCOUNT_TRANSACTIONS = new Route("/rest/accounts/{}/transactions");
+    public static final Route ACCOUNT_TRANSACTION = new Route("/rest/accounts/{}/transactions/{}");
+    public static final Route ACCOUNT_STANDING_ORDERS = new Route("/rest/accounts/{}/standing_orders");
+    public static final Route ACCOUNT_STANDING_ORDER = new Route("/rest/accounts/{}/standing_orders/{}");
+    public static final Route ACCOUNT_SECURITIES = new Route("/rest/accounts/{}/securities");
+    public static final Route ACCOUNT_SECURITY = new Route("/rest/accounts/{}/securities/{}");
+    public static final Route ACCOUNT_PAYMENTS = new Route("/rest/accounts/{}/payments");
+    public static final Route ACCOUNT_PAYMENT = new Route("/rest/accounts/{}/payments/{}");
+    public static final Route ACCOUNT_PAYMENT_SUBMIT = new Route("/rest/accounts/{}/payments/{}/submit");
+    public static final Route BANK = new Route("/rest/banks/{}");
+    public static final Route BANK_REMOVE_PIN = new Route("/rest/banks/{}/remove_pin");
+    public static final Route NOTIFICATION = new Route("/rest/notifications/{}");
+    public static final Route TASK_PROGRESS = new Route("/task/progress?id={}");
+    public static final Route TASK_START = new Route("/task/start?id={}");
+    public static final Route TASK_CANCEL = new Route("/task/cancel?id={}");
+    public static final Route AUTH_REVOKE = new Route("/auth/revoke?token={}");
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final ThreadLocal<Builder> BUILDERS = new ThreadLocal<Builder>() {
+        @Override
+        protected Builder initialValue() {
+            return new Builder();
+        }
+    };
+
+    private final String template;
+    private final String[] literals;
+    private final int queryStart;
+
+    /**
+     * Creates a Route
+     *
+     * @param template
+     *            path of the endpoint with "{}" in place of every parameter
+     */
+    public Route(String template) {
+        List<String> parts = new ArrayList<String>();
+        int start = 0;
+        int index;
+        while ((index = template.indexOf("{}", start)) >= 0) {
+            parts.add(template.substring(start, index));
+            start = index + 2;
+        }
+        parts.add(template.substring(start));
+
+        this.template = template;
+        this.literals = parts.toArray(new String[parts.size()]);
+
+        // parameters following the literal containing the "?" are query values
+        int query = literals.length;
+        for (int i = 0; i < literals.length; i++) {
+            if (literals[i].indexOf('?') >= 0) {
+                query = i + 1;
+                break;
+            }
+        }
+        this.queryStart = query;
+    }
+
+    /**
+     * @return the number of parameters of the route
+     */
+    public int getParameterCount() {
+        return literals.length - 1;
+    }
+
+    /**
+     * Build the path of a route without parameters
+     */
+    public String format() {
+        return start().toString();
+    }
+
+    /**
+     * Build the path of a route with one parameter
+     */
+    public String format(String first) {
+        return start(first).toString();
+    }
+
+    /**
+     * Build the path of a route with two parameters
+     */
+    public String format(String first, String second) {
+        return start(first, second).toString();
+    }
+
+    /**
+     * Build the path of a route with three parameters
+     */
+    public String format(String first, String second, String third) {
+        return start(first, second, third).toString();
+    }
+
+    /**
+     * Start building the path of a route without parameters, e.g. to append optional query parameters. The builder is
+     * reused by the calling thread, so it has to be turned into a String before the next path is started.
+     */
+    public Builder start() {
+        checkParameters(0);
+        return BUILDERS.get().reset().append(literals[0]);
+    }
+
+    /**
+     * Start building the path of a route with one parameter, see {@link #start()}
+     */
+    public Builder start(String first) {
+        checkParameters(1);
+        return BUILDERS.get().reset().append(literals[0]).appendParameter(first, queryStart <= 1).append(literals[1]);
+    }
+
+    /**
+     * Start building the path of a route with two parameters, see {@link #start()}
+     */
+    public Builder start(String first, String second) {
+        checkParameters(2);
+        return BUILDERS.get().reset().append(literals[0]).appendParameter(first, queryStart <= 1).append(literals[1])
+                .appendParameter(second, queryStart <= 2).append(literals[2]);
+    }
+
+    /**
+     * Start building the path of a route with three parameters, see {@link #start()}
+     */
+    public Builder start(String first, String second, String third) {
+        checkParameters(3);
+        return BUILDERS.get().reset().append(literals[0]).appendParameter(first, queryStart <= 1).append(literals[1])
+                .appendParameter(second, queryStart <= 2).append(literals[2]).appendParameter(third, queryStart <= 3).append(literals[3]);
+    }
+
+    /**
+     * Whether a path was built from this route. Every path parameter has to match exactly one non-empty path segment,
+     * a query string following the path is ignored.
+     *
+     * @param path
+     *            string containing the path
+     * @param offset
+     *            index at which the path starts, e.g. after the API endpoint of a URL
+     */
+    public boolean matches(String path, int offset) {
+        int end = path.indexOf('?', offset);
+        if (end < 0)
+            end = path.length();
+
+        int position = offset;
+        for (int i = 0; i < queryStart; i++) {
+            // only the part before the "?" of the last literal belongs to the path
+            String literal = literals[i];
+            int length = literal.indexOf('?');
+            if (length < 0)
+                length = literal.length();
+            if (position + length > end || !path.regionMatches(position, literal, 0, length))
+                return false;
+            position += length;
+            if (i == queryStart - 1)
+                break;
+
+            int segmentEnd = position;
+            while (segmentEnd < end && path.charAt(segmentEnd) != '/') {
+                segmentEnd++;
+            }
+            if (segmentEnd == position)
+                return false;
+            position = segmentEnd;
+        }
+        return position == end;
+    }
+
+    private void checkParameters(int count) {
+        if (literals.length - 1 != count)
+            throw new IllegalArgumentException("Route " + template + " takes " + (literals.length - 1) + " parameters");
+    }
+
+    @Override
+    public String toString() {
+        return template;
+    }
+
+    /**
+     * Path under construction, which optional query parameters can be added to
+     */
+    public static final class Builder {
+
+        private final StringBuilder buffer = new StringBuilder(128);
+        private boolean hasQuery;
+
+        private Builder() {
+        }
+
+        Builder reset() {
+            buffer.setLength(0);
+            hasQuery = false;
+            return this;
+        }
+
+        Builder append(String literal) {
+            buffer.append(literal);
+            if (!hasQuery && literal.indexOf('?') >= 0)
+                hasQuery = true;
+            return this;
+        }
+
+        Builder appendParameter(String value, boolean query) {
+            if (value == null)
+                throw new IllegalArgumentException("Route parameters must not be null");
+            escape(buffer, value, query);
+            return this;
+        }
+
+        /**
+         * Add a query parameter unless its value is null
+         */
+        public Builder param(String name, String value) {
+            if (value != null) {
+                buffer.append(hasQuery ? '&' : '?').append(name).append('=');
+                hasQuery = true;
+                escape(buffer, value, true);
+            }
+            return this;
+        }
+
+        /**
+         * Add a numeric query parameter unless its value is null
+         */
+        public Builder param(String name, Integer value) {
+            if (value != null) {
+                buffer.append(hasQuery ? '&' : '?').append(name).append('=').append(value.intValue());
+                hasQuery = true;
+            }
+            return this;
+        }
+
+        /**
+         * Add a flag as "1" or "0" unless its value is null
+         */
+        public Builder param(String name, Boolean value) {
+            if (value != null) {
+                buffer.append(hasQuery ? '&' : '?').append(name).append('=').append(value.booleanValue() ? '1' : '0');
+                hasQuery = true;
+            }
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+
+    /**
+     * Append a value escaped as path segment or query value. Only unreserved characters (RFC 3986) are kept, everything
+     * else is percent-encoded as UTF-8, so IDs containing "/", "?", "#", "%" or "+" arrive at the server unchanged.
+     * Path segments consisting only of dots are encoded completely.
+     */
+    static void escape(StringBuilder buffer, String value, boolean query) {
+        // "." and ".." would be removed from the path as dot-segments
+        if (!query && (value.equals(".") || value.equals(".."))) {
+            for (int i = 0; i < value.length(); i++)
+                appendEscaped(buffer, '.');
+            return;
+        }
+
+        int length = value.length();
+        int i = 0;
+        while (i < length && isUnreserved(value.charAt(i)))
+            i++;
+        if (i == length) {
+            buffer.append(value);
+            return;
+        }
+
+        buffer.append(value, 0, i);
+        while (i < length) {
+            char c = value.charAt(i);
+            if (isUnreserved(c)) {
+                buffer.append(c);
+                i++;
+            } else if (c < 0x80) {
+                appendEscaped(buffer, c);
+                i++;
+            } else {
+                // encode the run of non-ASCII characters, keeping surrogate pairs together
+                int end = i + 1;
+                while (end < length && value.charAt(end) >= 0x80)
+                    end++;
+                for (byte b : value.substring(i, end).getBytes(UTF_8))
+                    appendEscaped(buffer, b & 0xff);
+                i = end;
+            }
+        }
+    }
+
+    private static void appendEscaped(StringBuilder buffer, int b) {
+        buffer.append('%').append(HEX[b >> 4]).append(HEX[b & 0xf]);
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
@@ -22,10 +22,16 @@
 
 package me.figo.models;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Object representing one bank account of the user, independent of the exact account type
@@ -307,4 +313,126 @@ public class Account {
             return accounts;
         }
     }
+
+    /**
+     * Streaming Gson adapter for Account, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<Account> {
+        private final TypeAdapter<AccountBalance> balanceAdapter;
+        private final TypeAdapter<HashMap<String, String>> iconsAdapter;
+        private final TypeAdapter<TanScheme> tanSchemeAdapter;
+        private final TypeAdapter<HashMap<String, PaymentType>> paymentTypesAdapter;
+
+        Adapter(Gson gson) {
+            this.balanceAdapter = gson.getAdapter(AccountBalance.class);
+            this.iconsAdapter = gson.getAdapter(new TypeToken<HashMap<String, String>>() {});
+            this.tanSchemeAdapter = gson.getAdapter(TanScheme.class);
+            this.paymentTypesAdapter = gson.getAdapter(new TypeToken<HashMap<String, PaymentType>>() {});
+        }
+
+        @Override
+        public void write(JsonWriter out, Account account) throws IOException {
+            if (account == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("name").value(account.name);
+            out.name("owner").value(account.owner);
+            out.name("auto_sync").value(account.auto_sync);
+            out.endObject();
+        }
+
+        @Override
+        public Account read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            Account account = new Account();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("account_id".equals(name))
+                    account.account_id = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_id".equals(name))
+                    account.bank_id = ModelTypeAdapterFactory.readString(in);
+                else if ("name".equals(name))
+                    account.name = ModelTypeAdapterFactory.readString(in);
+                else if ("owner".equals(name))
+                    account.owner = ModelTypeAdapterFactory.readString(in);
+                else if ("auto_sync".equals(name))
+                    account.auto_sync = ModelTypeAdapterFactory.readBoolean(in, account.auto_sync);
+                else if ("account_number".equals(name))
+                    account.account_number = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_code".equals(name))
+                    account.bank_code = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_name".equals(name))
+                    account.bank_name = ModelTypeAdapterFactory.readString(in);
+                else if ("currency".equals(name))
+                    account.currency = ModelTypeAdapterFactory.readString(in);
+                else if ("iban".equals(name))
+                    account.iban = ModelTypeAdapterFactory.readString(in);
+                else if ("bic".equals(name))
+                    account.bic = ModelTypeAdapterFactory.readString(in);
+                else if ("type".equals(name))
+                    account.type = ModelTypeAdapterFactory.readString(in);
+                else if ("icon".equals(name))
+                    account.icon = ModelTypeAdapterFactory.readString(in);
+                else if ("balance".equals(name))
+                    account.balance = balanceAdapter.read(in);
+                else if ("additional_icons".equals(name))
+                    account.additional_icons = iconsAdapter.read(in);
+                else if ("supported_tan_schemes".equals(name))
+                    account.supported_tan_schemes = ModelTypeAdapterFactory.readList(in, tanSchemeAdapter);
+                else if ("supported_payments".equals(name))
+                    account.supported_payments = paymentTypesAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return account;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for AccountsResponse, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class ResponseAdapter extends TypeAdapter<AccountsResponse> {
+        private final TypeAdapter<Account> elementAdapter;
+
+        ResponseAdapter(Gson gson) {
+            this.elementAdapter = gson.getAdapter(Account.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, AccountsResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ModelTypeAdapterFactory.writeList(out.name("accounts"), response.accounts, elementAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public AccountsResponse read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            AccountsResponse response = new AccountsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("accounts".equals(name))
+                    response.accounts = ModelTypeAdapterFactory.readList(in, elementAdapter);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
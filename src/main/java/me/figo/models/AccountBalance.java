@@ -22,10 +22,15 @@
 
 package me.figo.models;
 
-import java.util.Date;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.Date;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Object representing the balance of a certain bank account of the user
@@ -103,4 +108,52 @@ public class AccountBalance {
     public void setMonthlySpendingLimit(BigDecimal spending_limit) {
         this.monthly_spending_limit = spending_limit;
     }
+
+    /**
+     * Streaming Gson adapter for AccountBalance, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<AccountBalance> {
+        private final TypeAdapter<Date> dateAdapter;
+
+        Adapter(Gson gson) {
+            this.dateAdapter = gson.getAdapter(Date.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, AccountBalance balance) throws IOException {
+            if (balance == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("credit_line").value(balance.credit_line);
+            out.name("monthly_spending_limit").value(balance.monthly_spending_limit);
+            out.endObject();
+        }
+
+        @Override
+        public AccountBalance read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            AccountBalance balance = new AccountBalance();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("balance".equals(name))
+                    balance.balance = ModelTypeAdapterFactory.readBigDecimal(in);
+                else if ("balance_date".equals(name))
+                    balance.balance_date = dateAdapter.read(in);
+                else if ("credit_line".equals(name))
+                    balance.credit_line = ModelTypeAdapterFactory.readBigDecimal(in);
+                else if ("monthly_spending_limit".equals(name))
+                    balance.monthly_spending_limit = ModelTypeAdapterFactory.readBigDecimal(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return balance;
+        }
+    }
 }
@@ -0,0 +1,492 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+
+package me.figo.models;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import me.figo.internal.IsoDateFormat;
+
+/**
+ * Memory-saving variant of {@link Transaction} for processing large numbers of transactions. The amount is kept in minor
+ * units of its currency, e.g. cents, and the dates as days since 1970-01-01, so no BigDecimal or Date objects are
+ * allocated per transaction. Currency, type, booking text, account ID and bank details repeat across transactions and
+ * are shared between all instances.
+ *
+ * It is decoded straight from the same JSON as Transaction, see
+ * {@link me.figo.FigoBlockingSession#getCompactTransactions}.
+ */
+public class CompactTransaction {
+
+    /**
+     * Value of the date fields if the date is unknown
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int MAX_SHARED_CODES = 4096;
+    private static final ConcurrentMap<String, String> CODES = new ConcurrentHashMap<String, String>();
+    private static final ConcurrentMap<String, Integer> FRACTION_DIGITS = new ConcurrentHashMap<String, Integer>();
+
+    private String transactionId;
+    private String accountId;
+    private String name;
+    private String accountNumber;
+    private String bankCode;
+    private String bankName;
+    private long amount;
+    private String currency;
+    private int bookingDate = NO_DATE;
+    private int valueDate = NO_DATE;
+    private String purpose;
+    private String type;
+    private String bookingText;
+    private boolean booked;
+    private boolean visited;
+
+    public CompactTransaction() {
+    }
+
+    /**
+     * Convert a transaction
+     *
+     * @param transaction
+     *            the transaction to convert
+     * @return the compact transaction; booking and value date are the calendar dates in UTC, the same the streaming
+     *         adapter reads from the JSON
+     * @throws ArithmeticException
+     *             if the amount has more fraction digits than its currency or does not fit into a long
+     */
+    public static CompactTransaction of(Transaction transaction) {
+        CompactTransaction compact = new CompactTransaction();
+        compact.transactionId = transaction.getTransactionId();
+        compact.accountId = share(transaction.getAccountId());
+        compact.name = transaction.getName();
+        compact.accountNumber = transaction.getAccountNumber();
+        compact.bankCode = share(transaction.getBankCode());
+        compact.bankName = share(transaction.getBankName());
+        compact.currency = share(transaction.getCurrency());
+        if (transaction.getAmount() != null)
+            compact.amount = transaction.getAmount().movePointRight(getFractionDigits(compact.currency)).longValueExact();
+        if (transaction.getBookingDate() != null)
+            compact.bookingDate = IsoDateFormat.epochDay(transaction.getBookingDate());
+        if (transaction.getValueDate() != null)
+            compact.valueDate = IsoDateFormat.epochDay(transaction.getValueDate());
+        compact.purpose = transaction.getPurposeText();
+        compact.type = share(transaction.getType());
+        compact.bookingText = share(transaction.getBookingText());
+        compact.booked = transaction.isBooked();
+        compact.visited = transaction.isVisited();
+        return compact;
+    }
+
+    /**
+     * @return the internal figo Connect transaction ID
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * @return the internal figo Connect account ID
+     */
+    public String getAccountId() {
+        return accountId;
+    }
+
+    /**
+     * @return the name of originator or recipient
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the account number of originator or recipient
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * @return the bank code of originator or recipient
+     */
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    /**
+     * @return the bank name of originator or recipient
+     */
+    public String getBankName() {
+        return bankName;
+    }
+
+    /**
+     * @return the transaction amount in minor units of the currency, e.g. -1234 for -12.34 EUR
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return the number of fraction digits of the amount, see {@link #getFractionDigits(String)}
+     */
+    public int getAmountScale() {
+        return getFractionDigits(currency);
+    }
+
+    /**
+     * @return the transaction amount as decimal number, allocated on every call
+     */
+    public BigDecimal getAmountAsBigDecimal() {
+        return BigDecimal.valueOf(amount, getAmountScale());
+    }
+
+    /**
+     * @return the three-character currency code
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return the booking date in days since 1970-01-01, or {@link #NO_DATE}
+     */
+    public int getBookingDate() {
+        return bookingDate;
+    }
+
+    /**
+     * @return the value date in days since 1970-01-01, or {@link #NO_DATE}
+     */
+    public int getValueDate() {
+        return valueDate;
+    }
+
+    /**
+     * @return the purpose text
+     */
+    public String getPurposeText() {
+        return purpose;
+    }
+
+    /**
+     * @return the transaction type: Transfer, Standing order, Direct debit, Salary or rent, Electronic cash, GeldKarte, ATM, Charges or interest or Unknown
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the booking text
+     */
+    public String getBookingText() {
+        return bookingText;
+    }
+
+    /**
+     * @return whether the transaction is booked or pending
+     */
+    public boolean isBooked() {
+        return booked;
+    }
+
+    /**
+     * @return whether the transaction has been visited or not
+     */
+    public boolean isVisited() {
+        return visited;
+    }
+
+    /**
+     * The number of fraction digits of the minor unit of a currency, e.g. 2 for EUR and 0 for JPY. Unknown currencies
+     * are assumed to have 2.
+     *
+     * @param currency
+     *            three-character currency code, or null
+     * @return the number of fraction digits
+     */
+    public static int getFractionDigits(String currency) {
+        if (currency == null)
+            return 2;
+
+        Integer digits = FRACTION_DIGITS.get(currency);
+        if (digits == null) {
+            int value = 2;
+            try {
+                value = Currency.getInstance(currency).getDefaultFractionDigits();
+            } catch (IllegalArgumentException e) {
+                // not an ISO 4217 code
+            }
+            digits = value < 0 ? 2 : value;
+            if (FRACTION_DIGITS.size() < MAX_SHARED_CODES)
+                FRACTION_DIGITS.putIfAbsent(currency, digits);
+        }
+        return digits;
+    }
+
+    /**
+     * @return an equal string shared by all instances, unless too many different values have been seen already
+     */
+    static String share(String value) {
+        if (value == null)
+            return null;
+
+        String shared = CODES.get(value);
+        if (shared != null)
+            return shared;
+        if (CODES.size() >= MAX_SHARED_CODES)
+            return value;
+        shared = CODES.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    /**
+     * Convert a decimal number as written in JSON into minor units without creating a BigDecimal
+     *
+     * @param value
+     *            the number, e.g. "-12.34"
+     * @param scale
+     *            the number of fraction digits of the minor unit
+     * @return the amount in minor units
+     */
+    static long parseMinorUnits(String value, int scale) {
+        int length = value.length();
+        int pos = 0;
+        boolean negative = false;
+        if (pos < length && (value.charAt(pos) == '-' || value.charAt(pos) == '+')) {
+            negative = value.charAt(pos) == '-';
+            pos++;
+        }
+
+        long result = 0;
+        int digits = 0;
+        int fraction = -1;
+        for (; pos < length; pos++) {
+            char c = value.charAt(pos);
+            if (c == '.' && fraction < 0) {
+                fraction = 0;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                // exponents and other rare notations
+                return slowParseMinorUnits(value, scale);
+            }
+            if (fraction >= 0) {
+                if (fraction == scale) {
+                    if (c != '0')
+                        throw new JsonSyntaxException("Amount " + value + " has more than " + scale + " fraction digits");
+                    continue;
+                }
+                fraction++;
+            }
+            if (++digits > 18)
+                return slowParseMinorUnits(value, scale);
+            result = result * 10 + (c - '0');
+        }
+        if (digits == 0)
+            throw new JsonSyntaxException("Invalid amount " + value);
+
+        // pad missing fraction digits, up to 18 digits always fit into a long
+        int padding = scale - Math.max(fraction, 0);
+        if (digits + padding > 18)
+            return slowParseMinorUnits(value, scale);
+        for (int i = 0; i < padding; i++)
+            result *= 10;
+        return negative ? -result : result;
+    }
+
+    private static long slowParseMinorUnits(String value, int scale) {
+        try {
+            return new BigDecimal(value).movePointRight(scale).longValueExact();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        } catch (ArithmeticException e) {
+            throw new JsonSyntaxException("Amount " + value + " cannot be represented in minor units", e);
+        }
+    }
+
+    /**
+     * Helper type to represent the actual answer from the figo API
+     */
+    public static class TransactionsResponse {
+
+        private List<CompactTransaction> transactions;
+
+        private SynchronizationStatus status;
+
+        public TransactionsResponse() {
+        }
+
+        /**
+         * @return the list of transactions asked for
+         */
+        public List<CompactTransaction> getTransactions() {
+            return transactions;
+        }
+
+        /**
+         * @return the synchronization status between figo and bank servers
+         */
+        public SynchronizationStatus getStatus() {
+            return status;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for CompactTransaction, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<CompactTransaction> {
+
+        @Override
+        public void write(JsonWriter out, CompactTransaction transaction) throws IOException {
+            if (transaction == null) {
+                out.nullValue();
+                return;
+            }
+
+            // all fields are read-only on the server side
+            out.beginObject();
+            out.endObject();
+        }
+
+        @Override
+        public CompactTransaction read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            CompactTransaction transaction = new CompactTransaction();
+            // the currency may follow the amount, so the amount is converted at the end
+            String amount = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("transaction_id".equals(name))
+                    transaction.transactionId = ModelTypeAdapterFactory.readString(in);
+                else if ("account_id".equals(name))
+                    transaction.accountId = share(ModelTypeAdapterFactory.readString(in));
+                else if ("name".equals(name))
+                    transaction.name = ModelTypeAdapterFactory.readString(in);
+                else if ("account_number".equals(name))
+                    transaction.accountNumber = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_code".equals(name))
+                    transaction.bankCode = share(ModelTypeAdapterFactory.readString(in));
+                else if ("bank_name".equals(name))
+                    transaction.bankName = share(ModelTypeAdapterFactory.readString(in));
+                else if ("amount".equals(name))
+                    amount = ModelTypeAdapterFactory.readString(in);
+                else if ("currency".equals(name))
+                    transaction.currency = share(ModelTypeAdapterFactory.readString(in));
+                else if ("booking_date".equals(name))
+                    transaction.bookingDate = readEpochDay(in);
+                else if ("value_date".equals(name))
+                    transaction.valueDate = readEpochDay(in);
+                else if ("purpose".equals(name))
+                    transaction.purpose = ModelTypeAdapterFactory.readString(in);
+                else if ("type".equals(name))
+                    transaction.type = share(ModelTypeAdapterFactory.readString(in));
+                else if ("booking_text".equals(name))
+                    transaction.bookingText = share(ModelTypeAdapterFactory.readString(in));
+                else if ("booked".equals(name))
+                    transaction.booked = ModelTypeAdapterFactory.readBoolean(in, transaction.booked);
+                else if ("visited".equals(name))
+                    transaction.visited = ModelTypeAdapterFactory.readBoolean(in, transaction.visited);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+
+            if (amount != null)
+                transaction.amount = parseMinorUnits(amount, getFractionDigits(transaction.currency));
+            return transaction;
+        }
+
+        private static int readEpochDay(JsonReader in) throws IOException {
+            String value = ModelTypeAdapterFactory.readString(in);
+            if (value == null)
+                return NO_DATE;
+
+            int epochDay = IsoDateFormat.parseEpochDay(value);
+            if (epochDay == Integer.MIN_VALUE)
+                throw new JsonSyntaxException("Invalid date " + value);
+            return epochDay;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for TransactionsResponse, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class ResponseAdapter extends TypeAdapter<TransactionsResponse> {
+        private final TypeAdapter<CompactTransaction> elementAdapter;
+        private final TypeAdapter<SynchronizationStatus> statusAdapter;
+
+        ResponseAdapter(Gson gson) {
+            this.elementAdapter = gson.getAdapter(CompactTransaction.class);
+            this.statusAdapter = gson.getAdapter(SynchronizationStatus.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, TransactionsResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ModelTypeAdapterFactory.writeList(out.name("transactions"), response.transactions, elementAdapter);
+            statusAdapter.write(out.name("status"), response.status);
+            out.endObject();
+        }
+
+        @Override
+        public TransactionsResponse read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            TransactionsResponse response = new TransactionsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("transactions".equals(name))
+                    response.transactions = ModelTypeAdapterFactory.readList(in, elementAdapter);
+                else if ("status".equals(name))
+                    response.status = statusAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return response;
+        }
+    }
+}
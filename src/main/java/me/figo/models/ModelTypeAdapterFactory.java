@@ -0,0 +1,166 @@
+//
+// Copyright (c) 2013 figo GmbH
+//
+// Permission is hereby granted, free of charge, to any person obtaining a copy
+// of this software and associated documentation files (the "Software"), to deal
+// in the Software without restriction, including without limitation the rights
+// to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+// copies of the Software, and to permit persons to whom the Software is
+// furnished to do so, subject to the following conditions:
+//
+// The above copyright notice and this permission notice shall be included in
+// all copies or substantial portions of the Software.
+//
+// THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+// IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+// FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+// AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+// LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+// OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+// THE SOFTWARE.
+//
+
+package me.figo.models;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Gson factory for hand-written streaming adapters of the models found in list responses. They read and write the
+ * exposed fields straight from the token stream instead of binding them through reflection. All other models, as well as
+ * subclasses of the covered ones, keep using Gson's reflective binding.
+ *
+ * @author Stefan Richter
+ */
+public final class ModelTypeAdapterFactory implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> raw = type.getRawType();
+        if (raw == Transaction.class)
+            return (TypeAdapter<T>) new Transaction.Adapter(gson);
+        if (raw == Transaction.TransactionsResponse.class)
+            return (TypeAdapter<T>) new Transaction.ResponseAdapter(gson);
+        if (raw == CompactTransaction.class)
+            return (TypeAdapter<T>) new CompactTransaction.Adapter();
+        if (raw == CompactTransaction.TransactionsResponse.class)
+            return (TypeAdapter<T>) new CompactTransaction.ResponseAdapter(gson);
+        if (raw == Account.class)
+            return (TypeAdapter<T>) new Account.Adapter(gson);
+        if (raw == Account.AccountsResponse.class)
+            return (TypeAdapter<T>) new Account.ResponseAdapter(gson);
+        if (raw == AccountBalance.class)
+            return (TypeAdapter<T>) new AccountBalance.Adapter(gson);
+        if (raw == Security.class)
+            return (TypeAdapter<T>) new Security.Adapter(gson);
+        if (raw == Security.SecurityResponse.class)
+            return (TypeAdapter<T>) new Security.ResponseAdapter(gson);
+        if (raw == Payment.class)
+            return (TypeAdapter<T>) new Payment.Adapter(gson);
+        if (raw == Payment.PaymentsResponse.class)
+            return (TypeAdapter<T>) new Payment.ResponseAdapter(gson);
+        if (raw == StandingOrder.class)
+            return (TypeAdapter<T>) new StandingOrder.Adapter(gson);
+        if (raw == StandingOrder.StandingOrdersResponse.class)
+            return (TypeAdapter<T>) new StandingOrder.ResponseAdapter(gson);
+        if (raw == SynchronizationStatus.class)
+            return (TypeAdapter<T>) new SynchronizationStatus.Adapter(gson);
+        return null;
+    }
+
+    /**
+     * @return whether the next token is a JSON null, which is consumed in that case
+     */
+    static boolean skipNull(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return true;
+        }
+        return false;
+    }
+
+    static String readString(JsonReader in) throws IOException {
+        if (skipNull(in))
+            return null;
+        if (in.peek() == JsonToken.BOOLEAN)
+            return Boolean.toString(in.nextBoolean());
+        return in.nextString();
+    }
+
+    static BigDecimal readBigDecimal(JsonReader in) throws IOException {
+        if (skipNull(in))
+            return null;
+        try {
+            return new BigDecimal(in.nextString());
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    static Integer readInteger(JsonReader in) throws IOException {
+        if (skipNull(in))
+            return null;
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * @return the next value as int, or the given default if it is a JSON null
+     */
+    static int readInt(JsonReader in, int defaultValue) throws IOException {
+        Integer value = readInteger(in);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * @return the next value as boolean, or the given default if it is a JSON null
+     */
+    static boolean readBoolean(JsonReader in, boolean defaultValue) throws IOException {
+        if (skipNull(in))
+            return defaultValue;
+        if (in.peek() == JsonToken.STRING)
+            return Boolean.parseBoolean(in.nextString());
+        return in.nextBoolean();
+    }
+
+    static <E> List<E> readList(JsonReader in, TypeAdapter<E> elementAdapter) throws IOException {
+        if (skipNull(in))
+            return null;
+
+        List<E> list = new ArrayList<E>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    static <E> void writeList(JsonWriter out, List<E> list, TypeAdapter<E> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginArray();
+        for (E element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+}
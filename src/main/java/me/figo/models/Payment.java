@@ -1,11 +1,17 @@
 package me.figo.models;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Object representing a Payment
@@ -338,4 +344,125 @@ public class Payment {
             return payments;
         }
     }
+
+    /**
+     * Streaming Gson adapter for Payment, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<Payment> {
+        private final TypeAdapter<Date> dateAdapter;
+        private final TypeAdapter<HashMap<String, String>> iconsAdapter;
+
+        Adapter(Gson gson) {
+            this.dateAdapter = gson.getAdapter(Date.class);
+            this.iconsAdapter = gson.getAdapter(new TypeToken<HashMap<String, String>>() {});
+        }
+
+        @Override
+        public void write(JsonWriter out, Payment payment) throws IOException {
+            if (payment == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            out.name("type").value(payment.type);
+            out.name("name").value(payment.name);
+            out.name("account_number").value(payment.account_number);
+            out.name("bank_code").value(payment.bank_code);
+            out.name("amount").value(payment.amount);
+            out.name("currency").value(payment.currency);
+            out.name("purpose").value(payment.purpose);
+            out.name("transaction_id").value(payment.transaction_id);
+            out.endObject();
+        }
+
+        @Override
+        public Payment read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            Payment payment = new Payment();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("payment_id".equals(name))
+                    payment.payment_id = ModelTypeAdapterFactory.readString(in);
+                else if ("account_id".equals(name))
+                    payment.account_id = ModelTypeAdapterFactory.readString(in);
+                else if ("type".equals(name))
+                    payment.type = ModelTypeAdapterFactory.readString(in);
+                else if ("name".equals(name))
+                    payment.name = ModelTypeAdapterFactory.readString(in);
+                else if ("account_number".equals(name))
+                    payment.account_number = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_code".equals(name))
+                    payment.bank_code = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_name".equals(name))
+                    payment.bank_name = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_icon".equals(name))
+                    payment.bank_icon = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_additional_icons".equals(name))
+                    payment.bank_additional_icons = iconsAdapter.read(in);
+                else if ("amount".equals(name))
+                    payment.amount = ModelTypeAdapterFactory.readBigDecimal(in);
+                else if ("currency".equals(name))
+                    payment.currency = ModelTypeAdapterFactory.readString(in);
+                else if ("purpose".equals(name))
+                    payment.purpose = ModelTypeAdapterFactory.readString(in);
+                else if ("submission_timestamp".equals(name))
+                    payment.submission_timestamp = dateAdapter.read(in);
+                else if ("creation_timestamp".equals(name))
+                    payment.creation_timestamp = dateAdapter.read(in);
+                else if ("modification_timestamp".equals(name))
+                    payment.modification_timestamp = dateAdapter.read(in);
+                else if ("transaction_id".equals(name))
+                    payment.transaction_id = ModelTypeAdapterFactory.readString(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return payment;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for PaymentsResponse, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class ResponseAdapter extends TypeAdapter<PaymentsResponse> {
+        private final TypeAdapter<Payment> elementAdapter;
+
+        ResponseAdapter(Gson gson) {
+            this.elementAdapter = gson.getAdapter(Payment.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, PaymentsResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ModelTypeAdapterFactory.writeList(out.name("payments"), response.payments, elementAdapter);
+            out.endObject();
+        }
+
+        @Override
+        public PaymentsResponse read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            PaymentsResponse response = new PaymentsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("payments".equals(name))
+                    response.payments = ModelTypeAdapterFactory.readList(in, elementAdapter);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
@@ -1,10 +1,15 @@
 package me.figo.models;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 public class Security {
 	
@@ -215,4 +220,134 @@ public class Security {
 			return this.status;
 		}
 	}
+
+	/**
+	 * Streaming Gson adapter for Security, registered through {@link ModelTypeAdapterFactory}
+	 */
+	static final class Adapter extends TypeAdapter<Security> {
+		private final TypeAdapter<Date> dateAdapter;
+
+		Adapter(Gson gson) {
+			this.dateAdapter = gson.getAdapter(Date.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, Security security) throws IOException {
+			if (security == null) {
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			out.name("name").value(security.name);
+			out.name("isin").value(security.isin);
+			out.name("wkn").value(security.wkn);
+			out.name("currency").value(security.currency);
+			out.name("quantity").value(security.quantity);
+			out.name("amount").value(security.amount);
+			out.name("amount_original_currency").value(security.amount_original_currency);
+			out.name("exchange_rate").value(security.exchange_rate);
+			out.name("price").value(security.price);
+			out.name("price_currency").value(security.price_currency);
+			out.name("purchase_price").value(security.purchase_price);
+			out.name("visited").value(security.visited);
+			out.endObject();
+		}
+
+		@Override
+		public Security read(JsonReader in) throws IOException {
+			if (ModelTypeAdapterFactory.skipNull(in))
+				return null;
+
+			Security security = new Security();
+			in.beginObject();
+			while (in.hasNext()) {
+				String name = in.nextName();
+				if ("security_id".equals(name))
+					security.security_id = ModelTypeAdapterFactory.readString(in);
+				else if ("account_id".equals(name))
+					security.account_id = ModelTypeAdapterFactory.readString(in);
+				else if ("name".equals(name))
+					security.name = ModelTypeAdapterFactory.readString(in);
+				else if ("isin".equals(name))
+					security.isin = ModelTypeAdapterFactory.readString(in);
+				else if ("wkn".equals(name))
+					security.wkn = ModelTypeAdapterFactory.readString(in);
+				else if ("currency".equals(name))
+					security.currency = ModelTypeAdapterFactory.readString(in);
+				else if ("quantity".equals(name))
+					security.quantity = ModelTypeAdapterFactory.readInt(in, security.quantity);
+				else if ("amount".equals(name))
+					security.amount = ModelTypeAdapterFactory.readBigDecimal(in);
+				else if ("amount_original_currency".equals(name))
+					security.amount_original_currency = ModelTypeAdapterFactory.readBigDecimal(in);
+				else if ("exchange_rate".equals(name))
+					security.exchange_rate = ModelTypeAdapterFactory.readBigDecimal(in);
+				else if ("price".equals(name))
+					security.price = ModelTypeAdapterFactory.readBigDecimal(in);
+				else if ("price_currency".equals(name))
+					security.price_currency = ModelTypeAdapterFactory.readString(in);
+				else if ("purchase_price".equals(name))
+					security.purchase_price = ModelTypeAdapterFactory.readBigDecimal(in);
+				else if ("visited".equals(name))
+					security.visited = ModelTypeAdapterFactory.readBoolean(in, security.visited);
+				else if ("trade_timestamp".equals(name))
+					security.trade_timestamp = dateAdapter.read(in);
+				else if ("creation_timestamp".equals(name))
+					security.creation_timestamp = dateAdapter.read(in);
+				else if ("modification_timestamp".equals(name))
+					security.modification_timestamp = dateAdapter.read(in);
+				else
+					in.skipValue();
+			}
+			in.endObject();
+			return security;
+		}
+	}
+
+	/**
+	 * Streaming Gson adapter for SecurityResponse, registered through {@link ModelTypeAdapterFactory}
+	 */
+	static final class ResponseAdapter extends TypeAdapter<SecurityResponse> {
+		private final TypeAdapter<Security> elementAdapter;
+		private final TypeAdapter<SynchronizationStatus> statusAdapter;
+
+		ResponseAdapter(Gson gson) {
+			this.elementAdapter = gson.getAdapter(Security.class);
+			this.statusAdapter = gson.getAdapter(SynchronizationStatus.class);
+		}
+
+		@Override
+		public void write(JsonWriter out, SecurityResponse response) throws IOException {
+			if (response == null) {
+				out.nullValue();
+				return;
+			}
+
+			out.beginObject();
+			ModelTypeAdapterFactory.writeList(out.name("securities"), response.securities, elementAdapter);
+			statusAdapter.write(out.name("status"), response.status);
+			out.endObject();
+		}
+
+		@Override
+		public SecurityResponse read(JsonReader in) throws IOException {
+			if (ModelTypeAdapterFactory.skipNull(in))
+				return null;
+
+			SecurityResponse response = new SecurityResponse();
+			in.beginObject();
+			while (in.hasNext()) {
+				String name = in.nextName();
+				if ("securities".equals(name))
+					response.securities = ModelTypeAdapterFactory.readList(in, elementAdapter);
+				else if ("status".equals(name))
+					response.status = statusAdapter.read(in);
+				else
+					in.skipValue();
+			}
+			in.endObject();
+			return response;
+		}
+	}
 }
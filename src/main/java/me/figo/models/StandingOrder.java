@@ -22,13 +22,18 @@
 
 package me.figo.models;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
-import java.math.BigDecimal;
 
 import me.figo.internal.StandingOrderIntervalType;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Object representing one bank standing order on a certain bank account of the user
@@ -246,4 +251,117 @@ public class StandingOrder {
             return status;
         }
     }
+
+    /**
+     * Streaming Gson adapter for StandingOrder, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<StandingOrder> {
+        private final TypeAdapter<Date> dateAdapter;
+        private final TypeAdapter<StandingOrderIntervalType> intervalAdapter;
+
+        Adapter(Gson gson) {
+            this.dateAdapter = gson.getAdapter(Date.class);
+            this.intervalAdapter = gson.getAdapter(StandingOrderIntervalType.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, StandingOrder standingOrder) throws IOException {
+            if (standingOrder == null) {
+                out.nullValue();
+                return;
+            }
+
+            // all fields are read-only on the server side
+            out.beginObject();
+            out.endObject();
+        }
+
+        @Override
+        public StandingOrder read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            StandingOrder standingOrder = new StandingOrder();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("standing_order_id".equals(name))
+                    standingOrder.standing_order_id = ModelTypeAdapterFactory.readString(in);
+                else if ("account_id".equals(name))
+                    standingOrder.account_id = ModelTypeAdapterFactory.readString(in);
+                else if ("name".equals(name))
+                    standingOrder.name = ModelTypeAdapterFactory.readString(in);
+                else if ("account_number".equals(name))
+                    standingOrder.account_number = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_code".equals(name))
+                    standingOrder.bank_code = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_name".equals(name))
+                    standingOrder.bank_name = ModelTypeAdapterFactory.readString(in);
+                else if ("amount".equals(name))
+                    standingOrder.amount = ModelTypeAdapterFactory.readBigDecimal(in);
+                else if ("currency".equals(name))
+                    standingOrder.currency = ModelTypeAdapterFactory.readString(in);
+                else if ("creation_timestamp".equals(name))
+                    standingOrder.creation_timestamp = dateAdapter.read(in);
+                else if ("purpose".equals(name))
+                    standingOrder.purpose = ModelTypeAdapterFactory.readString(in);
+                else if ("execution_day".equals(name))
+                    standingOrder.execution_day = ModelTypeAdapterFactory.readInteger(in);
+                else if ("next_execution_date".equals(name))
+                    standingOrder.next_execution_date = dateAdapter.read(in);
+                else if ("interval".equals(name))
+                    standingOrder.interval = intervalAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return standingOrder;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for StandingOrdersResponse, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class ResponseAdapter extends TypeAdapter<StandingOrdersResponse> {
+        private final TypeAdapter<StandingOrder> elementAdapter;
+        private final TypeAdapter<SynchronizationStatus> statusAdapter;
+
+        ResponseAdapter(Gson gson) {
+            this.elementAdapter = gson.getAdapter(StandingOrder.class);
+            this.statusAdapter = gson.getAdapter(SynchronizationStatus.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, StandingOrdersResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ModelTypeAdapterFactory.writeList(out.name("standing_orders"), response.standing_orders, elementAdapter);
+            statusAdapter.write(out.name("status"), response.status);
+            out.endObject();
+        }
+
+        @Override
+        public StandingOrdersResponse read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            StandingOrdersResponse response = new StandingOrdersResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("standing_orders".equals(name))
+                    response.standing_orders = ModelTypeAdapterFactory.readList(in, elementAdapter);
+                else if ("status".equals(name))
+                    response.status = statusAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }
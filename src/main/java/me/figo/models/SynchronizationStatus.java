@@ -22,9 +22,14 @@
 
 package me.figo.models;
 
+import java.io.IOException;
 import java.util.Date;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Represents the status of the synchonisation between figo and the bank servers
@@ -86,4 +91,51 @@ public class SynchronizationStatus {
     public Date getSuccessTimestamp() {
         return success_timestamp;
     }
+
+    /**
+     * Streaming Gson adapter for SynchronizationStatus, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<SynchronizationStatus> {
+        private final TypeAdapter<Date> dateAdapter;
+
+        Adapter(Gson gson) {
+            this.dateAdapter = gson.getAdapter(Date.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, SynchronizationStatus status) throws IOException {
+            if (status == null) {
+                out.nullValue();
+                return;
+            }
+
+            // all fields are read-only on the server side
+            out.beginObject();
+            out.endObject();
+        }
+
+        @Override
+        public SynchronizationStatus read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            SynchronizationStatus status = new SynchronizationStatus();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("code".equals(name))
+                    status.code = ModelTypeAdapterFactory.readInteger(in);
+                else if ("message".equals(name))
+                    status.message = ModelTypeAdapterFactory.readString(in);
+                else if ("sync_timestamp".equals(name))
+                    status.sync_timestamp = dateAdapter.read(in);
+                else if ("success_timestamp".equals(name))
+                    status.success_timestamp = dateAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return status;
+        }
+    }
 }
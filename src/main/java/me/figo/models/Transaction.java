@@ -22,11 +22,16 @@
 
 package me.figo.models;
 
+import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.Date;
 import java.util.List;
-import java.math.BigDecimal;
 
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Object representing one bank transaction on a certain bank account of the user
@@ -263,4 +268,119 @@ public class Transaction {
             return status;
         }
     }
+
+    /**
+     * Streaming Gson adapter for Transaction, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class Adapter extends TypeAdapter<Transaction> {
+        private final TypeAdapter<Date> dateAdapter;
+
+        Adapter(Gson gson) {
+            this.dateAdapter = gson.getAdapter(Date.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, Transaction transaction) throws IOException {
+            if (transaction == null) {
+                out.nullValue();
+                return;
+            }
+
+            // all fields are read-only on the server side
+            out.beginObject();
+            out.endObject();
+        }
+
+        @Override
+        public Transaction read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            Transaction transaction = new Transaction();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("transaction_id".equals(name))
+                    transaction.transaction_id = ModelTypeAdapterFactory.readString(in);
+                else if ("account_id".equals(name))
+                    transaction.account_id = ModelTypeAdapterFactory.readString(in);
+                else if ("name".equals(name))
+                    transaction.name = ModelTypeAdapterFactory.readString(in);
+                else if ("account_number".equals(name))
+                    transaction.account_number = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_code".equals(name))
+                    transaction.bank_code = ModelTypeAdapterFactory.readString(in);
+                else if ("bank_name".equals(name))
+                    transaction.bank_name = ModelTypeAdapterFactory.readString(in);
+                else if ("amount".equals(name))
+                    transaction.amount = ModelTypeAdapterFactory.readBigDecimal(in);
+                else if ("currency".equals(name))
+                    transaction.currency = ModelTypeAdapterFactory.readString(in);
+                else if ("booking_date".equals(name))
+                    transaction.booking_date = dateAdapter.read(in);
+                else if ("value_date".equals(name))
+                    transaction.value_date = dateAdapter.read(in);
+                else if ("purpose".equals(name))
+                    transaction.purpose = ModelTypeAdapterFactory.readString(in);
+                else if ("type".equals(name))
+                    transaction.type = ModelTypeAdapterFactory.readString(in);
+                else if ("booking_text".equals(name))
+                    transaction.booking_text = ModelTypeAdapterFactory.readString(in);
+                else if ("booked".equals(name))
+                    transaction.booked = ModelTypeAdapterFactory.readBoolean(in, transaction.booked);
+                else if ("visited".equals(name))
+                    transaction.visited = ModelTypeAdapterFactory.readBoolean(in, transaction.visited);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return transaction;
+        }
+    }
+
+    /**
+     * Streaming Gson adapter for TransactionsResponse, registered through {@link ModelTypeAdapterFactory}
+     */
+    static final class ResponseAdapter extends TypeAdapter<TransactionsResponse> {
+        private final TypeAdapter<Transaction> elementAdapter;
+        private final TypeAdapter<SynchronizationStatus> statusAdapter;
+
+        ResponseAdapter(Gson gson) {
+            this.elementAdapter = gson.getAdapter(Transaction.class);
+            this.statusAdapter = gson.getAdapter(SynchronizationStatus.class);
+        }
+
+        @Override
+        public void write(JsonWriter out, TransactionsResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+
+            out.beginObject();
+            ModelTypeAdapterFactory.writeList(out.name("transactions"), response.transactions, elementAdapter);
+            statusAdapter.write(out.name("status"), response.status);
+            out.endObject();
+        }
+
+        @Override
+        public TransactionsResponse read(JsonReader in) throws IOException {
+            if (ModelTypeAdapterFactory.skipNull(in))
+                return null;
+
+            TransactionsResponse response = new TransactionsResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if ("transactions".equals(name))
+                    response.transactions = ModelTypeAdapterFactory.readList(in, elementAdapter);
+                else if ("status".equals(name))
+                    response.status = statusAdapter.read(in);
+                else
+                    in.skipValue();
+            }
+            in.endObject();
+            return response;
+        }
+    }
 }